@@ -21,6 +21,8 @@
  */
 package com.gitlab.ccook.jgtk;
 
+import com.gitlab.ccook.util.Option;
+import com.sun.jna.Pointer;
 import com.sun.jna.Structure;
 
 import java.util.Arrays;
@@ -40,6 +42,39 @@ public class GError extends JGTKObject {
         this.message = ref.message;
     }
 
+    /**
+     * Reads a GError, copying its fields into Java
+     *
+     * @param error A GError*
+     */
+    public GError(Pointer error) {
+        super(error);
+        this.quark = error.getInt(0);
+        this.code = error.getInt(4);
+        Pointer m = error.getPointer(8);
+        this.message = m != null ? m.getString(0) : null;
+    }
+
+    /**
+     * Reads and frees the GError stored in a GError** out-parameter slot (e.g. one from
+     * NativeArena.Scope#allocatePointer())
+     *
+     * @param slot The GError** passed to a native function
+     * @return The error, if one was set
+     */
+    public static Option<GError> fromSlot(Pointer slot) {
+        if (slot != null) {
+            Pointer error = slot.getPointer(0);
+            if (error != null) {
+                GError e = new GError(error);
+                library.g_error_free(error);
+                slot.setPointer(0, Pointer.NULL);
+                return new Option<>(e);
+            }
+        }
+        return Option.NONE;
+    }
+
 
     public int getCode() {
         return code;
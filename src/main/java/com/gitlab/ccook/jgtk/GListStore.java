@@ -0,0 +1,374 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk;
+
+import com.gitlab.ccook.jgtk.callbacks.GCompareDataFunc;
+import com.gitlab.ccook.jgtk.callbacks.GEqualFunc;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.util.AssertionUtils;
+import com.gitlab.ccook.util.Option;
+import com.sun.jna.Function;
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+
+import java.lang.reflect.Constructor;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.function.BiPredicate;
+
+/**
+ * GListStore is a simple implementation of GListModel that stores all items in memory.
+ * <p>
+ * Prefer {@link #splice(int, int, Collection)} over repeated {@link #append(JGTKObject)}: a splice hands every item to
+ * GListStore in one native call and emits a single "items-changed", so listeners re-layout once.
+ *
+ * @param <T> Wrapper type of the items
+ */
+public class GListStore<T extends JGTKObject> extends GObject implements GListModel<T> {
+    private static final GListStoreLibrary library = new GListStoreLibrary();
+    private final Class<T> itemClass;
+    private Constructor<T> itemConstructor;
+
+    public GListStore(Pointer cReference, Class<T> itemClass) {
+        super(cReference);
+        this.itemClass = itemClass;
+    }
+
+    /**
+     * Creates a new GListStore with items of type itemType.
+     *
+     * @param itemType  The GType of items in the list
+     * @param itemClass Java wrapper of items in the list
+     */
+    public GListStore(long itemType, Class<T> itemClass) {
+        this(library.g_list_store_new(itemType), itemClass);
+    }
+
+    /**
+     * Creates a new GListStore, deriving the item GType from the wrapper class (e.g. GtkLabel -> gtk_label_get_type()).
+     * Falls back to GObject if the class has no matching type function.
+     *
+     * @param itemClass Java wrapper of items in the list
+     */
+    public GListStore(Class<T> itemClass) {
+        this(typeOf(itemClass), itemClass);
+    }
+
+    private static long typeOf(Class<?> c) {
+        String name = c.getSimpleName();
+        StringBuilder function = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char ch = name.charAt(i);
+            if (Character.isUpperCase(ch) && i > 0 && !Character.isUpperCase(name.charAt(i - 1))) {
+                function.append('_');
+            }
+            function.append(Character.toLowerCase(ch));
+        }
+        function.append("_get_type");
+        try {
+            Function getType = NativeLibrary.getInstance("gtk-4").getFunction(function.toString());
+            return getType.invokeLong(new Object[0]);
+        } catch (UnsatisfiedLinkError e) {
+            return library.g_object_get_type();
+        }
+    }
+
+    /**
+     * @param position The position of the item to fetch
+     * @return The item at position
+     */
+    public Option<T> getItem(int position) {
+        if (position >= 0 && position < size()) {
+            return new Option<>(wrap(library.g_list_model_get_item(getCReference(), position)));
+        }
+        return Option.NONE;
+    }
+
+    /**
+     * Appends item to store.
+     *
+     * @param item The new item
+     */
+    public void append(T item) {
+        AssertionUtils.assertNotNull(GListStore.class, "append: item cannot be null", item);
+        library.g_list_store_append(getCReference(), item.getCReference());
+    }
+
+    /**
+     * Inserts item into store at position.
+     *
+     * @param position The position at which to insert the new item
+     * @param item     The new item
+     */
+    public void insert(int position, T item) {
+        AssertionUtils.assertNotNull(GListStore.class, "insert: item cannot be null", item);
+        AssertionUtils.assertTrue(GListStore.class, "insert: position out of range", position >= 0 && position <= size());
+        library.g_list_store_insert(getCReference(), position, item.getCReference());
+    }
+
+    /**
+     * Inserts item into store at a position to be determined by comparator.
+     * <p>
+     * The list must already be sorted before calling this function or the result is undefined.
+     *
+     * @param item       The new item
+     * @param comparator Ordering of the list
+     * @return The position at which item was inserted
+     */
+    public int insertSorted(T item, Comparator<? super T> comparator) {
+        AssertionUtils.assertNotNull(GListStore.class, "insertSorted: item cannot be null", item);
+        return library.g_list_store_insert_sorted(getCReference(), item.getCReference(), trampoline(comparator), Pointer.NULL);
+    }
+
+    /**
+     * Removes the item from store that is at position.
+     *
+     * @param position The position of the item that is to be removed
+     */
+    public void remove(int position) {
+        if (position >= 0 && position < size()) {
+            library.g_list_store_remove(getCReference(), position);
+        }
+    }
+
+    /**
+     * Removes all items from store.
+     */
+    public void removeAll() {
+        library.g_list_store_remove_all(getCReference());
+    }
+
+    /**
+     * Replaces the whole content of the store with items, as a single change
+     *
+     * @param items The new content
+     */
+    public void replaceAll(Collection<? extends T> items) {
+        splice(0, size(), items);
+    }
+
+    /**
+     * Changes store by removing nRemovals items and adding additions to it, in one native call.
+     * <p>
+     * This function is more efficient than insert and remove, because it only emits "items-changed" once for the
+     * change.
+     *
+     * @param position  The position at which to make the change
+     * @param nRemovals The number of items to remove
+     * @param additions The items to add. The argument can be NULL.
+     */
+    public void splice(int position, int nRemovals, Collection<? extends T> additions) {
+        int size = size();
+        AssertionUtils.assertTrue(GListStore.class, "splice: range [" + position + ", +" + nRemovals + ") outside [0, " + size + ")",
+                position >= 0 && nRemovals >= 0 && position + nRemovals <= size);
+        if (additions == null) {
+            additions = Collections.emptyList();
+        }
+        int nAdditions = additions.size();
+        if (nRemovals == 0 && nAdditions == 0) {
+            return;
+        }
+        Memory array = null;
+        if (nAdditions > 0) {
+            array = new Memory((long) nAdditions * Native.POINTER_SIZE);
+            int i = 0;
+            for (T item : additions) {
+                AssertionUtils.assertNotNull(GListStore.class, "splice: item cannot be null", item);
+                array.setPointer((long) i * Native.POINTER_SIZE, item.getCReference());
+                i++;
+            }
+        }
+        library.g_list_store_splice(getCReference(), position, nRemovals, array, nAdditions);
+    }
+
+    /**
+     * Sort the items in store according to comparator.
+     *
+     * @param comparator Ordering of the items
+     */
+    public void sort(Comparator<? super T> comparator) {
+        library.g_list_store_sort(getCReference(), trampoline(comparator), Pointer.NULL);
+    }
+
+    /**
+     * Looks up the given item in the list store by looping over the items until the first occurrence of item.
+     *
+     * @param item An item
+     * @return The first position of item, if it was found.
+     */
+    public Option<Integer> find(T item) {
+        if (item != null) {
+            IntByReference position = new IntByReference();
+            if (library.g_list_store_find(getCReference(), item.getCReference(), position)) {
+                return new Option<>(position.getValue());
+            }
+        }
+        return Option.NONE;
+    }
+
+    /**
+     * Looks up the given item in the list store by looping over the items and comparing them with equal until the
+     * first occurrence of item which matches.
+     *
+     * @param item  An item
+     * @param equal Called with (a store item, item)
+     * @return The first position of a matching item, if it was found.
+     */
+    public Option<Integer> find(T item, BiPredicate<? super T, ? super T> equal) {
+        if (item != null && equal != null) {
+            IntByReference position = new IntByReference();
+            GEqualFunc trampoline = (a, b) -> equal.test(wrap(a), wrap(b));
+            if (library.g_list_store_find_with_equal_func(getCReference(), item.getCReference(), trampoline, position)) {
+                return new Option<>(position.getValue());
+            }
+        }
+        return Option.NONE;
+    }
+
+    private GCompareDataFunc trampoline(Comparator<? super T> comparator) {
+        AssertionUtils.assertNotNull(GListStore.class, "comparator cannot be null", comparator);
+        return (a, b, userData) -> comparator.compare(wrap(a), wrap(b));
+    }
+
+    private T wrap(Pointer item) {
+        if (item == null) {
+            return null;
+        }
+        try {
+            if (itemConstructor == null) {
+                itemConstructor = itemClass.getDeclaredConstructor(Pointer.class);
+            }
+            return itemConstructor.newInstance(item);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Could not wrap " + item + " as " + itemClass, e);
+        }
+    }
+
+    protected static class GListStoreLibrary extends GtkLibrary {
+        static {
+            Native.register("gtk-4");
+        }
+
+        public native long g_object_get_type();
+
+        /**
+         * Appends item to store. item must be of type GListStore:item-type.
+         *
+         * @param store GListStore
+         * @param item  The new item
+         */
+        public native void g_list_store_append(Pointer store, Pointer item);
+
+        /**
+         * Looks up the given item in the list store by looping over the items until the first occurrence of item.
+         *
+         * @param store    GListStore
+         * @param item     An item
+         * @param position The first position of item, if it was found.
+         * @return Whether store contains item. If it was found, position will be set to the position where item
+         *         occurred for the first time.
+         */
+        public native boolean g_list_store_find(Pointer store, Pointer item, IntByReference position);
+
+        /**
+         * Looks up the given item in the list store by looping over the items and comparing them with equal_func
+         * until the first occurrence of item which matches.
+         *
+         * @param store     GListStore
+         * @param item      An item
+         * @param equalFunc A custom equality check function
+         * @param position  The first position of item, if it was found.
+         * @return Whether store contains item.
+         */
+        public native boolean g_list_store_find_with_equal_func(Pointer store, Pointer item, GEqualFunc equalFunc, IntByReference position);
+
+        /**
+         * Inserts item into store at position. item must be of type GListStore:item-type or derived from it.
+         * position must be smaller than the length of the list, or equal to it to append.
+         *
+         * @param store    GListStore
+         * @param position The position at which to insert the new item
+         * @param item     The new item
+         */
+        public native void g_list_store_insert(Pointer store, int position, Pointer item);
+
+        /**
+         * Inserts item into store at a position to be determined by the compare_func.
+         *
+         * @param store       GListStore
+         * @param item        The new item
+         * @param compareFunc Pairwise comparison function for sorting
+         * @param userData    User data for compare_func
+         * @return The position at which item was inserted
+         */
+        public native int g_list_store_insert_sorted(Pointer store, Pointer item, GCompareDataFunc compareFunc, Pointer userData);
+
+        /**
+         * Creates a new GListStore with items of type item_type. item_type must be a subclass of GObject.
+         *
+         * @param itemType The GType of items in the list
+         * @return A new GListStore
+         */
+        public native Pointer g_list_store_new(long itemType);
+
+        /**
+         * Removes the item from store that is at position. position must be smaller than the current length of the
+         * list.
+         *
+         * @param store    GListStore
+         * @param position The position of the item that is to be removed
+         */
+        public native void g_list_store_remove(Pointer store, int position);
+
+        /**
+         * Removes all items from store.
+         *
+         * @param store GListStore
+         */
+        public native void g_list_store_remove_all(Pointer store);
+
+        /**
+         * Sort the items in store according to compare_func.
+         *
+         * @param store       GListStore
+         * @param compareFunc Pairwise comparison function for sorting
+         * @param userData    User data for compare_func
+         */
+        public native void g_list_store_sort(Pointer store, GCompareDataFunc compareFunc, Pointer userData);
+
+        /**
+         * Changes store by removing n_removals items and adding n_additions items to it. additions must contain
+         * n_additions items of type GListStore:item-type. NULL is not permitted.
+         *
+         * @param store      GListStore
+         * @param position   The position at which to make the change
+         * @param nRemovals  The number of items to remove
+         * @param additions  The items to add. The argument can be NULL.
+         * @param nAdditions The number of items to add
+         */
+        public native void g_list_store_splice(Pointer store, int position, int nRemovals, Pointer additions, int nAdditions);
+    }
+}
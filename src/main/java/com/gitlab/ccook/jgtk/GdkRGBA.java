@@ -21,6 +21,7 @@
  */
 package com.gitlab.ccook.jgtk;
 
+import com.gitlab.ccook.jna.NativeArena;
 import com.sun.jna.Pointer;
 import com.sun.jna.Structure;
 
@@ -29,6 +30,10 @@ import java.util.Collections;
 import java.util.List;
 
 public class GdkRGBA extends JGTKObject {
+    /**
+     * Size in bytes of a GdkRGBA
+     */
+    public static final int SIZE = 16;
     public final float red;
     public final float green;
     public final float blue;
@@ -52,6 +57,19 @@ public class GdkRGBA extends JGTKObject {
         this(handleCtor(red, green, blue, alpha));
     }
 
+    /**
+     * Creates a color living on arena memory; it is reclaimed when the scope is closed
+     *
+     * @param scope Scope to allocate from
+     * @param red   The intensity of the red channel from 0.0 to 1.0 inclusive
+     * @param green The intensity of the green channel from 0.0 to 1.0 inclusive
+     * @param blue  The intensity of the blue channel from 0.0 to 1.0 inclusive
+     * @param alpha The opacity of the color from 0.0 for completely translucent to 1.0 for opaque
+     */
+    public GdkRGBA(NativeArena.Scope scope, float red, float green, float blue, float alpha) {
+        this(handleCtor(scope.allocate(SIZE), red, green, blue, alpha));
+    }
+
     public GdkRGBA(GdkRGBA.GdkRGBAStruct.ByReference ref) {
         super(ref.getPointer());
         ref.read();
@@ -71,6 +89,11 @@ public class GdkRGBA extends JGTKObject {
         return r.getPointer();
     }
 
+    private static Pointer handleCtor(Pointer p, float red, float green, float blue, float alpha) {
+        p.write(0, new float[]{red, green, blue, alpha}, 0, 4);
+        return p;
+    }
+
 
     private static Pointer handleCtor(String parsable_string) {
         GdkRGBA.GdkRGBAStruct.ByReference rgba = new GdkRGBA.GdkRGBAStruct.ByReference();
@@ -21,6 +21,7 @@
  */
 package com.gitlab.ccook.jgtk;
 
+import com.gitlab.ccook.jna.NativeArena;
 import com.sun.jna.Pointer;
 import com.sun.jna.Structure;
 import org.slf4j.Logger;
@@ -30,6 +31,10 @@ import java.util.Arrays;
 import java.util.List;
 
 public class GdkRectangle extends JGTKObject {
+    /**
+     * Size in bytes of a GdkRectangle
+     */
+    public static final int SIZE = 16;
     private static final Logger log = LoggerFactory.getLogger(GdkRectangle.class);
     private final int x;
     private final int y;
@@ -40,13 +45,26 @@ public class GdkRectangle extends JGTKObject {
         this(handleCtor(x, y, width, height));
     }
 
+    /**
+     * Creates a rectangle living on arena memory; it is reclaimed when the scope is closed
+     *
+     * @param scope  Scope to allocate from
+     * @param x      The x coordinate of the top left corner
+     * @param y      The y coordinate of the top left corner
+     * @param width  The width of the rectangle
+     * @param height The height of the rectangle
+     */
+    public GdkRectangle(NativeArena.Scope scope, int x, int y, int width, int height) {
+        this(handleCtor(scope.allocate(SIZE), x, y, width, height));
+    }
+
     public GdkRectangle(Pointer pointer) {
         super(pointer);
         this.x = pointer.getInt(0);
-        this.y = pointer.getInt(1);
+        this.y = pointer.getInt(4);
         try {
-            this.width = pointer.getInt(2);
-            this.height = pointer.getInt(3);
+            this.width = pointer.getInt(8);
+            this.height = pointer.getInt(12);
         } catch (Throwable e) {
             log.warn("Could not get width/height for GdkRectangle(" + pointer + "). Called before realized?");
         }
@@ -62,6 +80,14 @@ public class GdkRectangle extends JGTKObject {
         return r.getPointer();
     }
 
+    private static Pointer handleCtor(Pointer p, int x, int y, int width, int height) {
+        p.setInt(0, x);
+        p.setInt(4, y);
+        p.setInt(8, width);
+        p.setInt(12, height);
+        return p;
+    }
+
     public GdkRectangle(GdkRectangleStruct.ByReference ref) {
         super(ref.getPointer());
         ref.read();
@@ -71,6 +97,22 @@ public class GdkRectangle extends JGTKObject {
         this.height = ref.height;
     }
 
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof GdkRectangle) {
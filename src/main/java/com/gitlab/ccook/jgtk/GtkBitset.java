@@ -21,12 +21,25 @@
  */
 package com.gitlab.ccook.jgtk;
 
+import com.gitlab.ccook.util.AssertionUtils;
 import com.gitlab.ccook.util.Option;
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
 
 @SuppressWarnings({"unchecked", "MethodDoesntCallSuperMethod"})
 public class GtkBitset extends JGTKObject {
+    // After this many consecutive values, the end of a run is found by bisecting gtk_bitset_get_size_in_range()
+    private static final int RUN_PROBE = 8;
 
     public GtkBitset() {
         super(library.gtk_bitset_new_empty());
@@ -40,6 +53,51 @@ public class GtkBitset extends JGTKObject {
         super(cReference);
     }
 
+    /**
+     * Creates a bitset holding the set bits of bits, adding each run of set bits at once
+     *
+     * @param bits Values to add
+     * @return A new GtkBitset
+     */
+    public static GtkBitset fromBitSet(BitSet bits) {
+        GtkBitset bitset = new GtkBitset();
+        if (bits != null) {
+            for (int start = bits.nextSetBit(0); start >= 0; ) {
+                int end = bits.nextClearBit(start);
+                bitset.addRange(start, end - start);
+                start = end < Integer.MAX_VALUE ? bits.nextSetBit(end) : -1;
+            }
+        }
+        return bitset;
+    }
+
+    /**
+     * Creates a bitset holding values, adding each run of consecutive values at once
+     *
+     * @param values Non-negative values in ascending order; duplicates are allowed
+     * @return A new GtkBitset
+     */
+    public static GtkBitset fromSortedInts(int[] values) {
+        GtkBitset bitset = new GtkBitset();
+        if (values != null && values.length > 0) {
+            AssertionUtils.assertTrue(GtkBitset.class, "fromSortedInts: negative value", values[0] >= 0);
+            int start = values[0];
+            int last = start;
+            for (int i = 1; i < values.length; i++) {
+                int v = values[i];
+                if (v < last) {
+                    AssertionUtils.assertTrue(GtkBitset.class, "fromSortedInts: values not sorted at index " + i, false);
+                }
+                if (v > last + 1) {
+                    bitset.addRange(start, last - start + 1);
+                    start = v;
+                }
+                last = v;
+            }
+            bitset.addRange(start, last - start + 1);
+        }
+        return bitset;
+    }
 
     /**
      * Adds value to self if it wasn't part of it before.
@@ -329,4 +387,180 @@ public class GtkBitset extends JGTKObject {
             library.gtk_bitset_union(getCReference(), s.getCReference());
         }
     }
+
+    /**
+     * Calls consumer with each run of consecutive values, in ascending order.
+     * <p>
+     * Values are read with a GtkBitsetIter; long runs are measured with gtk_bitset_get_size_in_range() instead of
+     * being stepped through. The bitset must not be changed while this runs.
+     *
+     * @param consumer Called with the first and last value (inclusive) of each run
+     */
+    public void forEachRange(IntRangeConsumer consumer) {
+        if (consumer != null) {
+            RangeCursor cursor = new RangeCursor();
+            while (cursor.next()) {
+                consumer.accept(cursor.first, cursor.last);
+            }
+        }
+    }
+
+    /**
+     * @return The values of self, in ascending order
+     */
+    public int[] toIntArray() {
+        int[] values = new int[size()];
+        int[] i = {0};
+        forEachRange((first, last) -> {
+            for (int v = first; ; v++) {
+                values[i[0]++] = v;
+                if (v == last) {
+                    break;
+                }
+            }
+        });
+        return values;
+    }
+
+    /**
+     * @return The values of self as a java.util.BitSet
+     */
+    public BitSet toBitSet() {
+        BitSet bits = new BitSet();
+        forEachRange((first, last) -> bits.set(first, last + 1));
+        return bits;
+    }
+
+    /**
+     * Streams the values of self in ascending order, reading runs lazily from a GtkBitsetIter.
+     * <p>
+     * The stream must be consumed on the main thread, before self is changed.
+     *
+     * @return The values of self
+     */
+    public IntStream stream() {
+        RangeCursor cursor = new RangeCursor();
+        PrimitiveIterator.OfInt values = new PrimitiveIterator.OfInt() {
+            private boolean inRange = false;
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                if (!inRange && cursor.next()) {
+                    inRange = true;
+                    next = cursor.first;
+                }
+                return inRange;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int value = next;
+                if (value == cursor.last) {
+                    inRange = false;
+                } else {
+                    next++;
+                }
+                return value;
+            }
+        };
+        return StreamSupport.intStream(Spliterators.spliterator(values, size(),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Receives runs of consecutive values of a GtkBitset
+     */
+    public interface IntRangeConsumer {
+        /**
+         * @param first First value of the run
+         * @param last  Last value of the run (inclusive)
+         */
+        void accept(int first, int last);
+    }
+
+    /**
+     * Walks the runs of self with a native GtkBitsetIter
+     */
+    private class RangeCursor {
+        // GtkBitsetIter is gpointer private_data[10]
+        private final Memory iter = new Memory(10L * Native.POINTER_SIZE);
+        private final Memory value = new Memory(4);
+        private boolean started = false;
+        private boolean valid = false;
+        private int first;
+        private int last;
+
+        boolean next() {
+            if (!started) {
+                started = true;
+                valid = library.gtk_bitset_iter_init_first(iter, getCReference(), value);
+            }
+            if (!valid) {
+                return false;
+            }
+            first = value.getInt(0);
+            last = first;
+            int consecutive = 1;
+            while (true) {
+                if (last == -1) {
+                    // G_MAXUINT is the largest value a bitset can hold
+                    valid = false;
+                    break;
+                }
+                if (consecutive >= RUN_PROBE) {
+                    last = runEnd(last);
+                    valid = last != -1 && library.gtk_bitset_iter_init_at(iter, getCReference(), last + 1, value);
+                    break;
+                }
+                valid = library.gtk_bitset_iter_next(iter, value);
+                if (!valid || value.getInt(0) != last + 1) {
+                    break;
+                }
+                last++;
+                consecutive++;
+            }
+            return true;
+        }
+
+        /**
+         * @return The last value of the run of consecutive values containing start
+         */
+        private int runEnd(int start) {
+            // Gallop for a step that leaves the run, then bisect; values are unsigned
+            long low = start & 0xFFFFFFFFL;
+            long step = 1;
+            long high;
+            while (true) {
+                long probe = Math.min(low + step, 0xFFFFFFFFL);
+                if (!isFull(start, probe)) {
+                    high = probe;
+                    break;
+                }
+                low = probe;
+                if (probe == 0xFFFFFFFFL) {
+                    return (int) probe;
+                }
+                step <<= 1;
+            }
+            // [start, low] is full, [start, high] is not
+            while (high - low > 1) {
+                long mid = (low + high) >>> 1;
+                if (isFull(start, mid)) {
+                    low = mid;
+                } else {
+                    high = mid;
+                }
+            }
+            return (int) low;
+        }
+
+        private boolean isFull(int start, long last) {
+            long expected = last - (start & 0xFFFFFFFFL) + 1;
+            return library.gtk_bitset_get_size_in_range(getCReference(), start, (int) last) == expected;
+        }
+    }
 }
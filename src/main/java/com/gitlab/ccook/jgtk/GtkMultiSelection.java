@@ -22,10 +22,37 @@
 package com.gitlab.ccook.jgtk;
 
 import com.gitlab.ccook.jgtk.gtk.interfaces.GtkSelectionModel;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 
 public class GtkMultiSelection extends JGTKObject implements GtkSelectionModel/*, TODO GListModel*/ {
+    private static final GtkMultiSelectionLibrary library = new GtkMultiSelectionLibrary();
+
     public GtkMultiSelection(Pointer cReference) {
         super(cReference);
     }
+
+    /**
+     * Creates a new selection to handle model.
+     *
+     * @param model The GListModel to manage. The argument can be NULL.
+     */
+    public GtkMultiSelection(GListModel<?> model) {
+        super(library.gtk_multi_selection_new(refOrNull(model)));
+    }
+
+    protected static class GtkMultiSelectionLibrary extends GtkLibrary {
+        static {
+            Native.register("gtk-4");
+        }
+
+        /**
+         * Creates a new selection to handle model.
+         *
+         * @param model The GListModel to manage. The data is owned by the called function. The argument can be NULL.
+         * @return A new GtkMultiSelection
+         */
+        public native Pointer gtk_multi_selection_new(Pointer model);
+    }
 }
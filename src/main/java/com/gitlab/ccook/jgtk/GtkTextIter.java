@@ -26,14 +26,54 @@ import com.gitlab.ccook.jgtk.callbacks.GtkTextCharPredicate;
 import com.gitlab.ccook.jgtk.gtk.GtkTextBuffer;
 import com.gitlab.ccook.util.Option;
 import com.gitlab.ccook.util.Pair;
+import com.gitlab.ccook.jna.NativeArena;
+import com.sun.jna.Memory;
 import com.sun.jna.Pointer;
-import com.sun.jna.ptr.PointerByReference;
+import com.sun.jna.Structure;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
 
 
 @SuppressWarnings("unchecked")
 public class GtkTextIter extends JGTKObject implements Comparable<GtkTextIter>, Cloneable {
+    /**
+     * Size in bytes of a GtkTextIter on this platform
+     */
+    public static final int SIZE = new GtkTextIterStruct().size();
+    private final boolean owned;
+
+    /**
+     * Creates an (uninitialized) iterator over its own, correctly sized native slot.
+     * <p>
+     * The slot is Java-owned and released along with this object; nothing needs to be freed. Initialize it with
+     * set(other) or one of the GtkTextBuffer getters that fill a caller-supplied iterator.
+     */
+    public GtkTextIter() {
+        super(newSlot());
+        this.owned = true;
+    }
+
     public GtkTextIter(Pointer cReference) {
         super(cReference);
+        this.owned = false;
+    }
+
+    /**
+     * Creates an (uninitialized) iterator living on arena memory; it is reclaimed when the scope is closed
+     *
+     * @param scope Scope to allocate from
+     */
+    public GtkTextIter(NativeArena.Scope scope) {
+        super(scope.allocate(SIZE));
+        this.owned = false;
+    }
+
+    private static Pointer newSlot() {
+        Memory slot = new Memory(SIZE);
+        slot.clear();
+        return slot;
     }
 
     /**
@@ -48,29 +88,28 @@ public class GtkTextIter extends JGTKObject implements Comparable<GtkTextIter>,
     }
 
     /**
-     * Creates a dynamically-allocated copy of an iterator.
+     * Makes this iterator point where other points, reusing this iterator's memory.
      *
-     * @return A copy of the iter, free with gtk_text_iter_free()
+     * @param other Another GtkTextIter
+     * @return this iterator
      */
-    @SuppressWarnings("MethodDoesntCallSuperMethod")
-    @Override
-    public GtkTextIter clone() {
-        return new GtkTextIter(library.gtk_text_iter_copy(getCReference()));
+    public GtkTextIter set(GtkTextIter other) {
+        assign(other);
+        return this;
     }
 
     /**
-     * Free an iterator allocated on the heap.
+     * Creates a copy of an iterator.
      * <p>
-     * This function is intended for use in language bindings, and is not especially useful for applications,
-     * because iterators can simply be allocated on the stack.
+     * The copy lives on Java-owned native memory and is released along with the returned object, so unlike
+     * gtk_text_iter_copy() it never needs to be freed.
      *
-     * @throws Throwable any issue encountered
+     * @return A copy of the iter
      */
-    @SuppressWarnings("removal")
+    @SuppressWarnings("MethodDoesntCallSuperMethod")
     @Override
-    protected void finalize() throws Throwable {
-        library.gtk_text_iter_free(getCReference());
-        super.finalize();
+    public GtkTextIter clone() {
+        return new GtkTextIter().set(this);
     }
 
 
@@ -1251,11 +1290,11 @@ public class GtkTextIter extends JGTKObject implements Comparable<GtkTextIter>,
     public Option<Pair<GtkTextIter, GtkTextIter>> searchBackward(String search, GtkTextSearchFlags flags, GtkTextIter limit) {
         if (search != null) {
             Pointer limitPointer = limit != null ? limit.getCReference() : Pointer.NULL;
-            PointerByReference matchStart = new PointerByReference();
-            PointerByReference matchEnd = new PointerByReference();
-            boolean didFind = library.gtk_text_iter_backward_search(getCReference(), search, GtkTextSearchFlags.getCValueFromFlags(flags), matchStart, matchEnd, limitPointer);
+            GtkTextIter matchStart = new GtkTextIter();
+            GtkTextIter matchEnd = new GtkTextIter();
+            boolean didFind = library.gtk_text_iter_backward_search(getCReference(), search, GtkTextSearchFlags.getCValueFromFlags(flags), matchStart.getCReference(), matchEnd.getCReference(), limitPointer);
             if (didFind) {
-                return new Option<>(new Pair<>(new GtkTextIter(matchStart.getPointer()), new GtkTextIter(matchEnd.getPointer())));
+                return new Option<>(new Pair<>(matchStart, matchEnd));
             }
         }
         return Option.NONE;
@@ -1281,13 +1320,105 @@ public class GtkTextIter extends JGTKObject implements Comparable<GtkTextIter>,
     public Option<Pair<GtkTextIter, GtkTextIter>> searchForward(String search, GtkTextSearchFlags flags, GtkTextIter limit) {
         if (search != null) {
             Pointer limitPointer = limit != null ? limit.getCReference() : Pointer.NULL;
-            PointerByReference matchStart = new PointerByReference();
-            PointerByReference matchEnd = new PointerByReference();
-            boolean didFind = library.gtk_text_iter_forward_search(getCReference(), search, GtkTextSearchFlags.getCValueFromFlags(flags), matchStart, matchEnd, limitPointer);
+            GtkTextIter matchStart = new GtkTextIter();
+            GtkTextIter matchEnd = new GtkTextIter();
+            boolean didFind = library.gtk_text_iter_forward_search(getCReference(), search, GtkTextSearchFlags.getCValueFromFlags(flags), matchStart.getCReference(), matchEnd.getCReference(), limitPointer);
             if (didFind) {
-                return new Option<>(new Pair<>(new GtkTextIter(matchStart.getPointer()), new GtkTextIter(matchEnd.getPointer())));
+                return new Option<>(new Pair<>(matchStart, matchEnd));
             }
         }
         return Option.NONE;
     }
+
+    /**
+     * A thread-confined free list of iterators, so loops that need scratch iterators allocate nothing once warm.
+     * <pre>
+     * GtkTextIter.Pool pool = GtkTextIter.Pool.get();
+     * GtkTextIter it = pool.acquire(start);
+     * try {
+     *     while (it.moveForwardOneCharacter()) { ... }
+     * } finally {
+     *     pool.release(it);
+     * }
+     * </pre>
+     */
+    public static final class Pool {
+        private static final int MAX_RETAINED = 256;
+        private static final ThreadLocal<Pool> LOCAL = ThreadLocal.withInitial(Pool::new);
+        private final Thread owner = Thread.currentThread();
+        private final ArrayDeque<GtkTextIter> free = new ArrayDeque<>();
+
+        private Pool() {
+        }
+
+        /**
+         * @return The calling thread's pool
+         */
+        public static Pool get() {
+            return LOCAL.get();
+        }
+
+        /**
+         * @return An uninitialized iterator
+         */
+        public GtkTextIter acquire() {
+            checkOwner();
+            GtkTextIter iter = free.poll();
+            return iter != null ? iter : new GtkTextIter();
+        }
+
+        /**
+         * @param copyOf Iterator to copy
+         * @return An iterator pointing where copyOf points
+         */
+        public GtkTextIter acquire(GtkTextIter copyOf) {
+            return acquire().set(copyOf);
+        }
+
+        /**
+         * Returns an iterator to the pool. It must not be used afterwards. Iterators not created by
+         * GtkTextIter() (e.g. arena or GTK-owned ones) are ignored.
+         *
+         * @param iter The iterator
+         */
+        public void release(GtkTextIter iter) {
+            checkOwner();
+            if (iter != null && iter.owned && free.size() < MAX_RETAINED) {
+                free.push(iter);
+            }
+        }
+
+        private void checkOwner() {
+            if (Thread.currentThread() != owner) {
+                throw new IllegalStateException("GtkTextIter.Pool used outside its owning thread");
+            }
+        }
+    }
+
+    /**
+     * Mirror of the (opaque) GtkTextIter layout, used only to determine its size
+     */
+    @SuppressWarnings("unused")
+    public static class GtkTextIterStruct extends Structure {
+        public Pointer dummy1;
+        public Pointer dummy2;
+        public int dummy3;
+        public int dummy4;
+        public int dummy5;
+        public int dummy6;
+        public int dummy7;
+        public int dummy8;
+        public Pointer dummy9;
+        public Pointer dummy10;
+        public int dummy11;
+        public int dummy12;
+        public int dummy13;
+        public Pointer dummy14;
+
+        @Override
+        protected List<String> getFieldOrder() {
+            return Arrays.asList("dummy1", "dummy2", "dummy3", "dummy4", "dummy5", "dummy6", "dummy7", "dummy8",
+                    "dummy9", "dummy10", "dummy11", "dummy12", "dummy13", "dummy14");
+        }
+    }
 }
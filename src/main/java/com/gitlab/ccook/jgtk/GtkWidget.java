@@ -21,11 +21,14 @@
  */
 package com.gitlab.ccook.jgtk;
 
+import com.gitlab.ccook.jgtk.callbacks.GtkTickCallback;
 import com.gitlab.ccook.jgtk.enums.GtkTextDirection;
 import com.gitlab.ccook.jgtk.gtk.GenericGListModel;
 import com.gitlab.ccook.jgtk.interfaces.GtkAccessible;
 import com.gitlab.ccook.jgtk.interfaces.GtkBuildable;
 import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.jna.NativeArena;
+import com.gitlab.ccook.util.AssertionUtils;
 import com.gitlab.ccook.util.Option;
 import com.sun.jna.Pointer;
 
@@ -143,6 +146,55 @@ public class GtkWidget extends JGTKConnectableObject implements GtkAccessible, G
         return new GdkRectangle(allocP);
     }
 
+    /**
+     * Retrieves the widget's allocation into arena memory.
+     *
+     * @param scope Scope to allocate from; the rectangle's native memory is reclaimed when the scope is closed
+     * @return The widget's allocation
+     */
+    public GdkRectangle getAllocation(NativeArena.Scope scope) {
+        Pointer alloc = scope.allocate(GdkRectangle.SIZE);
+        library.gtk_widget_get_allocation(getCReference(), alloc);
+        return new GdkRectangle(alloc);
+    }
+
+    /**
+     * Retrieves the widget's allocation without allocating any objects.
+     *
+     * @param out Receives x, y, width, height at indices 0..3; must have a length of at least 4
+     */
+    public void getAllocation(int[] out) {
+        AssertionUtils.assertTrue(GtkWidget.class, "getAllocation(out): out must hold 4 ints", out != null && out.length >= 4);
+        library.gtk_widget_get_allocation(getCReference(), out);
+    }
+
+    /**
+     * Returns whether css_class is currently applied to widget.
+     *
+     * @param cssClass A style class, without the leading '.' used for notation of style classes.
+     * @return TRUE if css_class is currently applied to widget, FALSE otherwise.
+     */
+    public boolean hasCSSClass(String cssClass) {
+        if (cssClass != null) {
+            return library.gtk_widget_has_css_class(cReference, cssClass);
+        }
+        return false;
+    }
+
+    /**
+     * Removes a style from widget.
+     * <p>
+     * After this, the style of widget will stop matching for css_class.
+     *
+     * @param cssClass The style class to remove from widget, without the leading '.' used for notation of style
+     *                 classes.
+     */
+    public void removeCSSClass(String cssClass) {
+        if (cssClass != null) {
+            library.gtk_widget_remove_css_class(cReference, cssClass);
+        }
+    }
+
     public Set<GtkWidget> getChildren() {
         Pointer p = library.gtk_widget_observe_children(cReference);
         return new GListModelSet<>(new GenericGListModel<>(GtkWidget.class, p));
@@ -172,7 +224,36 @@ public class GtkWidget extends JGTKConnectableObject implements GtkAccessible, G
         library.gtk_widget_set_size_request(getCReference(), width, height);
     }
 
-    //TODO gtk_widget_add_tick_callback
+    /**
+     * Queues an animation frame update and adds a callback to be called before each frame.
+     * <p>
+     * Until the tick callback is removed, it will be called frequently (usually at the frame rate of the output
+     * device or as quickly as the application can be repainted, whichever is slower). For this reason, it is most
+     * suitable for handling graphics that change every frame or every few frames. The tick callback is removed when
+     * it returns false or via gtk_widget_remove_tick_callback().
+     *
+     * @param callback Function to call for updating animations
+     * @return An id for the connection of this callback. Remove the callback by passing the id returned from this
+     *         function to gtk_widget_remove_tick_callback()
+     */
+    public int addTickCallback(GtkTickCallback callback) {
+        if (callback != null) {
+            preventGarbageCollection(callback);
+            return library.gtk_widget_add_tick_callback(cReference, callback, Pointer.NULL, Pointer.NULL);
+        }
+        return 0;
+    }
+
+    /**
+     * Removes a tick callback previously registered with gtk_widget_add_tick_callback().
+     *
+     * @param id An id returned by gtk_widget_add_tick_callback()
+     */
+    public void removeTickCallback(int id) {
+        if (id > 0) {
+            library.gtk_widget_remove_tick_callback(cReference, id);
+        }
+    }
 
     public void show() {
         show(false);
@@ -81,6 +81,21 @@ public class JGTKObject implements GtkInterface {
         return Pointer.NULL;
     }
 
+    /**
+     * For constructors whose *_new() function takes ownership of an object argument: adds a reference for the native
+     * side, so the caller's wrapper keeps its own
+     *
+     * @param thing The argument. The argument can be NULL.
+     * @return thing's C reference, or NULL
+     */
+    protected static Pointer refOrNull(GtkInterface thing) {
+        Pointer p = pointerOrNull(thing);
+        if (p != null && p != Pointer.NULL) {
+            library.g_object_ref(p);
+        }
+        return p;
+    }
+
     protected static List<String> toList(String[] things) {
         List<String> thingsList = new ArrayList<>();
         if (things != null) {
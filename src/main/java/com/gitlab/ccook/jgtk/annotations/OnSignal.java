@@ -0,0 +1,64 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a method as the handler for a signal.
+ * <p>
+ * At compile time {@link OnSignalProcessor} generates a {@code <Class>_Signals} class next to the annotated class,
+ * with one monomorphic trampoline per handler and a static {@code connect(...)} that registers them. No reflection is
+ * used at runtime.
+ * <pre>
+ * class MyWindow {
+ *     GtkButton ok = new GtkButton("OK");
+ *
+ *     &#64;OnSignal(value = "clicked", source = "ok")
+ *     void onOk() { ... }
+ * }
+ * ...
+ * MyWindow_Signals.connect(window);
+ * </pre>
+ * Handler methods must not be private or static and must take either no parameters or
+ * {@code (Pointer relevantThing, Pointer relevantData)}.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface OnSignal {
+    /**
+     * @return The detailed signal name, e.g. "clicked" or "notify::label"
+     */
+    String value();
+
+    /**
+     * @return Name of a (non-private) field of the handler class holding the GtkInterface to connect to. If empty,
+     * the source passed to the generated connect(handler, source) is used.
+     */
+    String source() default "";
+
+    /**
+     * @return true to connect with G_CONNECT_AFTER
+     */
+    boolean after() default false;
+}
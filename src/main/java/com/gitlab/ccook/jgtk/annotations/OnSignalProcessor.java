@@ -0,0 +1,204 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.annotations;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generates a {@code <Class>_Signals} class for every class declaring {@link OnSignal} methods.
+ * <p>
+ * Each handler gets its own final trampoline class implementing GCallbackFunction that calls the handler method
+ * directly, so every call site is monomorphic and no reflection (or reflection configuration) is needed.
+ */
+public class OnSignalProcessor extends AbstractProcessor {
+    private static final String GTK_INTERFACE = "com.gitlab.ccook.jgtk.interfaces.GtkInterface";
+    private static final String POINTER = "com.sun.jna.Pointer";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(OnSignal.class.getCanonicalName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Map<TypeElement, List<ExecutableElement>> handlersByClass = new LinkedHashMap<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(roundEnv.getElementsAnnotatedWith(OnSignal.class))) {
+            TypeElement owner = (TypeElement) method.getEnclosingElement();
+            handlersByClass.computeIfAbsent(owner, k -> new ArrayList<>()).add(method);
+        }
+        for (Map.Entry<TypeElement, List<ExecutableElement>> e : handlersByClass.entrySet()) {
+            if (isValid(e.getKey(), e.getValue())) {
+                generate(e.getKey(), e.getValue());
+            }
+        }
+        return true;
+    }
+
+    private boolean isValid(TypeElement owner, List<ExecutableElement> methods) {
+        boolean valid = true;
+        for (Element type = owner; type instanceof TypeElement; type = type.getEnclosingElement()) {
+            if (type.getModifiers().contains(Modifier.PRIVATE)) {
+                error(owner, "@OnSignal handlers cannot be declared in a private class");
+                return false;
+            }
+            boolean nested = type.getEnclosingElement() instanceof TypeElement;
+            if (nested && type.getKind().isClass() && !type.getModifiers().contains(Modifier.STATIC)) {
+                error(owner, "@OnSignal handlers cannot be declared in an inner (non-static) class");
+                return false;
+            }
+        }
+        TypeMirror gtkInterface = processingEnv.getElementUtils().getTypeElement(GTK_INTERFACE).asType();
+        for (ExecutableElement method : methods) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)) {
+                error(method, "@OnSignal methods must not be private or static");
+                valid = false;
+            }
+            List<? extends VariableElement> params = method.getParameters();
+            boolean noArgs = params.isEmpty();
+            boolean pointerArgs = params.size() == 2 && POINTER.equals(params.get(0).asType().toString()) && POINTER.equals(params.get(1).asType().toString());
+            if (!noArgs && !pointerArgs) {
+                error(method, "@OnSignal methods must take no parameters or (Pointer relevantThing, Pointer relevantData)");
+                valid = false;
+            }
+            String source = method.getAnnotation(OnSignal.class).source();
+            if (!source.isEmpty()) {
+                VariableElement field = findField(owner, source);
+                if (field == null) {
+                    error(method, "@OnSignal source field '" + source + "' not found in " + owner.getQualifiedName());
+                    valid = false;
+                } else if (field.getModifiers().contains(Modifier.PRIVATE)) {
+                    error(method, "@OnSignal source field '" + source + "' must not be private");
+                    valid = false;
+                } else if (!processingEnv.getTypeUtils().isAssignable(field.asType(), gtkInterface)) {
+                    error(method, "@OnSignal source field '" + source + "' must be a " + GTK_INTERFACE);
+                    valid = false;
+                }
+            }
+        }
+        return valid;
+    }
+
+    private VariableElement findField(TypeElement owner, String name) {
+        for (VariableElement field : ElementFilter.fieldsIn(processingEnv.getElementUtils().getAllMembers(owner))) {
+            if (field.getSimpleName().contentEquals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private void generate(TypeElement owner, List<ExecutableElement> methods) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(owner).getQualifiedName().toString();
+        String handlerType = owner.getQualifiedName().toString();
+        String generatedName = flatName(owner) + "_Signals";
+        boolean allSourced = true;
+        StringBuilder connects = new StringBuilder();
+        StringBuilder trampolines = new StringBuilder();
+        for (int i = 0; i < methods.size(); i++) {
+            ExecutableElement method = methods.get(i);
+            OnSignal signal = method.getAnnotation(OnSignal.class);
+            String methodName = method.getSimpleName().toString();
+            String trampoline = Character.toUpperCase(methodName.charAt(0)) + methodName.substring(1) + "Trampoline" + i;
+            String source = signal.source().isEmpty() ? "source" : "handler." + signal.source();
+            allSourced &= !signal.source().isEmpty();
+            connects.append("        SignalTrampolines.connect(").append(source).append(", \"")
+                    .append(escape(signal.value())).append("\", new ").append(trampoline).append("(handler), ")
+                    .append(signal.after()).append(");\n");
+            String args = method.getParameters().isEmpty() ? "" : "relevantThing, relevantData";
+            trampolines.append("\n")
+                    .append("    private static final class ").append(trampoline).append(" implements GCallbackFunction {\n")
+                    .append("        private final ").append(handlerType).append(" handler;\n\n")
+                    .append("        ").append(trampoline).append("(").append(handlerType).append(" handler) {\n")
+                    .append("            this.handler = handler;\n")
+                    .append("        }\n\n")
+                    .append("        @Override\n")
+                    .append("        public void invoke(Pointer relevantThing, Pointer relevantData) {\n")
+                    .append("            handler.").append(methodName).append("(").append(args).append(");\n")
+                    .append("        }\n")
+                    .append("    }\n");
+        }
+        StringBuilder src = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            src.append("package ").append(packageName).append(";\n\n");
+        }
+        src.append("import com.gitlab.ccook.jgtk.annotations.SignalTrampolines;\n")
+                .append("import com.gitlab.ccook.jgtk.interfaces.GtkInterface;\n")
+                .append("import com.gitlab.ccook.jna.GCallbackFunction;\n")
+                .append("import com.sun.jna.Pointer;\n\n")
+                .append("/**\n * Generated by ").append(OnSignalProcessor.class.getName()).append(" for ").append(handlerType).append(". Do not edit.\n */\n")
+                .append("@SuppressWarnings({\"rawtypes\", \"unused\"})\n")
+                .append("public final class ").append(generatedName).append(" {\n\n")
+                .append("    private ").append(generatedName).append("() {\n")
+                .append("    }\n\n");
+        if (allSourced) {
+            src.append("    public static void connect(").append(handlerType).append(" handler) {\n")
+                    .append("        connect(handler, null);\n")
+                    .append("    }\n\n");
+        }
+        src.append("    public static void connect(").append(handlerType).append(" handler, GtkInterface source) {\n")
+                .append(connects)
+                .append("    }\n")
+                .append(trampolines)
+                .append("}\n");
+        String qualified = packageName.isEmpty() ? generatedName : packageName + "." + generatedName;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualified, owner);
+            try (Writer w = file.openWriter()) {
+                w.write(src.toString());
+            }
+        } catch (IOException e) {
+            error(owner, "Could not generate " + qualified + ": " + e.getMessage());
+        }
+    }
+
+    private static String flatName(TypeElement type) {
+        Deque<String> names = new ArrayDeque<>();
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            names.push(e.getSimpleName().toString());
+        }
+        return String.join("_", names);
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private void error(Element element, String msg) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg, element);
+    }
+}
@@ -0,0 +1,99 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.annotations;
+
+import com.gitlab.ccook.jgtk.bitfields.GConnectFlags;
+import com.gitlab.ccook.jgtk.callbacks.GWeakNotify;
+import com.gitlab.ccook.jgtk.interfaces.GtkInterface;
+import com.gitlab.ccook.jna.GCallbackFunction;
+import com.gitlab.ccook.util.AssertionUtils;
+import com.sun.jna.Pointer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runtime support for classes generated by {@link OnSignalProcessor}.
+ */
+public final class SignalTrampolines {
+    private static final Map<Pointer, List<GCallbackFunction>> connected = new HashMap<>();
+    // GTK drops every handler of an instance before finalizing it, so the entry can go with the instance
+    private static final GWeakNotify instanceFinalized = (data, whereTheObjectWas) -> {
+        synchronized (connected) {
+            connected.remove(whereTheObjectWas);
+        }
+    };
+
+    private SignalTrampolines() {
+    }
+
+    /**
+     * Connects a trampoline to a signal of source, keeping it reachable for as long as source is alive
+     *
+     * @param source         The object emitting the signal
+     * @param detailedSignal The detailed signal name
+     * @param trampoline     The trampoline to invoke
+     * @param after          true to connect with G_CONNECT_AFTER
+     */
+    public static void connect(GtkInterface source, String detailedSignal, GCallbackFunction trampoline, boolean after) {
+        AssertionUtils.assertNotNull(SignalTrampolines.class, "connect: source is null for " + detailedSignal, source);
+        Pointer instance = source.getCReference();
+        synchronized (connected) {
+            List<GCallbackFunction> trampolines = connected.get(instance);
+            if (trampolines == null) {
+                trampolines = new ArrayList<>();
+                connected.put(instance, trampolines);
+                GtkInterface.library.g_object_weak_ref(instance, instanceFinalized, Pointer.NULL);
+            }
+            trampolines.add(trampoline);
+        }
+        GConnectFlags flag = after ? GConnectFlags.G_CONNECT_AFTER : GConnectFlags.G_CONNECT_DEFAULT;
+        GtkInterface.library.g_signal_connect_data(instance, detailedSignal, trampoline, Pointer.NULL, Pointer.NULL, flag.getCValue());
+    }
+
+    /**
+     * Drops the references held for source's trampolines ahead of its finalization.
+     * Only call this once source's handlers have been disconnected.
+     *
+     * @param source The object whose handlers are gone
+     */
+    public static void release(GtkInterface source) {
+        if (source != null) {
+            synchronized (connected) {
+                if (connected.remove(source.getCReference()) != null) {
+                    GtkInterface.library.g_object_weak_unref(source.getCReference(), instanceFinalized, Pointer.NULL);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return How many live instances currently have trampolines connected through this class
+     */
+    public static int getConnectedInstanceCount() {
+        synchronized (connected) {
+            return connected.size();
+        }
+    }
+}
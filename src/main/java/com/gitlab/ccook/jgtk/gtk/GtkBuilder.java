@@ -28,6 +28,7 @@ import com.gitlab.ccook.jgtk.JGTKObject;
 import com.gitlab.ccook.jgtk.bitfields.GtkBuilderClosureFlags;
 import com.gitlab.ccook.jgtk.errors.GErrorException;
 import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.jna.NativeArena;
 import com.gitlab.ccook.util.Option;
 import com.sun.jna.Native;
 import com.sun.jna.Pointer;
@@ -92,12 +93,15 @@ public class GtkBuilder extends JGTKObject {
      */
     public boolean add(File uiToAdd) throws GErrorException {
         if (uiToAdd != null && uiToAdd.exists()) {
-            GError.GErrorStruct.ByReference error = new GError.GErrorStruct.ByReference();
-            boolean toReturn = library.gtk_builder_add_from_file(getCReference(), uiToAdd.getAbsolutePath(), error);
-            if (error.getPointer() != Pointer.NULL && error.code != 0) {
-                throw new GErrorException(new GError(error));
+            try (NativeArena.Scope scope = NativeArena.open()) {
+                Pointer error = scope.allocatePointer();
+                boolean toReturn = library.gtk_builder_add_from_file(getCReference(), uiToAdd.getAbsolutePath(), error);
+                Option<GError> e = GError.fromSlot(error);
+                if (e.isDefined()) {
+                    throw new GErrorException(e.get());
+                }
+                return toReturn;
             }
-            return toReturn;
         }
         return false;
     }
@@ -118,12 +122,15 @@ public class GtkBuilder extends JGTKObject {
      */
     public boolean add(String xml) throws GErrorException {
         if (xml != null && !xml.isEmpty()) {
-            GError.GErrorStruct.ByReference error = new GError.GErrorStruct.ByReference();
-            boolean toReturn = library.gtk_builder_add_from_string(getCReference(), xml, xml.length(), error);
-            if (error.getPointer() != Pointer.NULL && error.code != 0) {
-                throw new GErrorException(new GError(error));
+            try (NativeArena.Scope scope = NativeArena.open()) {
+                Pointer error = scope.allocatePointer();
+                boolean toReturn = library.gtk_builder_add_from_string(getCReference(), xml, -1, error);
+                Option<GError> e = GError.fromSlot(error);
+                if (e.isDefined()) {
+                    throw new GErrorException(e.get());
+                }
+                return toReturn;
             }
-            return toReturn;
         }
         return false;
     }
@@ -343,7 +350,7 @@ public class GtkBuilder extends JGTKObject {
          * @param error    The argument can be NULL.
          * @return TRUE on success, FALSE if an error occurred.
          */
-        public native boolean gtk_builder_add_from_file(Pointer builder, String filename, GError.GErrorStruct.ByReference error);
+        public native boolean gtk_builder_add_from_file(Pointer builder, String filename, Pointer error);
 
         /**
          * Parses a string containing a UI definition and merges it with the current contents of builder.
@@ -365,7 +372,7 @@ public class GtkBuilder extends JGTKObject {
          *                The argument can be NULL.
          * @return TRUE on success, FALSE if an error occurred.
          */
-        public native boolean gtk_builder_add_from_string(Pointer builder, String buffer, int length, GError.GErrorStruct.ByReference error);
+        public native boolean gtk_builder_add_from_string(Pointer builder, String buffer, int length, Pointer error);
 
         /**
          * Parses a file containing a UI definition building only the requested objects and merges them with the
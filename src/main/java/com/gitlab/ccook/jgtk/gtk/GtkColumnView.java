@@ -0,0 +1,246 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.jgtk.GtkWidget;
+import com.gitlab.ccook.jgtk.JGTKObject;
+import com.gitlab.ccook.jgtk.enums.GtkSortType;
+import com.gitlab.ccook.jgtk.gtk.interfaces.GtkSelectionModel;
+import com.gitlab.ccook.jgtk.interfaces.*;
+import com.gitlab.ccook.util.Option;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+/**
+ * GtkColumnView presents a large dynamic list of items using multiple columns with headers.
+ * <p>
+ * GtkColumnView uses the factories of its columns to generate a cell widget for each column, for each visible item
+ * and displays them together as the row for this item.
+ * <p>
+ * The GtkColumnView:show-row-separators and GtkColumnView:show-column-separators properties offer a simple way to
+ * display separators between the rows or columns.
+ * <p>
+ * GtkColumnView allows the user to select items according to the selection characteristics of the model. For models
+ * that allow multiple selected items, it is possible to turn on rubberband selection, using
+ * GtkColumnView:enable-rubberband.
+ */
+public class GtkColumnView extends GtkWidget implements GtkAccessible, GtkBuildable, GtkConstraintTarget, GtkScrollable {
+    private static final GtkColumnViewLibrary library = new GtkColumnViewLibrary();
+
+    public GtkColumnView(Pointer ref) {
+        super(ref);
+    }
+
+    /**
+     * Creates a new GtkColumnView.
+     * <p>
+     * You most likely want to call appendColumn() to add columns next.
+     *
+     * @param model The list model to use. The argument can be NULL.
+     */
+    public GtkColumnView(GtkSelectionModel model) {
+        super(library.gtk_column_view_new(refOrNull(model)));
+    }
+
+    /**
+     * Appends the column to the end of the columns in self.
+     *
+     * @param column A GtkColumnViewColumn that hasn't been added to a GtkColumnView yet.
+     */
+    public void appendColumn(GtkColumnViewColumn column) {
+        if (column != null) {
+            library.gtk_column_view_append_column(getCReference(), column.getCReference());
+        }
+    }
+
+    /**
+     * Returns whether rows can be selected by dragging with the mouse.
+     *
+     * @return TRUE if rubberband selection is enabled
+     */
+    public boolean doesEnableRubberband() {
+        return library.gtk_column_view_get_enable_rubberband(getCReference());
+    }
+
+    /**
+     * Returns whether the list should show separators between columns.
+     *
+     * @return TRUE if the list shows column separators
+     */
+    public boolean doesShowColumnSeparators() {
+        return library.gtk_column_view_get_show_column_separators(getCReference());
+    }
+
+    /**
+     * Returns whether the list should show separators between rows.
+     *
+     * @return TRUE if the list shows separators
+     */
+    public boolean doesShowRowSeparators() {
+        return library.gtk_column_view_get_show_row_separators(getCReference());
+    }
+
+    /**
+     * Gets the model that's currently used to read the items displayed.
+     *
+     * @return The model in use.
+     */
+    public Option<GtkSelectionModel> getModel() {
+        Option<Pointer> p = new Option<>(library.gtk_column_view_get_model(getCReference()));
+        if (p.isDefined()) {
+            return new Option<>((GtkSelectionModel) JGTKObject.newObjectFromType(p.get(), JGTKObject.class));
+        }
+        return Option.NONE;
+    }
+
+    /**
+     * Returns a special sorter that reflects the users sorting choices in the column view.
+     * <p>
+     * To allow users to customizable sorting by clicking on column headers, this sorter needs to be set on the sort
+     * model underneath the model that is displayed by the view.
+     *
+     * @return The GtkSorter of self
+     */
+    public Option<GtkSorter> getSorter() {
+        Pointer p = library.gtk_column_view_get_sorter(getCReference());
+        if (p != null) {
+            return new Option<>(new GtkSorter(p));
+        }
+        return Option.NONE;
+    }
+
+    /**
+     * Inserts a column at the given position in the columns of self.
+     * <p>
+     * If column is already a column of self, it will be repositioned.
+     *
+     * @param position The position to insert column at.
+     * @param column   The GtkColumnViewColumn to insert.
+     */
+    public void insertColumn(int position, GtkColumnViewColumn column) {
+        if (column != null && position >= 0) {
+            library.gtk_column_view_insert_column(getCReference(), position, column.getCReference());
+        }
+    }
+
+    /**
+     * Removes the column from the list of columns of self.
+     *
+     * @param column A GtkColumnViewColumn that's part of self.
+     */
+    public void removeColumn(GtkColumnViewColumn column) {
+        if (column != null) {
+            library.gtk_column_view_remove_column(getCReference(), column.getCReference());
+        }
+    }
+
+    /**
+     * Sets the model to use.
+     *
+     * @param model The model to use. The argument can be NULL.
+     */
+    public void setModel(GtkSelectionModel model) {
+        library.gtk_column_view_set_model(getCReference(), pointerOrNull(model));
+    }
+
+    /**
+     * Sets whether selections can be changed by dragging with the mouse.
+     *
+     * @param enableRubberband TRUE to enable rubberband selection.
+     */
+    public void shouldEnableRubberband(boolean enableRubberband) {
+        library.gtk_column_view_set_enable_rubberband(getCReference(), enableRubberband);
+    }
+
+    /**
+     * Sets whether the list should show separators between columns.
+     *
+     * @param showColumnSeparators TRUE to show column separators.
+     */
+    public void shouldShowColumnSeparators(boolean showColumnSeparators) {
+        library.gtk_column_view_set_show_column_separators(getCReference(), showColumnSeparators);
+    }
+
+    /**
+     * Sets whether the list should show separators between rows.
+     *
+     * @param showRowSeparators TRUE to show row separators.
+     */
+    public void shouldShowRowSeparators(boolean showRowSeparators) {
+        library.gtk_column_view_set_show_row_separators(getCReference(), showRowSeparators);
+    }
+
+    /**
+     * Sets the sorting of the view.
+     * <p>
+     * This function should be used to set up the initial sorting. At runtime, users can change the sorting of a
+     * column view by clicking on the list headers.
+     * <p>
+     * If column is NULL, the view will be unsorted.
+     *
+     * @param column    The GtkColumnViewColumn to sort by. The argument can be NULL.
+     * @param direction The direction to sort in.
+     */
+    public void sortByColumn(GtkColumnViewColumn column, GtkSortType direction) {
+        library.gtk_column_view_sort_by_column(getCReference(), pointerOrNull(column), direction != null ? direction.ordinal() : 0);
+    }
+
+    protected static class GtkColumnViewLibrary extends GtkWidgetLibrary {
+        static {
+            Native.register("gtk-4");
+        }
+
+        public native void gtk_column_view_append_column(Pointer self, Pointer column);
+
+        public native boolean gtk_column_view_get_enable_rubberband(Pointer self);
+
+        public native Pointer gtk_column_view_get_model(Pointer self);
+
+        public native boolean gtk_column_view_get_show_column_separators(Pointer self);
+
+        public native boolean gtk_column_view_get_show_row_separators(Pointer self);
+
+        public native Pointer gtk_column_view_get_sorter(Pointer self);
+
+        public native void gtk_column_view_insert_column(Pointer self, int position, Pointer column);
+
+        /**
+         * Creates a new GtkColumnView.
+         *
+         * @param model The list model to use. The data is owned by the called function. The argument can be NULL.
+         * @return A new GtkColumnView
+         */
+        public native Pointer gtk_column_view_new(Pointer model);
+
+        public native void gtk_column_view_remove_column(Pointer self, Pointer column);
+
+        public native void gtk_column_view_set_enable_rubberband(Pointer self, boolean enableRubberband);
+
+        public native void gtk_column_view_set_model(Pointer self, Pointer model);
+
+        public native void gtk_column_view_set_show_column_separators(Pointer self, boolean showColumnSeparators);
+
+        public native void gtk_column_view_set_show_row_separators(Pointer self, boolean showRowSeparators);
+
+        public native void gtk_column_view_sort_by_column(Pointer self, Pointer column, int direction);
+    }
+}
@@ -0,0 +1,196 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.jgtk.GObject;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.util.Option;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+/**
+ * GtkColumnViewColumn represents the columns being added to GtkColumnView.
+ * <p>
+ * The main ingredient for a GtkColumnViewColumn is the GtkListItemFactory that tells the columnview how to create
+ * cells for this column from items in the model.
+ * <p>
+ * Columns have a title, and can optionally have a header menu set with gtk_column_view_column_set_header_menu().
+ * <p>
+ * A sorter can be associated with a column using gtk_column_view_column_set_sorter(), to let users influence sorting
+ * by clicking on the column header.
+ */
+public class GtkColumnViewColumn extends GObject {
+    private static final GtkColumnViewColumnLibrary library = new GtkColumnViewColumnLibrary();
+
+    public GtkColumnViewColumn(Pointer cReference) {
+        super(cReference);
+    }
+
+    /**
+     * Creates a new GtkColumnViewColumn that uses the given factory for mapping items to widgets.
+     *
+     * @param title   Title to use for this column. The argument can be NULL.
+     * @param factory The factory to populate items with. The argument can be NULL.
+     */
+    public GtkColumnViewColumn(String title, GtkListItemFactory factory) {
+        super(library.gtk_column_view_column_new(title, refOrNull(factory)));
+    }
+
+    /**
+     * Returns whether this column should expand.
+     *
+     * @return TRUE if this column expands
+     */
+    public boolean doesExpand() {
+        return library.gtk_column_view_column_get_expand(getCReference());
+    }
+
+    /**
+     * Gets the fixed width of the column.
+     *
+     * @return The fixed with of the column, or -1 if unset
+     */
+    public int getFixedWidth() {
+        return library.gtk_column_view_column_get_fixed_width(getCReference());
+    }
+
+    /**
+     * Returns the title set with setTitle().
+     *
+     * @return The column's title.
+     */
+    public Option<String> getTitle() {
+        return new Option<>(library.gtk_column_view_column_get_title(getCReference()));
+    }
+
+    /**
+     * Returns whether this column is resizable.
+     *
+     * @return TRUE if this column is resizable
+     */
+    public boolean isResizable() {
+        return library.gtk_column_view_column_get_resizable(getCReference());
+    }
+
+    /**
+     * Returns whether this column is visible.
+     *
+     * @return TRUE if this column is visible
+     */
+    public boolean isVisible() {
+        return library.gtk_column_view_column_get_visible(getCReference());
+    }
+
+    /**
+     * If self size is not fixed, sets the column width to fixedWidth, or unsets it with -1.
+     *
+     * @param fixedWidth The new fixed width, or -1
+     */
+    public void setFixedWidth(int fixedWidth) {
+        library.gtk_column_view_column_set_fixed_width(getCReference(), fixedWidth);
+    }
+
+    /**
+     * Associates a sorter with the column.
+     * <p>
+     * If sorter is NULL, the column will not let users change the sorting by clicking on its header.
+     *
+     * @param sorter The GtkSorter to associate with column. The argument can be NULL.
+     */
+    public void setSorter(GtkSorter sorter) {
+        library.gtk_column_view_column_set_sorter(getCReference(), pointerOrNull(sorter));
+    }
+
+    /**
+     * Sets the title of this column.
+     *
+     * @param title Title to use for this column. The argument can be NULL.
+     */
+    public void setTitle(String title) {
+        library.gtk_column_view_column_set_title(getCReference(), title);
+    }
+
+    /**
+     * Sets the column to take available extra space.
+     *
+     * @param expand TRUE if this column should expand to fill available space.
+     */
+    public void shouldExpand(boolean expand) {
+        library.gtk_column_view_column_set_expand(getCReference(), expand);
+    }
+
+    /**
+     * Sets whether this column should be resizable by dragging.
+     *
+     * @param resizable Whether this column should be resizable.
+     */
+    public void shouldResize(boolean resizable) {
+        library.gtk_column_view_column_set_resizable(getCReference(), resizable);
+    }
+
+    /**
+     * Sets whether this column should be visible in views.
+     *
+     * @param visible Whether this column should be visible.
+     */
+    public void shouldShow(boolean visible) {
+        library.gtk_column_view_column_set_visible(getCReference(), visible);
+    }
+
+    protected static class GtkColumnViewColumnLibrary extends GtkLibrary {
+        static {
+            Native.register("gtk-4");
+        }
+
+        public native boolean gtk_column_view_column_get_expand(Pointer self);
+
+        public native int gtk_column_view_column_get_fixed_width(Pointer self);
+
+        public native boolean gtk_column_view_column_get_resizable(Pointer self);
+
+        public native String gtk_column_view_column_get_title(Pointer self);
+
+        public native boolean gtk_column_view_column_get_visible(Pointer self);
+
+        /**
+         * Creates a new GtkColumnViewColumn that uses the given factory for mapping items to widgets.
+         *
+         * @param title   Title to use for this column. The argument can be NULL.
+         * @param factory The factory to populate items with. The data is owned by the called function. The argument
+         *                can be NULL.
+         * @return A new GtkColumnViewColumn using the given factory.
+         */
+        public native Pointer gtk_column_view_column_new(String title, Pointer factory);
+
+        public native void gtk_column_view_column_set_expand(Pointer self, boolean expand);
+
+        public native void gtk_column_view_column_set_fixed_width(Pointer self, int fixedWidth);
+
+        public native void gtk_column_view_column_set_resizable(Pointer self, boolean resizable);
+
+        public native void gtk_column_view_column_set_sorter(Pointer self, Pointer sorter);
+
+        public native void gtk_column_view_column_set_title(Pointer self, String title);
+
+        public native void gtk_column_view_column_set_visible(Pointer self, boolean visible);
+    }
+}
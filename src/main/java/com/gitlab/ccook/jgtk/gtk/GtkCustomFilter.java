@@ -0,0 +1,108 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.jgtk.callbacks.GtkCustomFilterFunc;
+import com.gitlab.ccook.util.AssertionUtils;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * GtkCustomFilter determines whether to include items with a callback.
+ * <p>
+ * The callback is a single trampoline kept alive for the lifetime of the filter.
+ */
+public class GtkCustomFilter extends GtkFilter {
+    private static final GtkCustomFilterLibrary library = new GtkCustomFilterLibrary();
+
+    public GtkCustomFilter(Pointer cReference) {
+        super(cReference);
+    }
+
+    /**
+     * Creates a new filter using the given matchFunc to filter items.
+     * <p>
+     * If matchFunc is NULL, the filter matches all items.
+     *
+     * @param matchFunc Function to filter items. The argument can be NULL.
+     */
+    public GtkCustomFilter(GtkCustomFilterFunc matchFunc) {
+        super(library.gtk_custom_filter_new(matchFunc, Pointer.NULL, Pointer.NULL));
+        preventGarbageCollection(matchFunc);
+    }
+
+    /**
+     * Filters items by a Java predicate
+     *
+     * @param itemMapper Maps an item pointer to its Java value, e.g. {@code p -> model.getItem(p).get()}
+     * @param predicate  Items whose value passes are kept
+     * @param <T>        Java value type
+     * @return A new filter
+     */
+    public static <T> GtkCustomFilter of(Function<Pointer, ? extends T> itemMapper, Predicate<? super T> predicate) {
+        AssertionUtils.assertNotNull(GtkCustomFilter.class, "of: itemMapper cannot be null", itemMapper);
+        AssertionUtils.assertNotNull(GtkCustomFilter.class, "of: predicate cannot be null", predicate);
+        return new GtkCustomFilter((item, userData) -> predicate.test(itemMapper.apply(item)));
+    }
+
+    /**
+     * Sets the function used for filtering items.
+     * <p>
+     * If matchFunc is NULL, the filter matches all items. If the filter func changes its filtering behavior,
+     * notifyChanged() needs to be called.
+     *
+     * @param matchFunc Function to filter items. The argument can be NULL.
+     */
+    public void setFilterFunction(GtkCustomFilterFunc matchFunc) {
+        library.gtk_custom_filter_set_filter_func(getCReference(), matchFunc, Pointer.NULL, Pointer.NULL);
+        preventGarbageCollection(matchFunc);
+    }
+
+    static class GtkCustomFilterLibrary extends GtkFilterLibrary {
+        static {
+            Native.register("gtk-4");
+        }
+
+        /**
+         * Creates a new filter using the given match_func to filter items.
+         *
+         * @param matchFunc   Function to filter items. The argument can be NULL.
+         * @param userData    User data to pass to match_func. The argument can be NULL.
+         * @param userDestroy Destroy notify for user_data. The argument can be NULL.
+         * @return A new GtkCustomFilter
+         */
+        public native Pointer gtk_custom_filter_new(GtkCustomFilterFunc matchFunc, Pointer userData, Pointer userDestroy);
+
+        /**
+         * Sets the function used for filtering items.
+         *
+         * @param self        self
+         * @param matchFunc   Function to filter items. The argument can be NULL.
+         * @param userData    User data to pass to match_func. The argument can be NULL.
+         * @param userDestroy Destroy notify for user_data. The argument can be NULL.
+         */
+        public native void gtk_custom_filter_set_filter_func(Pointer self, GtkCustomFilterFunc matchFunc, Pointer userData, Pointer userDestroy);
+    }
+}
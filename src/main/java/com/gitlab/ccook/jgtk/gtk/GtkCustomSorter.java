@@ -0,0 +1,202 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.jgtk.callbacks.GCompareDataFunc;
+import com.gitlab.ccook.jgtk.callbacks.GWeakNotify;
+import com.gitlab.ccook.jgtk.enums.GtkSorterChange;
+import com.gitlab.ccook.util.AssertionUtils;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * GtkCustomSorter is a GtkSorter implementation that sorts via a callback function.
+ * <p>
+ * The callback is a single trampoline kept alive for the lifetime of the sorter. The {@code comparing} factories
+ * compute the sort key of an item once and cache it by item, so a sort of n items maps each item to Java once
+ * instead of twice per comparison. A cached key is dropped when its item is finalized, so an item later allocated
+ * at the same address never picks up a stale key. When keys change (the items were edited), call
+ * {@link #invalidateKeys()}.
+ */
+public class GtkCustomSorter extends GtkSorter {
+    private static final GtkCustomSorterLibrary library = new GtkCustomSorterLibrary();
+    // Key caches with live weak refs, by the id each cache passes as the weak ref's data
+    private static final Map<Long, Map<Pointer, ?>> cachesById = new HashMap<>();
+    private static final GWeakNotify itemFinalized = (data, where) -> {
+        long id = Pointer.nativeValue(data);
+        Map<Pointer, ?> cache = cachesById.get(id);
+        if (cache != null) {
+            cache.remove(where);
+            if (cache.isEmpty()) {
+                cachesById.remove(id);
+            }
+        }
+    };
+    private static long lastCacheId = 0;
+    private Map<Pointer, ?> keys;
+    private Pointer keysId;
+
+    public GtkCustomSorter(Pointer cReference) {
+        super(cReference);
+    }
+
+    /**
+     * Creates a new GtkSorter that works by calling sortFunc to compare items.
+     *
+     * @param sortFunc The GCompareDataFunc to use for sorting.
+     */
+    public GtkCustomSorter(GCompareDataFunc sortFunc) {
+        super(library.gtk_custom_sorter_new(sortFunc, Pointer.NULL, Pointer.NULL));
+        preventGarbageCollection(sortFunc);
+    }
+
+    /**
+     * Sorts items by a Java comparator
+     *
+     * @param itemMapper Maps an item pointer to its Java value, e.g. {@code p -> model.getItem(p).get()}
+     * @param comparator Ordering of Java values
+     * @param <T>        Java value type
+     * @return A new sorter
+     */
+    public static <T> GtkCustomSorter of(Function<Pointer, ? extends T> itemMapper, Comparator<? super T> comparator) {
+        return comparing(itemMapper, Function.identity(), comparator);
+    }
+
+    /**
+     * Sorts items by a cached, naturally ordered key
+     *
+     * @param itemMapper   Maps an item pointer to its Java value, e.g. {@code p -> model.getItem(p).get()}
+     * @param keyExtractor Computes the sort key of a value; called once per item until {@link #invalidateKeys()}
+     * @param <T>          Java value type
+     * @param <K>          Key type
+     * @return A new sorter
+     */
+    public static <T, K extends Comparable<? super K>> GtkCustomSorter comparing(Function<Pointer, ? extends T> itemMapper, Function<? super T, ? extends K> keyExtractor) {
+        return comparing(itemMapper, keyExtractor, Comparator.naturalOrder());
+    }
+
+    /**
+     * Sorts items by a cached key
+     *
+     * @param itemMapper    Maps an item pointer to its Java value, e.g. {@code p -> model.getItem(p).get()}
+     * @param keyExtractor  Computes the sort key of a value; called once per item until {@link #invalidateKeys()}
+     * @param keyComparator Ordering of keys
+     * @param <T>           Java value type
+     * @param <K>           Key type
+     * @return A new sorter
+     */
+    public static <T, K> GtkCustomSorter comparing(Function<Pointer, ? extends T> itemMapper, Function<? super T, ? extends K> keyExtractor, Comparator<? super K> keyComparator) {
+        AssertionUtils.assertNotNull(GtkCustomSorter.class, "comparing: itemMapper cannot be null", itemMapper);
+        AssertionUtils.assertNotNull(GtkCustomSorter.class, "comparing: keyExtractor cannot be null", keyExtractor);
+        AssertionUtils.assertNotNull(GtkCustomSorter.class, "comparing: keyComparator cannot be null", keyComparator);
+        Map<Pointer, K> keys = new HashMap<>();
+        long id = ++lastCacheId;
+        Pointer keysId = new Pointer(id);
+        Function<Pointer, K> key = item -> {
+            K k = keys.get(item);
+            if (k == null && !keys.containsKey(item)) {
+                k = keyExtractor.apply(itemMapper.apply(item));
+                if (keys.isEmpty()) {
+                    cachesById.put(id, keys);
+                }
+                keys.put(item, k);
+                library.g_object_weak_ref(item, itemFinalized, keysId);
+            }
+            return k;
+        };
+        GtkCustomSorter sorter = new GtkCustomSorter((a, b, userData) -> Integer.signum(keyComparator.compare(key.apply(a), key.apply(b))));
+        sorter.keys = keys;
+        sorter.keysId = keysId;
+        return sorter;
+    }
+
+    /**
+     * Drops cached sort keys and tells users of the sorter to sort again
+     */
+    public void invalidateKeys() {
+        dropKeys();
+        notifyChanged(GtkSorterChange.GTK_SORTER_CHANGE_DIFFERENT);
+    }
+
+    /**
+     * Sets (or unsets) the function used for sorting items.
+     * <p>
+     * If sortFunc is NULL, all items are considered equal.
+     *
+     * @param sortFunc Function to sort items. The argument can be NULL.
+     */
+    public void setSortFunction(GCompareDataFunc sortFunc) {
+        dropKeys();
+        keys = null;
+        library.gtk_custom_sorter_set_sort_func(getCReference(), sortFunc, Pointer.NULL, Pointer.NULL);
+        preventGarbageCollection(sortFunc);
+    }
+
+    /**
+     * @return Number of items with a cached sort key
+     */
+    int getCachedKeyCount() {
+        return keys == null ? 0 : keys.size();
+    }
+
+    private void dropKeys() {
+        if (keys == null) {
+            return;
+        }
+        for (Pointer item : keys.keySet()) {
+            library.g_object_weak_unref(item, itemFinalized, keysId);
+        }
+        keys.clear();
+        cachesById.remove(Pointer.nativeValue(keysId));
+    }
+
+    protected static class GtkCustomSorterLibrary extends GtkSorterLibrary {
+        static {
+            Native.register("gtk-4");
+        }
+
+        /**
+         * Creates a new GtkSorter that works by calling sort_func to compare items.
+         *
+         * @param sortFunc    The GCompareDataFunc to use for sorting.
+         * @param userData    User data to pass to sort_func. The argument can be NULL.
+         * @param userDestroy Destroy notify for user_data. The argument can be NULL.
+         * @return A new GtkCustomSorter
+         */
+        public native Pointer gtk_custom_sorter_new(GCompareDataFunc sortFunc, Pointer userData, Pointer userDestroy);
+
+        /**
+         * Sets (or unsets) the function used for sorting items.
+         *
+         * @param self        self
+         * @param sortFunc    Function to sort items. The argument can be NULL.
+         * @param userData    User data to pass to sort_func. The argument can be NULL.
+         * @param userDestroy Destroy notify for user_data. The argument can be NULL.
+         */
+        public native void gtk_custom_sorter_set_sort_func(Pointer self, GCompareDataFunc sortFunc, Pointer userData, Pointer userDestroy);
+    }
+}
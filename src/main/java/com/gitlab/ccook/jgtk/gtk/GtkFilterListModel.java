@@ -0,0 +1,196 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.jgtk.GListModel;
+import com.gitlab.ccook.jgtk.GObject;
+import com.gitlab.ccook.jgtk.JGTKObject;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.util.Option;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+/**
+ * GtkFilterListModel is a list model that filters the elements of the underlying model according to a GtkFilter.
+ * <p>
+ * It hides some elements from the other model according to criteria given by a GtkFilter.
+ * <p>
+ * The model can be set up to do incremental filtering, so that filtering long lists doesn't block the UI. See
+ * {@link #setIncremental(boolean)} for details. While filtering is in progress {@link #getPending()} is non-zero and
+ * "notify::pending" is emitted as it goes down.
+ *
+ * @param <T> Wrapper type of the items
+ */
+public class GtkFilterListModel<T extends JGTKObject> extends GObject implements GListModel<T> {
+    private static final GtkFilterListModelLibrary library = new GtkFilterListModelLibrary();
+
+    public GtkFilterListModel(Pointer cReference) {
+        super(cReference);
+    }
+
+    /**
+     * Creates a new GtkFilterListModel that will filter model using the given filter.
+     *
+     * @param model  The model to filter. The argument can be NULL.
+     * @param filter Filter. The argument can be NULL.
+     */
+    public GtkFilterListModel(GListModel<?> model, GtkFilter filter) {
+        super(library.gtk_filter_list_model_new(refOrNull(model), refOrNull(filter)));
+        preventGarbageCollection(filter);
+    }
+
+    /**
+     * Creates a new GtkFilterListModel with incremental filtering enabled
+     *
+     * @param model       The model to filter. The argument can be NULL.
+     * @param filter      Filter. The argument can be NULL.
+     * @param incremental TRUE to filter in time slices
+     */
+    public GtkFilterListModel(GListModel<?> model, GtkFilter filter, boolean incremental) {
+        this(model, filter);
+        setIncremental(incremental);
+    }
+
+    /**
+     * Gets the GtkFilter currently set on self.
+     *
+     * @return The filter currently in use
+     */
+    public Option<GtkFilter> getFilter() {
+        Pointer ref = library.gtk_filter_list_model_get_filter(getCReference());
+        if (ref != null) {
+            return new Option<>(new GtkFilter(ref));
+        }
+        return Option.NONE;
+    }
+
+    /**
+     * Gets the model currently filtered or NONE if none.
+     *
+     * @return The model that gets filtered.
+     */
+    public Option<GListModel<GObject>> getModel() {
+        Pointer ref = library.gtk_filter_list_model_get_model(getCReference());
+        if (ref != null) {
+            return new Option<>(new GenericGListModel<>(GObject.class, ref));
+        }
+        return Option.NONE;
+    }
+
+    /**
+     * Returns the number of items that have not been filtered yet.
+     * <p>
+     * You can use this value to check if self is busy filtering by comparing the return value to 0 or you can compute
+     * the percentage of the filter remaining by dividing the return value by the total number of items in the
+     * underlying model.
+     *
+     * @return The number of items not yet filtered
+     */
+    public int getPending() {
+        return library.gtk_filter_list_model_get_pending(getCReference());
+    }
+
+    /**
+     * Returns whether incremental filtering is enabled.
+     *
+     * @return TRUE if incremental filtering is enabled
+     */
+    public boolean isIncremental() {
+        return library.gtk_filter_list_model_get_incremental(getCReference());
+    }
+
+    /**
+     * Sets the filter used to filter items.
+     *
+     * @param filter Filter to use. The argument can be NULL.
+     */
+    public void setFilter(GtkFilter filter) {
+        trackedObjects.removeIf(o -> o instanceof GtkFilter);
+        preventGarbageCollection(filter);
+        library.gtk_filter_list_model_set_filter(getCReference(), pointerOrNull(filter));
+    }
+
+    /**
+     * Sets the filter model to do an incremental sort.
+     * <p>
+     * When incremental filtering is enabled, the GtkFilterListModel will not run filters immediately, but will
+     * instead queue an idle handler that incrementally filters the items and adds them to the list. This of course
+     * means that items are not instantly added to the list, but only appear incrementally.
+     * <p>
+     * When your filter blocks the UI while filtering, you might consider turning this on. Depending on your model and
+     * filters, this may become interesting around 10,000 to 100,000 items.
+     *
+     * @param incremental TRUE to enable incremental filtering
+     */
+    public void setIncremental(boolean incremental) {
+        library.gtk_filter_list_model_set_incremental(getCReference(), incremental);
+    }
+
+    /**
+     * Sets the model to be filtered.
+     *
+     * @param model The model to be filtered. The argument can be NULL.
+     */
+    public void setModel(GListModel<?> model) {
+        library.gtk_filter_list_model_set_model(getCReference(), pointerOrNull(model));
+    }
+
+    public static class Signals extends JGTKObject.Signals {
+        /**
+         * Emitted when the number of items not yet filtered changes.
+         */
+        public final static Signals NOTIFY_PENDING = new Signals("notify::pending");
+
+        protected Signals(String cValue) {
+            super(cValue);
+        }
+    }
+
+    protected static class GtkFilterListModelLibrary extends GtkLibrary {
+        static {
+            Native.register("gtk-4");
+        }
+
+        public native Pointer gtk_filter_list_model_get_filter(Pointer self);
+
+        public native boolean gtk_filter_list_model_get_incremental(Pointer self);
+
+        public native Pointer gtk_filter_list_model_get_model(Pointer self);
+
+        public native int gtk_filter_list_model_get_pending(Pointer self);
+
+        /**
+         * Creates a new GtkFilterListModel that will filter model using the given filter.
+         *
+         * @param model  The model to sort. The data is owned by the called function. The argument can be NULL.
+         * @param filter Filter. The data is owned by the called function. The argument can be NULL.
+         * @return A new GtkFilterListModel
+         */
+        public native Pointer gtk_filter_list_model_new(Pointer model, Pointer filter);
+
+        public native void gtk_filter_list_model_set_filter(Pointer self, Pointer filter);
+
+        public native void gtk_filter_list_model_set_incremental(Pointer self, boolean incremental);
+
+        public native void gtk_filter_list_model_set_model(Pointer self, Pointer model);
+    }
+}
@@ -32,10 +32,13 @@ import com.gitlab.ccook.jgtk.interfaces.GtkAccessible;
 import com.gitlab.ccook.jgtk.interfaces.GtkBuildable;
 import com.gitlab.ccook.jgtk.interfaces.GtkConstraintTarget;
 import com.gitlab.ccook.jna.GCallbackFunction;
+import com.gitlab.ccook.util.AssertionUtils;
 import com.gitlab.ccook.util.Option;
 import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 
+import java.util.function.Function;
+
 
 /**
  * GtkListBox is a vertical list.
@@ -132,6 +135,40 @@ public class GtkListBox extends GtkWidget implements GtkAccessible, GtkBuildable
         library.gtk_list_box_bind_model(getCReference(), pointerOrNull(m), create, userData, notify);
     }
 
+    /**
+     * Binds model to box, creating row widgets with a Java function.
+     * <p>
+     * The returned binding can recycle widgets of removed rows, see {@link WidgetModelBinding#recycle}.
+     *
+     * @param model        The model to be bound to box.
+     * @param createWidget Creates the widget for an element of model
+     * @param <T>          Element type
+     * @return The binding
+     */
+    public <T> WidgetModelBinding<T> bindModel(JavaListModel<T> model, Function<? super T, ? extends GtkWidget> createWidget) {
+        AssertionUtils.assertNotNull(GtkListBox.class, "bindModel: model is null", model);
+        return bindModel(model, model::getItemValue, createWidget);
+    }
+
+    /**
+     * Binds model to box, creating row widgets with a Java function.
+     * <p>
+     * The returned binding can recycle widgets of removed rows, see {@link WidgetModelBinding#recycle}.
+     *
+     * @param model        The model to be bound to box.
+     *                     <p>
+     *                     The argument can be NULL.
+     * @param itemMapper   Maps an item pointer of model to the value handed to createWidget
+     * @param createWidget Creates the widget for an item
+     * @param <T>          Item type
+     * @return The binding
+     */
+    public <T> WidgetModelBinding<T> bindModel(GListModel<?> model, Function<Pointer, ? extends T> itemMapper, Function<? super T, ? extends GtkWidget> createWidget) {
+        WidgetModelBinding<T> binding = new WidgetModelBinding<>(itemMapper, createWidget);
+        library.gtk_list_box_bind_model(getCReference(), pointerOrNull(model), binding.listBoxCreate, Pointer.NULL, binding.destroy);
+        return binding;
+    }
+
     /**
      * Connect a signal
      *
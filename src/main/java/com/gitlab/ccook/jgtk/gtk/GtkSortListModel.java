@@ -0,0 +1,199 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.jgtk.GListModel;
+import com.gitlab.ccook.jgtk.GObject;
+import com.gitlab.ccook.jgtk.JGTKObject;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.util.Option;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+/**
+ * A GListModel that sorts the elements of an underlying model according to a GtkSorter.
+ * <p>
+ * The model is a stable sort. If you need to move items in the model by hand, use a GListStore instead.
+ * <p>
+ * The model can be set up to do incremental sorting, so that sorting long lists doesn't block the UI. See
+ * {@link #setIncremental(boolean)} for details. While sorting is in progress {@link #getPending()} is non-zero and
+ * "notify::pending" is emitted as it goes down.
+ *
+ * @param <T> Wrapper type of the items
+ */
+public class GtkSortListModel<T extends JGTKObject> extends GObject implements GListModel<T> {
+    private static final GtkSortListModelLibrary library = new GtkSortListModelLibrary();
+
+    public GtkSortListModel(Pointer cReference) {
+        super(cReference);
+    }
+
+    /**
+     * Creates a new sort list model that uses the sorter to sort model.
+     *
+     * @param model  The model to sort. The argument can be NULL.
+     * @param sorter The GtkSorter to sort model with. The argument can be NULL.
+     */
+    public GtkSortListModel(GListModel<?> model, GtkSorter sorter) {
+        super(library.gtk_sort_list_model_new(refOrNull(model), refOrNull(sorter)));
+        preventGarbageCollection(sorter);
+    }
+
+    /**
+     * Creates a new sort list model with incremental sorting enabled
+     *
+     * @param model       The model to sort. The argument can be NULL.
+     * @param sorter      The GtkSorter to sort model with. The argument can be NULL.
+     * @param incremental TRUE to sort in time slices
+     */
+    public GtkSortListModel(GListModel<?> model, GtkSorter sorter, boolean incremental) {
+        this(model, sorter);
+        setIncremental(incremental);
+    }
+
+    /**
+     * Gets the model currently sorted or NONE if none.
+     *
+     * @return The model that gets sorted.
+     */
+    public Option<GListModel<GObject>> getModel() {
+        Pointer ref = library.gtk_sort_list_model_get_model(getCReference());
+        if (ref != null) {
+            return new Option<>(new GenericGListModel<>(GObject.class, ref));
+        }
+        return Option.NONE;
+    }
+
+    /**
+     * Estimates progress of an ongoing sorting operation.
+     * <p>
+     * The estimate is the number of items that would still need to be sorted to finish the sorting operation if this
+     * was a linear algorithm. So this number is not related to how many items are already correctly sorted.
+     * <p>
+     * If no sort operation is ongoing - in particular when incremental sorting is disabled - this function returns 0.
+     *
+     * @return A progress estimate of remaining items to sort
+     */
+    public int getPending() {
+        return library.gtk_sort_list_model_get_pending(getCReference());
+    }
+
+    /**
+     * Gets the sorter that is used to sort self.
+     *
+     * @return The sorter of self
+     */
+    public Option<GtkSorter> getSorter() {
+        Pointer ref = library.gtk_sort_list_model_get_sorter(getCReference());
+        if (ref != null) {
+            return new Option<>(new GtkSorter(ref));
+        }
+        return Option.NONE;
+    }
+
+    /**
+     * Returns whether incremental sorting is enabled.
+     *
+     * @return TRUE if incremental sorting is enabled
+     */
+    public boolean isIncremental() {
+        return library.gtk_sort_list_model_get_incremental(getCReference());
+    }
+
+    /**
+     * Sets the sort model to do an incremental sort.
+     * <p>
+     * When incremental sorting is enabled, the GtkSortListModel will not do a complete sort immediately, but will
+     * instead queue an idle handler that incrementally sorts the items towards their correct position. This of course
+     * means that items do not instantly appear in the right place. It also means that the total sorting time is a lot
+     * slower.
+     * <p>
+     * When your filter blocks the UI while sorting, you might consider turning this on. Depending on your model and
+     * sorters, this may become interesting around 10,000 to 100,000 items.
+     *
+     * @param incremental TRUE to sort incrementally
+     */
+    public void setIncremental(boolean incremental) {
+        library.gtk_sort_list_model_set_incremental(getCReference(), incremental);
+    }
+
+    /**
+     * Sets the model to be sorted.
+     *
+     * @param model The model to be sorted. The argument can be NULL.
+     */
+    public void setModel(GListModel<?> model) {
+        library.gtk_sort_list_model_set_model(getCReference(), pointerOrNull(model));
+    }
+
+    /**
+     * Sets a new sorter on self.
+     *
+     * @param sorter The GtkSorter to sort model with. The argument can be NULL.
+     */
+    public void setSorter(GtkSorter sorter) {
+        trackedObjects.removeIf(o -> o instanceof GtkSorter);
+        preventGarbageCollection(sorter);
+        library.gtk_sort_list_model_set_sorter(getCReference(), pointerOrNull(sorter));
+    }
+
+    public static class Signals extends JGTKObject.Signals {
+        /**
+         * Emitted when the estimate of items left to sort changes.
+         */
+        public final static Signals NOTIFY_PENDING = new Signals("notify::pending");
+
+        protected Signals(String cValue) {
+            super(cValue);
+        }
+    }
+
+    protected static class GtkSortListModelLibrary extends GtkLibrary {
+        static {
+            Native.register("gtk-4");
+        }
+
+        public native boolean gtk_sort_list_model_get_incremental(Pointer self);
+
+        public native Pointer gtk_sort_list_model_get_model(Pointer self);
+
+        public native int gtk_sort_list_model_get_pending(Pointer self);
+
+        public native Pointer gtk_sort_list_model_get_sorter(Pointer self);
+
+        /**
+         * Creates a new sort list model that uses the sorter to sort model.
+         *
+         * @param model  The model to sort. The data is owned by the called function. The argument can be NULL.
+         * @param sorter The GtkSorter to sort model with. The data is owned by the called function. The argument can
+         *               be NULL.
+         * @return A new GtkSortListModel
+         */
+        public native Pointer gtk_sort_list_model_new(Pointer model, Pointer sorter);
+
+        public native void gtk_sort_list_model_set_incremental(Pointer self, boolean incremental);
+
+        public native void gtk_sort_list_model_set_model(Pointer self, Pointer model);
+
+        public native void gtk_sort_list_model_set_sorter(Pointer self, Pointer sorter);
+    }
+}
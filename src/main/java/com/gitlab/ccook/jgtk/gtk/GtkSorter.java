@@ -0,0 +1,128 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.jgtk.GObject;
+import com.gitlab.ccook.jgtk.JGTKObject;
+import com.gitlab.ccook.jgtk.enums.GtkSorterChange;
+import com.gitlab.ccook.jgtk.enums.GtkSorterOrder;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+/**
+ * GtkSorter is an object to describe sorting criteria.
+ * <p>
+ * Its primary user is GtkSortListModel.
+ * <p>
+ * Sorters may change their sorting behavior through their lifetime. In that case, they will emit the
+ * GtkSorter::changed signal to notify that the sort order is no longer valid and should be updated by calling
+ * gtk_sorter_compare() again.
+ */
+public class GtkSorter extends GObject {
+    private static final GtkSorterLibrary library = new GtkSorterLibrary();
+
+    public GtkSorter(Pointer cReference) {
+        super(cReference);
+    }
+
+    /**
+     * Compares two given items according to the sort order implemented by the sorter.
+     *
+     * @param item1 The first item to compare.
+     * @param item2 The second item to compare.
+     * @return Negative if item1 comes before item2, 0 if they compare equal, positive otherwise
+     */
+    public int compare(GObject item1, GObject item2) {
+        return library.gtk_sorter_compare(getCReference(), pointerOrNull(item1), pointerOrNull(item2));
+    }
+
+    /**
+     * Get the order that self conforms to.
+     *
+     * @return The order
+     */
+    public GtkSorterOrder getOrder() {
+        return GtkSorterOrder.getOrderFromCValue(library.gtk_sorter_get_order(getCReference()));
+    }
+
+    /**
+     * Notifies all users of the sorter that it has changed.
+     * <p>
+     * This emits the GtkSorter::changed signal. Users of the sorter should then update the sort order via
+     * gtk_sorter_compare().
+     *
+     * @param change How the sorter changed.
+     */
+    public void notifyChanged(GtkSorterChange change) {
+        if (change != null) {
+            library.gtk_sorter_changed(getCReference(), change.ordinal());
+        }
+    }
+
+    public static class Signals extends JGTKObject.Signals {
+        /**
+         * Emitted whenever the sorter changed.
+         * <p>
+         * Users of the sorter should then update the sort order again via gtk_sorter_compare().
+         * <p>
+         * GtkSortListModel handles this signal automatically.
+         */
+        public final static Signals CHANGED = new Signals("changed");
+
+        protected Signals(String cValue) {
+            super(cValue);
+        }
+    }
+
+    protected static class GtkSorterLibrary extends GtkLibrary {
+        static {
+            Native.register("gtk-4");
+        }
+
+        /**
+         * Notifies all users of the sorter that it has changed.
+         *
+         * @param self   self
+         * @param change How the sorter changed.
+         */
+        public native void gtk_sorter_changed(Pointer self, int change);
+
+        /**
+         * Compares two given items according to the sort order implemented by the sorter.
+         *
+         * @param self  self
+         * @param item1 The first item to compare.
+         * @param item2 The second item to compare.
+         * @return The GtkOrdering of item1 relative to item2
+         */
+        public native int gtk_sorter_compare(Pointer self, Pointer item1, Pointer item2);
+
+        /**
+         * Get the order that self conforms to.
+         *
+         * @param self self
+         * @return The order.
+         */
+        public native int gtk_sorter_get_order(Pointer self);
+    }
+}
@@ -25,55 +25,170 @@ import com.gitlab.ccook.jgtk.GListModel;
 import com.gitlab.ccook.jgtk.GObject;
 import com.gitlab.ccook.jgtk.interfaces.GtkBuildable;
 import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.util.AssertionUtils;
 import com.gitlab.ccook.util.Option;
+import com.sun.jna.Memory;
 import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
 @SuppressWarnings("unchecked")
 public class GtkStringList extends GObject implements GListModel<String>, GtkBuildable {
 
     private static final GtkStringListLibrary library = new GtkStringListLibrary();
-    int size = -1;
+    private static final int DEFAULT_BATCH_SIZE = 4096;
+    // Splices above either bound use one-off buffers, so a single large splice does not pin a copy of its strings
+    private static final long MAX_SCRATCH_BYTES = 256 * 1024;
+    // Scratch NULL-terminated char** vector and string storage reused across splices
+    private Memory vector;
+    private Memory strings;
 
     public GtkStringList(Pointer cReference) {
         super(cReference);
-        determineSize();
     }
 
-    private void determineSize() {
-        for (int i = 0; i < Integer.MAX_VALUE; i++) {
-            if (!getNth(i).isDefined()) {
-                size = i;
-            }
-        }
+    public GtkStringList(String... strings) {
+        super(library.gtk_string_list_new(strings));
     }
 
     public Option<String> getNth(int position) {
-        if (position < size) {
+        if (position >= 0 && position < size()) {
             return new Option<>(library.gtk_string_list_get_string(getCReference(), position));
         }
         return Option.NONE;
     }
 
-    public GtkStringList(String... strings) {
-        super(library.gtk_string_list_new(strings));
-        this.size = strings.length;
-    }
-
     public void append(String s) {
         if (s != null) {
             library.gtk_string_list_append(getCReference(), s);
-            size++;
+        }
+    }
+
+    /**
+     * Appends all strings as a single change
+     *
+     * @param toAdd Strings to append; nulls are skipped
+     */
+    public void addAll(Collection<String> toAdd) {
+        if (toAdd != null) {
+            splice(size(), 0, toAdd);
+        }
+    }
+
+    /**
+     * Appends strings from an iterator, one splice per batch of {@value DEFAULT_BATCH_SIZE} strings
+     *
+     * @param toAdd Strings to append; nulls are skipped
+     */
+    public void addAll(Iterator<String> toAdd) {
+        addAll(toAdd, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Appends strings from an iterator, one splice per batch of batchSize strings
+     *
+     * @param toAdd     Strings to append; nulls are skipped
+     * @param batchSize Number of strings per splice
+     */
+    public void addAll(Iterator<String> toAdd, int batchSize) {
+        AssertionUtils.assertTrue(GtkStringList.class, "addAll: batchSize must be positive", batchSize > 0);
+        if (toAdd == null) {
+            return;
+        }
+        List<String> batch = new ArrayList<>(Math.min(batchSize, DEFAULT_BATCH_SIZE));
+        while (toAdd.hasNext()) {
+            String s = toAdd.next();
+            if (s != null) {
+                batch.add(s);
+            }
+            if (batch.size() == batchSize) {
+                splice(size(), 0, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            splice(size(), 0, batch);
         }
     }
 
     public void remove(int position) {
-        if (position < size) {
+        if (position >= 0 && position < size()) {
             library.gtk_string_list_remove(getCReference(), position);
-            size--;
         }
     }
 
+    /**
+     * Changes self by removing nRemovals strings and adding additions to it, emitting "items-changed" once.
+     *
+     * @param position  The position at which to make the change
+     * @param nRemovals The number of strings to remove
+     * @param additions The strings to add; nulls are skipped. The argument can be NULL.
+     */
+    public void splice(int position, int nRemovals, Collection<String> additions) {
+        int size = size();
+        AssertionUtils.assertTrue(GtkStringList.class, "splice: range [" + position + ", +" + nRemovals + ") outside [0, " + size + ")",
+                position >= 0 && nRemovals >= 0 && position + nRemovals <= size);
+        if (additions == null || additions.isEmpty()) {
+            if (nRemovals > 0) {
+                library.gtk_string_list_splice(getCReference(), position, nRemovals, Pointer.NULL);
+            }
+            return;
+        }
+        byte[][] encoded = new byte[additions.size()][];
+        long bytes = 0;
+        int count = 0;
+        for (String s : additions) {
+            if (s != null) {
+                encoded[count] = s.getBytes(StandardCharsets.UTF_8);
+                bytes += encoded[count].length + 1;
+                count++;
+            }
+        }
+        long vectorSize = (long) (count + 1) * Native.POINTER_SIZE;
+        if (count > DEFAULT_BATCH_SIZE || bytes > MAX_SCRATCH_BYTES) {
+            Memory oneOffVector = new Memory(vectorSize);
+            Memory oneOffStrings = new Memory(Math.max(bytes, 1));
+            try {
+                splice(position, nRemovals, encoded, count, oneOffVector, oneOffStrings);
+            } finally {
+                oneOffStrings.close();
+                oneOffVector.close();
+            }
+            return;
+        }
+        if (vector == null || vector.size() < vectorSize) {
+            vector = new Memory(Math.max(vectorSize, 2 * (vector != null ? vector.size() : 0)));
+        }
+        if (strings == null || strings.size() < bytes) {
+            strings = new Memory(Math.max(Math.max(bytes, 1), Math.min(MAX_SCRATCH_BYTES, 2 * (strings != null ? strings.size() : 0))));
+        }
+        splice(position, nRemovals, encoded, count, vector, strings);
+    }
+
+    /**
+     * @return Bytes of string storage kept for later splices
+     */
+    long getScratchBytes() {
+        return strings != null ? strings.size() : 0;
+    }
+
+    private void splice(int position, int nRemovals, byte[][] encoded, int count, Memory vector, Memory strings) {
+        long offset = 0;
+        for (int i = 0; i < count; i++) {
+            strings.write(offset, encoded[i], 0, encoded[i].length);
+            strings.setByte(offset + encoded[i].length, (byte) 0);
+            vector.setPointer((long) i * Native.POINTER_SIZE, strings.share(offset));
+            offset += encoded[i].length + 1;
+        }
+        vector.setPointer((long) count * Native.POINTER_SIZE, Pointer.NULL);
+        library.gtk_string_list_splice(getCReference(), position, nRemovals, vector);
+    }
+
     protected static class GtkStringListLibrary extends GtkLibrary {
         static {
             Native.register("gtk-4");
@@ -121,5 +236,18 @@ public class GtkStringList extends GObject implements GListModel<String>, GtkBui
          * @param position The position of the string that is to be removed.
          */
         public native void gtk_string_list_remove(Pointer self, int position);
+
+        /**
+         * Changes self by removing n_removals strings and adding additions to it.
+         * <p>
+         * This function is more efficient than gtk_string_list_append() and gtk_string_list_remove(), because it only
+         * emits the ::items-changed signal once for the change.
+         *
+         * @param self       self
+         * @param position   The position at which to make the change.
+         * @param nRemovals  The number of strings to remove.
+         * @param additions  The strings to add, as a NULL-terminated char** vector. The argument can be NULL.
+         */
+        public native void gtk_string_list_splice(Pointer self, int position, int nRemovals, Pointer additions);
     }
 }
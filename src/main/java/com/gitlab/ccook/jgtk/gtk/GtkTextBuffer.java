@@ -23,19 +23,34 @@ package com.gitlab.ccook.jgtk.gtk;
 
 import com.gitlab.ccook.jgtk.*;
 import com.gitlab.ccook.jgtk.bitfields.GConnectFlags;
+import com.gitlab.ccook.jgtk.callbacks.DeleteRangeCallback;
+import com.gitlab.ccook.jgtk.callbacks.GWeakNotify;
 import com.gitlab.ccook.jgtk.callbacks.GtkCallbackFunction;
+import com.gitlab.ccook.jgtk.callbacks.InsertTextCallback;
+import com.gitlab.ccook.jgtk.utils.MainThreadExecutor;
+import com.gitlab.ccook.jgtk.utils.TextDiff;
 import com.gitlab.ccook.jna.GCallbackFunction;
 import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.jna.NativeArena;
+import com.gitlab.ccook.jna.NativeUtf8Buffer;
+import com.gitlab.ccook.util.AssertionUtils;
 import com.gitlab.ccook.util.Option;
 import com.gitlab.ccook.util.Pair;
 import com.sun.jna.Native;
 import com.sun.jna.Pointer;
-import com.sun.jna.ptr.PointerByReference;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * Stores text and attributes for display in a GtkTextView.
@@ -45,6 +60,16 @@ import java.util.Map;
 @SuppressWarnings({"unchecked", "GrazieInspection"})
 public class GtkTextBuffer extends JGTKConnectableObject {
     private static final GtkTextBufferLibrary library = new GtkTextBufferLibrary();
+    private static final int WRITE_CHUNK_CHARACTERS = 256 * 1024;
+    // Counts "changed" emissions per native buffer; one handler per buffer, shared by all of its wrappers
+    private static final Map<Pointer, AtomicLong> changeStamps = new HashMap<>();
+    private static final GCallbackFunction changeCounter = (buffer, data) -> {
+        AtomicLong stamp = changeStamps.get(buffer);
+        if (stamp != null) {
+            stamp.incrementAndGet();
+        }
+    };
+    private static final GWeakNotify bufferFinalized = (data, whereTheObjectWas) -> changeStamps.remove(whereTheObjectWas);
 
     /**
      * Creates a new text buffer.
@@ -87,11 +112,46 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      */
     public void setText(String text) {
         if (text != null) {
-            text = new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
-            library.gtk_text_buffer_set_text(getCReference(), text, text.length());
+            NativeUtf8Buffer utf8 = NativeUtf8Buffer.encode(text);
+            try {
+                library.gtk_text_buffer_set_text(getCReference(), utf8.getPointer(), utf8.length());
+            } finally {
+                utf8.release();
+            }
+        }
+    }
+
+    /**
+     * Deletes current contents of buffer, and inserts the given UTF-8 bytes instead, without copying them.
+     *
+     * @param utf8       Direct buffer holding valid UTF-8; bytes are read from its position onwards
+     * @param byteLength Number of bytes to set
+     */
+    public void setText(ByteBuffer utf8, int byteLength) {
+        setText(directPointer(utf8, byteLength), byteLength);
+    }
+
+    /**
+     * Deletes current contents of buffer, and inserts the given UTF-8 bytes instead, without copying them.
+     *
+     * @param utf8       Native memory holding valid UTF-8
+     * @param byteLength Number of bytes to set
+     */
+    public void setText(Pointer utf8, int byteLength) {
+        if (utf8 != null && byteLength >= 0) {
+            library.gtk_text_buffer_set_text(getCReference(), utf8, byteLength);
         }
     }
 
+    private static Pointer directPointer(ByteBuffer utf8, int byteLength) {
+        if (utf8 == null) {
+            return null;
+        }
+        AssertionUtils.assertTrue(GtkTextBuffer.class, "UTF-8 ByteBuffer must be direct", utf8.isDirect());
+        AssertionUtils.assertTrue(GtkTextBuffer.class, "byteLength " + byteLength + " exceeds the " + utf8.remaining() + " remaining bytes", byteLength <= utf8.remaining());
+        return Native.getDirectBufferPointer(utf8).share(utf8.position());
+    }
+
     /**
      * Adds the mark at iterator position.
      * <p>
@@ -178,6 +238,153 @@ public class GtkTextBuffer extends JGTKConnectableObject {
         }
     }
 
+    /**
+     * Applies a batch of tag ranges, e.g. the tokens of a syntax highlighter, in a single pass.
+     * <p>
+     * Token i covers the characters [startOffsets[i], endOffsets[i]) and is tagged with tags[tagIndices[i]]. Before
+     * the tokens are applied, every tag in tags is removed from the dirty range [dirtyStart, dirtyEnd), so stale
+     * highlighting from a previous pass does not linger. Tags not in tags (selection, search matches, ...) are left
+     * alone.
+     * <p>
+     * The whole batch is wrapped in one user action, and only two iterators are used for the entire pass, so no
+     * per-token allocation takes place. Must be called on the main thread.
+     *
+     * @param tags         Tag palette indexed by tagIndices
+     * @param startOffsets Character offset where each token starts
+     * @param endOffsets   Character offset where each token ends (exclusive)
+     * @param tagIndices   Index into tags for each token; negative indices are skipped
+     * @param count        Number of tokens to apply from the arrays
+     * @param dirtyStart   Character offset where stale tags should be cleared from, or -1 to skip clearing
+     * @param dirtyEnd     Character offset where stale tags should be cleared to (exclusive), or -1 for end of buffer
+     */
+    public void applyTagRanges(GtkTextTag[] tags, int[] startOffsets, int[] endOffsets, int[] tagIndices, int count, int dirtyStart, int dirtyEnd) {
+        if (tags != null && startOffsets != null && endOffsets != null && tagIndices != null) {
+            AssertionUtils.assertTrue(GtkTextBuffer.class, "applyTagRanges: count exceeds range arrays",
+                    count >= 0 && count <= startOffsets.length && count <= endOffsets.length && count <= tagIndices.length);
+            Pointer buffer = getCReference();
+            Pointer[] tagPointers = new Pointer[tags.length];
+            for (int i = 0; i < tags.length; i++) {
+                tagPointers[i] = tags[i] != null ? tags[i].getCReference() : null;
+            }
+            GtkTextIter.Pool pool = GtkTextIter.Pool.get();
+            GtkTextIter start = pool.acquire();
+            GtkTextIter end = pool.acquire();
+            Pointer startRef = start.getCReference();
+            Pointer endRef = end.getCReference();
+            library.gtk_text_buffer_begin_user_action(buffer);
+            try {
+                if (dirtyStart >= 0) {
+                    library.gtk_text_buffer_get_iter_at_offset(buffer, startRef, dirtyStart);
+                    library.gtk_text_buffer_get_iter_at_offset(buffer, endRef, dirtyEnd < 0 ? -1 : Math.max(dirtyStart, dirtyEnd));
+                    for (Pointer tag : tagPointers) {
+                        if (tag != null) {
+                            library.gtk_text_buffer_remove_tag(buffer, tag, startRef, endRef);
+                        }
+                    }
+                }
+                library.gtk_text_buffer_get_start_iter(buffer, startRef);
+                library.gtk_text_buffer_get_start_iter(buffer, endRef);
+                for (int i = 0; i < count; i++) {
+                    int tagIndex = tagIndices[i];
+                    int from = startOffsets[i];
+                    int to = endOffsets[i];
+                    if (tagIndex < 0 || tagIndex >= tagPointers.length || tagPointers[tagIndex] == null || to <= from) {
+                        continue;
+                    }
+                    library.gtk_text_iter_set_offset(startRef, from);
+                    library.gtk_text_iter_set_offset(endRef, to);
+                    library.gtk_text_buffer_apply_tag(buffer, tagPointers[tagIndex], startRef, endRef);
+                }
+            } finally {
+                library.gtk_text_buffer_end_user_action(buffer);
+                pool.release(end);
+                pool.release(start);
+            }
+        }
+    }
+
+    /**
+     * Applies a batch of tag ranges, clearing the tags in the palette from the span covered by the tokens first.
+     *
+     * @param tags         Tag palette indexed by tagIndices
+     * @param startOffsets Character offset where each token starts
+     * @param endOffsets   Character offset where each token ends (exclusive)
+     * @param tagIndices   Index into tags for each token
+     * @see #applyTagRanges(GtkTextTag[], int[], int[], int[], int, int, int)
+     */
+    public void applyTagRanges(GtkTextTag[] tags, int[] startOffsets, int[] endOffsets, int[] tagIndices) {
+        if (tags != null && startOffsets != null && endOffsets != null && tagIndices != null) {
+            int count = Math.min(startOffsets.length, Math.min(endOffsets.length, tagIndices.length));
+            int dirtyStart = Integer.MAX_VALUE;
+            int dirtyEnd = -1;
+            for (int i = 0; i < count; i++) {
+                dirtyStart = Math.min(dirtyStart, startOffsets[i]);
+                dirtyEnd = Math.max(dirtyEnd, endOffsets[i]);
+            }
+            if (count > 0) {
+                applyTagRanges(tags, startOffsets, endOffsets, tagIndices, count, Math.max(0, dirtyStart), Math.max(0, dirtyEnd));
+            }
+        }
+    }
+
+    /**
+     * Replaces the buffer's content with text by editing only what differs.
+     * <p>
+     * Unlike setText(), marks, tags and the scroll position outside the changed regions are kept, the changes can be
+     * undone, and relayout is limited to the changed lines. The diff (by line, then by char within changed lines) is
+     * computed on a worker thread and applied on the main thread as one user action. If the buffer is edited in the
+     * meantime the diff is stale and nothing is applied. Must be called on the main thread.
+     *
+     * @param text The new content
+     * @return Completes on the main thread with true once applied, or false if the buffer changed before the diff was
+     *         ready
+     */
+    public CompletableFuture<Boolean> applyText(String text) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        if (text == null) {
+            result.complete(false);
+            return result;
+        }
+        AtomicLong changes = trackChanges();
+        long stamp = changes.get();
+        Pair<GtkTextIter, GtkTextIter> bounds = getTextBounds();
+        Option<String> current = getText(bounds.getFirst(), bounds.getSecond(), true);
+        String before = current.isDefined() ? current.get() : "";
+        CompletableFuture.supplyAsync(() -> TextDiff.diff(before, text)).whenComplete((hunks, error) -> MainThreadExecutor.getDefault().execute(() -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else if (stamp != changes.get()) {
+                result.complete(false);
+            } else {
+                edit(transaction -> {
+                    for (TextDiff.Hunk hunk : hunks) {
+                        transaction.replace(hunk.getStart(), hunk.getEnd(), hunk.getText());
+                    }
+                });
+                result.complete(true);
+            }
+        }));
+        return result;
+    }
+
+    private AtomicLong trackChanges() {
+        AtomicLong stamp = changeStamps.get(getCReference());
+        if (stamp == null) {
+            stamp = new AtomicLong();
+            changeStamps.put(getCReference(), stamp);
+            library.g_signal_connect_data(getCReference(), Signals.CHANGED.getDetailedName(), changeCounter, Pointer.NULL, Pointer.NULL, GConnectFlags.G_CONNECT_DEFAULT.getCValue());
+            library.g_object_weak_ref(getCReference(), bufferFinalized, Pointer.NULL);
+        }
+        return stamp;
+    }
+
+    /**
+     * @return Number of native buffers whose changes are being counted for applyText()
+     */
+    static int getTrackedBufferCount() {
+        return changeStamps.size();
+    }
+
     /**
      * Denotes the beginning of an action that may not be undone.
      * <p>
@@ -293,6 +500,32 @@ public class GtkTextBuffer extends JGTKConnectableObject {
         connect(s.getDetailedName(), fn, Pointer.NULL, GConnectFlags.G_CONNECT_DEFAULT);
     }
 
+    /**
+     * Connects a handler to the "insert-text" signal, which carries the location and the inserted UTF-8 text
+     *
+     * @param callback Handler to invoke
+     * @param flags    Connection flags, e.g. G_CONNECT_AFTER to run once the text has been inserted
+     */
+    public void connect(InsertTextCallback callback, GConnectFlags... flags) {
+        if (callback != null) {
+            preventGarbageCollection(callback);
+            library.g_signal_connect_data(getCReference(), Signals.INSERT_TEXT.getDetailedName(), callback, Pointer.NULL, Pointer.NULL, GConnectFlags.getCValueFromFlags(flags));
+        }
+    }
+
+    /**
+     * Connects a handler to the "delete-range" signal, which carries the bounds of the range being deleted
+     *
+     * @param callback Handler to invoke
+     * @param flags    Connection flags, e.g. G_CONNECT_AFTER to run once the range has been deleted
+     */
+    public void connect(DeleteRangeCallback callback, GConnectFlags... flags) {
+        if (callback != null) {
+            preventGarbageCollection(callback);
+            library.g_signal_connect_data(getCReference(), Signals.DELETE_RANGE.getDetailedName(), callback, Pointer.NULL, Pointer.NULL, GConnectFlags.getCValueFromFlags(flags));
+        }
+    }
+
     /**
      * Copies the currently-selected text to a clipboard.
      *
@@ -498,6 +731,93 @@ public class GtkTextBuffer extends JGTKConnectableObject {
         }
     }
 
+    /**
+     * Groups several inserts and deletes into one user action.
+     * <p>
+     * Offsets given to the transaction refer to the buffer as it is when edit() is called; they do not have to be
+     * adjusted for the edits made before them. The edits are applied once edits returns, from the end of the buffer
+     * backwards, so each one still finds its original offsets. Inserts at the same offset end up in the order they
+     * were made.
+     *
+     * @param edits Records the edits on the transaction it is given
+     */
+    public void edit(Consumer<Transaction> edits) {
+        if (edits != null) {
+            Transaction transaction = new Transaction();
+            edits.accept(transaction);
+            transaction.apply(this);
+        }
+    }
+
+    /**
+     * Walks [start, end) run by run, where a run is a stretch of text with the same set of tags.
+     * <p>
+     * Moves from one tag toggle to the next with gtk_text_iter_forward_to_tag_toggle(), so the cost is proportional to
+     * the number of runs, not the number of characters.
+     *
+     * @param start    Start of the range
+     * @param end      End of the range
+     * @param consumer Receives each run
+     */
+    public void forEachTagRun(GtkTextIter start, GtkTextIter end, TagRunConsumer consumer) {
+        if (start != null && end != null && consumer != null) {
+            GtkTextIter.Pool pool = GtkTextIter.Pool.get();
+            GtkTextIter run = pool.acquire(start);
+            GtkTextIter next = pool.acquire();
+            try {
+                Pointer runRef = run.getCReference();
+                Pointer nextRef = next.getCReference();
+                Pointer endRef = end.getCReference();
+                while (library.gtk_text_iter_compare(runRef, endRef) < 0) {
+                    next.set(run);
+                    library.gtk_text_iter_forward_to_tag_toggle(nextRef, Pointer.NULL);
+                    if (library.gtk_text_iter_compare(nextRef, runRef) <= 0) {
+                        library.gtk_text_iter_forward_char(nextRef);
+                    }
+                    if (library.gtk_text_iter_compare(nextRef, endRef) > 0) {
+                        next.set(end);
+                    }
+                    consumer.accept(library.gtk_text_iter_get_offset(runRef), library.gtk_text_iter_get_offset(nextRef), getTagsAt(runRef));
+                    run.set(next);
+                }
+            } finally {
+                pool.release(next);
+                pool.release(run);
+            }
+        }
+    }
+
+    /**
+     * Walks the whole buffer run by run, where a run is a stretch of text with the same set of tags.
+     *
+     * @param consumer Receives each run
+     */
+    public void forEachTagRun(TagRunConsumer consumer) {
+        GtkTextIter.Pool pool = GtkTextIter.Pool.get();
+        GtkTextIter start = pool.acquire();
+        GtkTextIter end = pool.acquire();
+        try {
+            forEachTagRun(getStartIterator(start), getEndIterator(end), consumer);
+        } finally {
+            pool.release(end);
+            pool.release(start);
+        }
+    }
+
+    private static List<GtkTextTag> getTagsAt(Pointer iter) {
+        Pointer list = library.gtk_text_iter_get_tags(iter);
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        List<GtkTextTag> tags = new ArrayList<>();
+        // GSList nodes are {gpointer data; GSList *next;}
+        for (Pointer node = list; node != null; node = node.getPointer(Native.POINTER_SIZE)) {
+            tags.add(new GtkTextTag(node.getPointer(0)));
+        }
+        library.g_slist_free(list);
+        return tags;
+    }
+
     /**
      * Sets whether to enable undoable actions in the text buffer.
      * <p>
@@ -563,9 +883,35 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      * @return the "end iterator," one past the last valid character in the text buffer.
      */
     public GtkTextIter getEndIterator() {
-        PointerByReference endIter = new PointerByReference();
-        library.gtk_text_buffer_get_end_iter(getCReference(), endIter);
-        return new GtkTextIter(endIter.getPointer());
+        GtkTextIter endIter = new GtkTextIter();
+        library.gtk_text_buffer_get_end_iter(getCReference(), endIter.getCReference());
+        return endIter;
+    }
+
+    /**
+     * Initializes an arena-allocated iterator with the "end iterator," one past the last valid character in the text
+     * buffer.
+     *
+     * @param scope Scope the iterator is allocated from; the iterator is invalid once the scope is closed
+     * @return the "end iterator," one past the last valid character in the text buffer.
+     */
+    public GtkTextIter getEndIterator(NativeArena.Scope scope) {
+        GtkTextIter endIter = new GtkTextIter(scope);
+        library.gtk_text_buffer_get_end_iter(getCReference(), endIter.getCReference());
+        return endIter;
+    }
+
+    /**
+     * Moves an existing iterator to the "end iterator," one past the last valid character in the text buffer.
+     *
+     * @param into Iterator to (re)initialize
+     * @return into
+     */
+    public GtkTextIter getEndIterator(GtkTextIter into) {
+        if (into != null) {
+            library.gtk_text_buffer_get_end_iter(getCReference(), into.getCReference());
+        }
+        return into;
     }
 
     /**
@@ -594,9 +940,9 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      * @return first - Whether the exact position has been found. second - iterator at byte index within a line
      */
     public Pair<Boolean, GtkTextIter> getIteratorAtByteIndex(int lineNumber, int byteIndex) {
-        PointerByReference iter = new PointerByReference();
-        boolean exactPositionFound = library.gtk_text_buffer_get_iter_at_line_index(getCReference(), iter, Math.max(0, lineNumber), Math.max(0, byteIndex));
-        return new Pair<>(exactPositionFound, new GtkTextIter(iter.getPointer()));
+        GtkTextIter iter = new GtkTextIter();
+        boolean exactPositionFound = library.gtk_text_buffer_get_iter_at_line_index(getCReference(), iter.getCReference(), Math.max(0, lineNumber), Math.max(0, byteIndex));
+        return new Pair<>(exactPositionFound, iter);
     }
 
     /**
@@ -612,9 +958,9 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      * @return first - Whether the exact position has been found. second -iterator at character offset at line number
      */
     public Pair<Boolean, GtkTextIter> getIteratorAtCharacterOffset(int lineNumber, int characterOffsetWithinLine) {
-        PointerByReference iter = new PointerByReference();
-        boolean exactPositionFound = library.gtk_text_buffer_get_iter_at_line_offset(getCReference(), iter, Math.max(0, lineNumber), Math.max(0, characterOffsetWithinLine));
-        return new Pair<>(exactPositionFound, new GtkTextIter(iter.getPointer()));
+        GtkTextIter iter = new GtkTextIter();
+        boolean exactPositionFound = library.gtk_text_buffer_get_iter_at_line_offset(getCReference(), iter.getCReference(), Math.max(0, lineNumber), Math.max(0, characterOffsetWithinLine));
+        return new Pair<>(exactPositionFound, iter);
     }
 
     /**
@@ -627,9 +973,36 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      * @return iter to a position char_offset chars from the start of the entire buffer.
      */
     public GtkTextIter getIteratorAtCharacterOffset(int characterOffset) {
-        PointerByReference iter = new PointerByReference();
-        library.gtk_text_buffer_get_iter_at_offset(getCReference(), iter, Math.max(-1, characterOffset));
-        return new GtkTextIter(iter.getPointer());
+        GtkTextIter iter = new GtkTextIter();
+        library.gtk_text_buffer_get_iter_at_offset(getCReference(), iter.getCReference(), Math.max(-1, characterOffset));
+        return iter;
+    }
+
+    /**
+     * Returns an arena-allocated iter to a position char_offset chars from the start of the entire buffer.
+     *
+     * @param scope           Scope the iterator is allocated from; the iterator is invalid once the scope is closed
+     * @param characterOffset Char offset from start of buffer, counting from 0, or -1
+     * @return iter to a position char_offset chars from the start of the entire buffer.
+     */
+    public GtkTextIter getIteratorAtCharacterOffset(NativeArena.Scope scope, int characterOffset) {
+        GtkTextIter iter = new GtkTextIter(scope);
+        library.gtk_text_buffer_get_iter_at_offset(getCReference(), iter.getCReference(), Math.max(-1, characterOffset));
+        return iter;
+    }
+
+    /**
+     * Moves an existing iterator to a position char_offset chars from the start of the entire buffer.
+     *
+     * @param into            Iterator to (re)initialize
+     * @param characterOffset Char offset from start of buffer, counting from 0, or -1
+     * @return into
+     */
+    public GtkTextIter getIteratorAtCharacterOffset(GtkTextIter into, int characterOffset) {
+        if (into != null) {
+            library.gtk_text_buffer_get_iter_at_offset(getCReference(), into.getCReference(), Math.max(-1, characterOffset));
+        }
+        return into;
     }
 
     /**
@@ -640,9 +1013,9 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      */
     public Option<GtkTextIter> getIteratorAtChildAnchor(GtkTextChildAnchor anchor) {
         if (anchor != null) {
-            PointerByReference iter = new PointerByReference();
-            library.gtk_text_buffer_get_iter_at_child_anchor(getCReference(), iter, anchor.getCReference());
-            return new Option<>(new GtkTextIter(iter.getPointer()));
+            GtkTextIter iter = new GtkTextIter();
+            library.gtk_text_buffer_get_iter_at_child_anchor(getCReference(), iter.getCReference(), anchor.getCReference());
+            return new Option<>(iter);
         }
         return Option.NONE;
     }
@@ -656,9 +1029,23 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      * @return first - Whether the exact position has been found. second - iter to the start of the given line
      */
     public Pair<Boolean, GtkTextIter> getIteratorAtLine(int lineNumber) {
-        PointerByReference iter = new PointerByReference();
-        boolean exactPositionFound = library.gtk_text_buffer_get_iter_at_line(getCReference(), iter, Math.max(0, lineNumber));
-        return new Pair<>(exactPositionFound, new GtkTextIter(iter.getPointer()));
+        GtkTextIter iter = new GtkTextIter();
+        boolean exactPositionFound = library.gtk_text_buffer_get_iter_at_line(getCReference(), iter.getCReference(), Math.max(0, lineNumber));
+        return new Pair<>(exactPositionFound, iter);
+    }
+
+    /**
+     * Moves an existing iterator to the start of the given line.
+     *
+     * @param into       Iterator to (re)initialize
+     * @param lineNumber Line number counting from 0 (negative values clamped)
+     * @return Whether the exact position has been found.
+     */
+    public boolean getIteratorAtLine(GtkTextIter into, int lineNumber) {
+        if (into != null) {
+            return library.gtk_text_buffer_get_iter_at_line(getCReference(), into.getCReference(), Math.max(0, lineNumber));
+        }
+        return false;
     }
 
     /**
@@ -669,9 +1056,9 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      */
     public Option<GtkTextIter> getIteratorAtMark(GtkTextMark m) {
         if (m != null) {
-            PointerByReference iter = new PointerByReference();
-            library.gtk_text_buffer_get_iter_at_mark(getCReference(), iter, m.getCReference());
-            return new Option<>(new GtkTextIter(iter.getPointer()));
+            GtkTextIter iter = new GtkTextIter();
+            library.gtk_text_buffer_get_iter_at_mark(getCReference(), iter.getCReference(), m.getCReference());
+            return new Option<>(iter);
         }
         return Option.NONE;
     }
@@ -751,10 +1138,10 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      * @return first - start of selection, second - end of selection
      */
     public Pair<GtkTextIter, GtkTextIter> getSelectionBounds() {
-        PointerByReference start = new PointerByReference();
-        PointerByReference end = new PointerByReference();
-        boolean selectionNonZero = library.gtk_text_buffer_get_selection_bounds(getCReference(), start, end);
-        return new Pair<>(new GtkTextIter(start.getPointer()), new GtkTextIter(end.getPointer()));
+        GtkTextIter start = new GtkTextIter();
+        GtkTextIter end = new GtkTextIter();
+        boolean selectionNonZero = library.gtk_text_buffer_get_selection_bounds(getCReference(), start.getCReference(), end.getCReference());
+        return new Pair<>(start, end);
     }
 
     /**
@@ -773,7 +1160,14 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      */
     public Option<String> getText(GtkTextIter start, GtkTextIter end, boolean includeHiddenCharacters) {
         if (start != null && end != null) {
-            return new Option<>(library.gtk_text_buffer_get_text(getCReference(), start.getCReference(), end.getCReference(), includeHiddenCharacters));
+            Pointer text = library.gtk_text_buffer_get_text(getCReference(), start.getCReference(), end.getCReference(), includeHiddenCharacters);
+            if (text != null) {
+                try {
+                    return new Option<>(text.getString(0, StandardCharsets.UTF_8.name()));
+                } finally {
+                    library.g_free(text);
+                }
+            }
         }
         return Option.NONE;
     }
@@ -824,9 +1218,34 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      * @return iter with the first position in the text buffer.
      */
     public GtkTextIter getStartIterator() {
-        PointerByReference start = new PointerByReference();
-        library.gtk_text_buffer_get_start_iter(getCReference(), start);
-        return new GtkTextIter(start.getPointer());
+        GtkTextIter start = new GtkTextIter();
+        library.gtk_text_buffer_get_start_iter(getCReference(), start.getCReference());
+        return start;
+    }
+
+    /**
+     * Initializes an arena-allocated iterator with the first position in the text buffer.
+     *
+     * @param scope Scope the iterator is allocated from; the iterator is invalid once the scope is closed
+     * @return iter with the first position in the text buffer.
+     */
+    public GtkTextIter getStartIterator(NativeArena.Scope scope) {
+        GtkTextIter start = new GtkTextIter(scope);
+        library.gtk_text_buffer_get_start_iter(getCReference(), start.getCReference());
+        return start;
+    }
+
+    /**
+     * Moves an existing iterator to the first position in the text buffer.
+     *
+     * @param into Iterator to (re)initialize
+     * @return into
+     */
+    public GtkTextIter getStartIterator(GtkTextIter into) {
+        if (into != null) {
+            library.gtk_text_buffer_get_start_iter(getCReference(), into.getCReference());
+        }
+        return into;
     }
 
     /**
@@ -844,10 +1263,10 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      * @return first - start iterator, second - end iterator
      */
     public Pair<GtkTextIter, GtkTextIter> getTextBounds() {
-        PointerByReference startIter = new PointerByReference();
-        PointerByReference endIter = new PointerByReference();
-        library.gtk_text_buffer_get_bounds(getCReference(), startIter, endIter);
-        return new Pair<>(new GtkTextIter(startIter.getPointer()), new GtkTextIter(endIter.getPointer()));
+        GtkTextIter startIter = new GtkTextIter();
+        GtkTextIter endIter = new GtkTextIter();
+        library.gtk_text_buffer_get_bounds(getCReference(), startIter.getCReference(), endIter.getCReference());
+        return new Pair<>(startIter, endIter);
     }
 
     /**
@@ -903,8 +1322,12 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      */
     public void insertMarkup(GtkTextIter iter, String markup) {
         if (iter != null && markup != null) {
-            markup = new String(markup.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
-            library.gtk_text_buffer_insert_markup(getCReference(), iter.getCReference(), markup, markup.length());
+            NativeUtf8Buffer utf8 = NativeUtf8Buffer.encode(markup);
+            try {
+                library.gtk_text_buffer_insert_markup(getCReference(), iter.getCReference(), utf8.getPointer(), utf8.length());
+            } finally {
+                utf8.release();
+            }
         }
     }
 
@@ -977,12 +1400,11 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      */
     public void insertText(GtkTextIter iter, String text, GtkTextTag... tagsToApply) {
         if (text != null && iter != null) {
-            text = new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
             Pointer[] pointers = new Pointer[tagsToApply.length];
             for (int i = 0; i < pointers.length; i++) {
                 pointers[i] = tagsToApply[i].getCReference();
             }
-            library.gtk_text_buffer_insert_with_tags(getCReference(), iter.getCReference(), text, text.length(), pointers);
+            library.gtk_text_buffer_insert_with_tags(getCReference(), iter.getCReference(), text, -1, pointers);
         }
     }
 
@@ -997,8 +1419,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      */
     public void insertText(GtkTextIter iter, String text, String... tagNamesToApply) {
         if (text != null && iter != null) {
-            text = new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
-            library.gtk_text_buffer_insert_with_tags_by_name(getCReference(), iter.getCReference(), text, text.length(), tagNamesToApply);
+            library.gtk_text_buffer_insert_with_tags_by_name(getCReference(), iter.getCReference(), text, -1, tagNamesToApply);
         }
     }
 
@@ -1014,8 +1435,40 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      */
     public void insertText(String text, GtkTextIter iter) {
         if (text != null && iter != null) {
-            text = new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
-            library.gtk_text_buffer_insert(getCReference(), iter.getCReference(), text, text.length());
+            NativeUtf8Buffer utf8 = NativeUtf8Buffer.encode(text);
+            try {
+                library.gtk_text_buffer_insert(getCReference(), iter.getCReference(), utf8.getPointer(), utf8.length());
+            } finally {
+                utf8.release();
+            }
+        }
+    }
+
+    /**
+     * Inserts UTF-8 bytes at position iter, without copying them.
+     * <p>
+     * iter is revalidated to point to the end of the inserted text.
+     *
+     * @param utf8       Direct buffer holding valid UTF-8; bytes are read from its position onwards
+     * @param byteLength Number of bytes to insert
+     * @param iter       A position in the buffer.
+     */
+    public void insertText(ByteBuffer utf8, int byteLength, GtkTextIter iter) {
+        insertText(directPointer(utf8, byteLength), byteLength, iter);
+    }
+
+    /**
+     * Inserts UTF-8 bytes at position iter, without copying them.
+     * <p>
+     * iter is revalidated to point to the end of the inserted text.
+     *
+     * @param utf8       Native memory holding valid UTF-8
+     * @param byteLength Number of bytes to insert
+     * @param iter       A position in the buffer.
+     */
+    public void insertText(Pointer utf8, int byteLength, GtkTextIter iter) {
+        if (utf8 != null && byteLength >= 0 && iter != null) {
+            library.gtk_text_buffer_insert(getCReference(), iter.getCReference(), utf8, byteLength);
         }
     }
 
@@ -1036,8 +1489,12 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      */
     public boolean insertText(GtkTextIter iter, String text, boolean defaultEditable) {
         if (iter != null && text != null) {
-            text = new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
-            return library.gtk_text_buffer_insert_interactive(getCReference(), iter.getCReference(), text, text.length(), defaultEditable);
+            NativeUtf8Buffer utf8 = NativeUtf8Buffer.encode(text);
+            try {
+                return library.gtk_text_buffer_insert_interactive(getCReference(), iter.getCReference(), utf8.getPointer(), utf8.length(), defaultEditable);
+            } finally {
+                utf8.release();
+            }
         }
         return false;
     }
@@ -1051,8 +1508,34 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      */
     public void insertTextAtCursor(String text) {
         if (text != null) {
-            text = new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
-            library.gtk_text_buffer_insert_at_cursor(getCReference(), text, text.length());
+            NativeUtf8Buffer utf8 = NativeUtf8Buffer.encode(text);
+            try {
+                library.gtk_text_buffer_insert_at_cursor(getCReference(), utf8.getPointer(), utf8.length());
+            } finally {
+                utf8.release();
+            }
+        }
+    }
+
+    /**
+     * Inserts UTF-8 bytes at the cursor position, without copying them.
+     *
+     * @param utf8       Direct buffer holding valid UTF-8; bytes are read from its position onwards
+     * @param byteLength Number of bytes to insert
+     */
+    public void insertTextAtCursor(ByteBuffer utf8, int byteLength) {
+        insertTextAtCursor(directPointer(utf8, byteLength), byteLength);
+    }
+
+    /**
+     * Inserts UTF-8 bytes at the cursor position, without copying them.
+     *
+     * @param utf8       Native memory holding valid UTF-8
+     * @param byteLength Number of bytes to insert
+     */
+    public void insertTextAtCursor(Pointer utf8, int byteLength) {
+        if (utf8 != null && byteLength >= 0) {
+            library.gtk_text_buffer_insert_at_cursor(getCReference(), utf8, byteLength);
         }
     }
 
@@ -1070,8 +1553,12 @@ public class GtkTextBuffer extends JGTKConnectableObject {
      */
     public boolean insertTextAtCursor(String text, boolean defaultEditable) {
         if (text != null) {
-            text = new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
-            return library.gtk_text_buffer_insert_interactive_at_cursor(getCReference(), text, text.length(), defaultEditable);
+            NativeUtf8Buffer utf8 = NativeUtf8Buffer.encode(text);
+            try {
+                return library.gtk_text_buffer_insert_interactive_at_cursor(getCReference(), utf8.getPointer(), utf8.length(), defaultEditable);
+            } finally {
+                utf8.release();
+            }
         }
         return false;
     }
@@ -1271,6 +1758,63 @@ public class GtkTextBuffer extends JGTKConnectableObject {
         library.gtk_text_buffer_undo(getCReference());
     }
 
+    /**
+     * Writes the buffer's text to channel as UTF-8, a bounded chunk at a time.
+     * <p>
+     * Memory use does not depend on the size of the buffer. Embedded images and widgets are skipped, as with
+     * gtk_text_buffer_get_text().
+     *
+     * @param channel                 Where to write the text
+     * @param includeHiddenCharacters Whether to include invisible text
+     * @return Number of bytes written
+     * @throws IOException if writing to channel fails
+     */
+    public long writeTo(WritableByteChannel channel, boolean includeHiddenCharacters) throws IOException {
+        AssertionUtils.assertNotNull(GtkTextBuffer.class, "writeTo: channel is null", channel);
+        long written = 0;
+        GtkTextIter.Pool pool = GtkTextIter.Pool.get();
+        GtkTextIter start = pool.acquire();
+        GtkTextIter end = pool.acquire();
+        try {
+            getStartIterator(start);
+            getStartIterator(end);
+            Pointer buffer = getCReference();
+            Pointer startRef = start.getCReference();
+            Pointer endRef = end.getCReference();
+            while (!library.gtk_text_iter_is_end(startRef)) {
+                library.gtk_text_iter_forward_chars(endRef, WRITE_CHUNK_CHARACTERS);
+                Pointer text = library.gtk_text_buffer_get_text(buffer, startRef, endRef, includeHiddenCharacters);
+                if (text != null) {
+                    try {
+                        ByteBuffer bytes = text.getByteBuffer(0, text.indexOf(0, (byte) 0));
+                        while (bytes.hasRemaining()) {
+                            written += channel.write(bytes);
+                        }
+                    } finally {
+                        library.g_free(text);
+                    }
+                }
+                start.set(end);
+            }
+        } finally {
+            pool.release(end);
+            pool.release(start);
+        }
+        return written;
+    }
+
+    /**
+     * Receives the runs found by {@link #forEachTagRun(GtkTextIter, GtkTextIter, TagRunConsumer)}
+     */
+    public interface TagRunConsumer {
+        /**
+         * @param startOffset Character offset where the run starts
+         * @param endOffset   Character offset where the run ends (exclusive)
+         * @param tags        Tags applied to the whole run, in ascending priority
+         */
+        void accept(int startOffset, int endOffset, List<GtkTextTag> tags);
+    }
+
     public static class Signals extends GtkWidget.Signals {
         /**
          * Emitted to apply a tag to a range of text in a GtkTextBuffer.
@@ -1353,6 +1897,92 @@ public class GtkTextBuffer extends JGTKConnectableObject {
         }
     }
 
+    /**
+     * Edits recorded for {@link #edit(Consumer)}; offsets are character offsets into the buffer as it was before the
+     * transaction
+     */
+    public static final class Transaction {
+        private final List<int[]> ranges = new ArrayList<>();
+        private final List<String> texts = new ArrayList<>();
+
+        private Transaction() {
+        }
+
+        /**
+         * @param offset Character offset to insert at
+         * @param text   Text to insert
+         * @return this
+         */
+        public Transaction insert(int offset, String text) {
+            return replace(offset, offset, text);
+        }
+
+        /**
+         * @param start Character offset where the deleted range starts
+         * @param end   Character offset where the deleted range ends (exclusive)
+         * @return this
+         */
+        public Transaction delete(int start, int end) {
+            return replace(start, end, null);
+        }
+
+        /**
+         * @param start Character offset where the replaced range starts
+         * @param end   Character offset where the replaced range ends (exclusive)
+         * @param text  Replacement text
+         * @return this
+         */
+        public Transaction replace(int start, int end, String text) {
+            int from = Math.max(0, Math.min(start, end));
+            int to = Math.max(0, Math.max(start, end));
+            if (from != to || (text != null && !text.isEmpty())) {
+                ranges.add(new int[]{from, to, ranges.size()});
+                texts.add(text);
+            }
+            return this;
+        }
+
+        /**
+         * @return Number of edits recorded
+         */
+        public int size() {
+            return ranges.size();
+        }
+
+        private void apply(GtkTextBuffer buffer) {
+            if (ranges.isEmpty()) {
+                return;
+            }
+            List<int[]> ordered = new ArrayList<>(ranges);
+            ordered.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : a[1] != b[1] ? Integer.compare(a[1], b[1]) : Integer.compare(a[2], b[2]));
+            for (int i = 1; i < ordered.size(); i++) {
+                AssertionUtils.assertTrue(GtkTextBuffer.class, "edit: overlapping edits at offset " + ordered.get(i)[0], ordered.get(i - 1)[1] <= ordered.get(i)[0]);
+            }
+            GtkTextIter.Pool pool = GtkTextIter.Pool.get();
+            GtkTextIter start = pool.acquire();
+            GtkTextIter end = pool.acquire();
+            buffer.beginUserAction();
+            try {
+                for (int i = ordered.size() - 1; i >= 0; i--) {
+                    int[] range = ordered.get(i);
+                    buffer.getIteratorAtCharacterOffset(start, range[0]);
+                    if (range[1] > range[0]) {
+                        buffer.getIteratorAtCharacterOffset(end, range[1]);
+                        buffer.deleteText(start, end);
+                    }
+                    String text = texts.get(range[2]);
+                    if (text != null && !text.isEmpty()) {
+                        buffer.insertText(text, start);
+                    }
+                }
+            } finally {
+                buffer.endUserAction();
+                pool.release(end);
+                pool.release(start);
+            }
+        }
+    }
+
     protected static class GtkTextBufferLibrary extends GtkLibrary {
         static {
             Native.register("gtk-4");
@@ -1640,7 +2270,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param start  Iterator to initialize with first position in the buffer.
          * @param end    Iterator to initialize with the end iterator.
          */
-        public native void gtk_text_buffer_get_bounds(Pointer buffer, PointerByReference start, PointerByReference end);
+        public native void gtk_text_buffer_get_bounds(Pointer buffer, Pointer start, Pointer end);
 
         /**
          * Gets whether there is a redo-able action in the history.
@@ -1693,7 +2323,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param buffer  self
          * @param endIter Iterator to initialize. Type: GtkTextIter
          */
-        public native void gtk_text_buffer_get_end_iter(Pointer buffer, PointerByReference endIter);
+        public native void gtk_text_buffer_get_end_iter(Pointer buffer, Pointer endIter);
 
         /**
          * Indicates whether the buffer has some text currently selected.
@@ -1721,7 +2351,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param iter   An iterator to be initialized. Type: GtkTextIter
          * @param anchor A child anchor that appears in buffer. Type: GtkTextChildAnchor
          */
-        public native void gtk_text_buffer_get_iter_at_child_anchor(Pointer buffer, PointerByReference iter, Pointer anchor);
+        public native void gtk_text_buffer_get_iter_at_child_anchor(Pointer buffer, Pointer iter, Pointer anchor);
 
         /**
          * Initializes iter to the start of the given line.
@@ -1733,7 +2363,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param line_number Line number counting from 0
          * @return Whether the exact position has been found.
          */
-        public native boolean gtk_text_buffer_get_iter_at_line(Pointer buffer, PointerByReference iter, int line_number);
+        public native boolean gtk_text_buffer_get_iter_at_line(Pointer buffer, Pointer iter, int line_number);
 
         /**
          * Obtains an iterator pointing to byte_index within the given line.
@@ -1750,7 +2380,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param byte_index  Byte index from start of line.
          * @return Whether the exact position has been found.
          */
-        public native boolean gtk_text_buffer_get_iter_at_line_index(Pointer buffer, PointerByReference iter, int line_number, int byte_index);
+        public native boolean gtk_text_buffer_get_iter_at_line_index(Pointer buffer, Pointer iter, int line_number, int byte_index);
 
         /**
          * Obtains an iterator pointing to char_offset within the given line.
@@ -1766,7 +2396,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param char_offset Char offset from start of line.
          * @return Whether the exact position has been found.
          */
-        public native boolean gtk_text_buffer_get_iter_at_line_offset(Pointer buffer, PointerByReference iter, int line_number, int char_offset);
+        public native boolean gtk_text_buffer_get_iter_at_line_offset(Pointer buffer, Pointer iter, int line_number, int char_offset);
 
         /**
          * Initializes iter with the current position of mark.
@@ -1775,7 +2405,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param iter   Iterator to initialize. Type: GtkTextIter
          * @param mark   A GtkTextMark in buffer.
          */
-        public native void gtk_text_buffer_get_iter_at_mark(Pointer buffer, PointerByReference iter, Pointer mark);
+        public native void gtk_text_buffer_get_iter_at_mark(Pointer buffer, Pointer iter, Pointer mark);
 
         /**
          * Initializes iter to a position char_offset chars from the start of the entire buffer.
@@ -1787,7 +2417,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param iter        Iterator to initialize. Type: GtkTextIter
          * @param char_offset Char offset from start of buffer, counting from 0, or -1
          */
-        public native void gtk_text_buffer_get_iter_at_offset(Pointer buffer, PointerByReference iter, int char_offset);
+        public native void gtk_text_buffer_get_iter_at_offset(Pointer buffer, Pointer iter, int char_offset);
 
         /**
          * Obtains the number of lines in the buffer.
@@ -1860,7 +2490,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param end    Iterator to initialize with selection end.
          * @return Whether the selection has nonzero length.
          */
-        public native boolean gtk_text_buffer_get_selection_bounds(Pointer buffer, PointerByReference start, PointerByReference end);
+        public native boolean gtk_text_buffer_get_selection_bounds(Pointer buffer, Pointer start, Pointer end);
 
         /**
          * Get a content provider for this buffer.
@@ -1897,7 +2527,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param buffer self
          * @param iter   Iterator to initialize. Type: GtkTextIter
          */
-        public native void gtk_text_buffer_get_start_iter(Pointer buffer, PointerByReference iter);
+        public native void gtk_text_buffer_get_start_iter(Pointer buffer, Pointer iter);
 
         /**
          * Get the GtkTextTagTable associated with this buffer.
@@ -1921,7 +2551,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param include_hidden_chars Whether to include invisible text.
          * @return An allocated UTF-8 string.
          */
-        public native String gtk_text_buffer_get_text(Pointer buffer, Pointer start, Pointer end, boolean include_hidden_chars);
+        public native Pointer gtk_text_buffer_get_text(Pointer buffer, Pointer start, Pointer end, boolean include_hidden_chars);
 
         /**
          * Inserts len bytes of text at position iter.
@@ -1936,7 +2566,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param text   Text in UTF-8 format.
          * @param len    Length of text in bytes, or -1
          */
-        public native void gtk_text_buffer_insert(Pointer buffer, Pointer iter, String text, int len);
+        public native void gtk_text_buffer_insert(Pointer buffer, Pointer iter, Pointer text, int len);
 
         /**
          * Inserts text in buffer.
@@ -1947,7 +2577,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param text   Text in UTF-8 format.
          * @param len    Length of text, in bytes.
          */
-        public native void gtk_text_buffer_insert_at_cursor(Pointer buffer, String text, int len);
+        public native void gtk_text_buffer_insert_at_cursor(Pointer buffer, Pointer text, int len);
 
         /**
          * Inserts a child widget anchor into the text buffer at iter.
@@ -1983,7 +2613,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param default_editable Default editability of buffer.
          * @return Whether text was actually inserted.
          */
-        public native boolean gtk_text_buffer_insert_interactive(Pointer buffer, Pointer iter, String text, int len, boolean default_editable);
+        public native boolean gtk_text_buffer_insert_interactive(Pointer buffer, Pointer iter, Pointer text, int len, boolean default_editable);
 
         /**
          * Inserts text in buffer.
@@ -1999,7 +2629,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param default_editable Default editability of buffer.
          * @return Whether text was actually inserted.
          */
-        public native boolean gtk_text_buffer_insert_interactive_at_cursor(Pointer buffer, String text, int len, boolean default_editable);
+        public native boolean gtk_text_buffer_insert_interactive_at_cursor(Pointer buffer, Pointer text, int len, boolean default_editable);
 
         /**
          * Inserts the text in markup at position iter.
@@ -2013,7 +2643,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param markup A null-terminated UTF-8 string containing Pango markup.
          * @param len    Length of markup in bytes, or -1
          */
-        public native void gtk_text_buffer_insert_markup(Pointer buffer, Pointer iter, String markup, int len);
+        public native void gtk_text_buffer_insert_markup(Pointer buffer, Pointer iter, Pointer markup, int len);
 
         /**
          * Inserts an image into the text buffer at iter.
@@ -2274,7 +2904,7 @@ public class GtkTextBuffer extends JGTKConnectableObject {
          * @param text   UTF-8 text to insert.
          * @param len    Length of text in bytes.
          */
-        public native void gtk_text_buffer_set_text(Pointer buffer, String text, int len);
+        public native void gtk_text_buffer_set_text(Pointer buffer, Pointer text, int len);
 
         /**
          * Undoes the last undoable action on the buffer, if there is one.
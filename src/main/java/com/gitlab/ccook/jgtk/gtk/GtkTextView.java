@@ -34,6 +34,7 @@ import com.gitlab.ccook.jgtk.interfaces.GtkBuildable;
 import com.gitlab.ccook.jgtk.interfaces.GtkConstraintTarget;
 import com.gitlab.ccook.jgtk.interfaces.GtkScrollable;
 import com.gitlab.ccook.jna.GCallbackFunction;
+import com.gitlab.ccook.util.AssertionUtils;
 import com.gitlab.ccook.util.Option;
 import com.gitlab.ccook.util.Pair;
 import com.sun.jna.Native;
@@ -48,6 +49,7 @@ import java.util.List;
 @SuppressWarnings("unchecked")
 public class GtkTextView extends GtkWidget implements GtkAccessible, GtkBuildable, GtkConstraintTarget, GtkScrollable {
     private static final GtkTextViewLibrary library = new GtkTextViewLibrary();
+    private static final ThreadLocal<int[][]> LINE_Y_RANGE = ThreadLocal.withInitial(() -> new int[][]{new int[1], new int[1]});
 
     /**
      * Creates a new GtkTextView.
@@ -283,6 +285,24 @@ public class GtkTextView extends GtkWidget implements GtkAccessible, GtkBuildabl
         return new Pair<>(new GdkRectangle(strong), new GdkRectangle(weak));
     }
 
+    /**
+     * Determine the positions of the strong and weak cursors if the insertion point is at iter, without allocating
+     * any objects.
+     * <p>
+     * Each rectangle is written as x, y, width, height at indices 0..3, in buffer coordinates.
+     *
+     * @param iter   A GtkTextIter
+     *               <p>
+     *               The argument can be NULL.
+     * @param strong Receives the strong cursor position; must have a length of at least 4
+     * @param weak   Receives the weak cursor position; must have a length of at least 4
+     */
+    public void getCursorPositions(GtkTextIter iter, int[] strong, int[] weak) {
+        AssertionUtils.assertTrue(GtkTextView.class, "getCursorPositions(iter, strong, weak): strong must hold 4 ints", strong != null && strong.length >= 4);
+        AssertionUtils.assertTrue(GtkTextView.class, "getCursorPositions(iter, strong, weak): weak must hold 4 ints", weak != null && weak.length >= 4);
+        library.gtk_text_view_get_cursor_locations(getCReference(), pointerOrNull(iter), strong, weak);
+    }
+
     /**
      * Gets the menu model that gets added to the context menu or NONE if none has been set.
      *
@@ -414,10 +434,10 @@ public class GtkTextView extends GtkWidget implements GtkAccessible, GtkBuildabl
      * @return A GtkTextIter at provided coordinates, if defined
      */
     public Option<GtkTextIter> getIteratorAtBufferCoordinates(int xBufferCoordinate, int yBufferCoordinate) {
-        PointerByReference iter = new PointerByReference();
-        boolean posOverText = library.gtk_text_view_get_iter_at_location(getCReference(), iter, xBufferCoordinate, yBufferCoordinate);
-        if (posOverText && iter.getPointer() != Pointer.NULL) {
-            return new Option<>(new GtkTextIter(iter.getPointer()));
+        GtkTextIter iter = new GtkTextIter();
+        boolean posOverText = library.gtk_text_view_get_iter_at_location(getCReference(), iter.getCReference(), xBufferCoordinate, yBufferCoordinate);
+        if (posOverText) {
+            return new Option<>(iter);
         }
         return Option.NONE;
     }
@@ -442,6 +462,22 @@ public class GtkTextView extends GtkWidget implements GtkAccessible, GtkBuildabl
         return Option.NONE;
     }
 
+    /**
+     * Gets a rectangle which roughly contains the character at iter, without allocating any objects.
+     *
+     * @param iter A GtkTextIter
+     * @param out  Receives x, y, width, height (buffer coordinates) at indices 0..3; must have a length of at least 4
+     * @return true if out was filled, false if iter is NULL
+     */
+    public boolean getIteratorLocation(GtkTextIter iter, int[] out) {
+        AssertionUtils.assertTrue(GtkTextView.class, "getIteratorLocation(iter, out): out must hold 4 ints", out != null && out.length >= 4);
+        if (iter != null) {
+            library.gtk_text_view_get_iter_location(getCReference(), iter.getCReference(), out);
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Retrieves the iterator pointing to the character at buffer coordinates x and y.
      * <p>
@@ -457,10 +493,10 @@ public class GtkTextView extends GtkWidget implements GtkAccessible, GtkBuildabl
      * @return A GtkTextIter at provided coordinates, if defined
      */
     public Option<GtkTextIter> getIteratorPointingToCharAtBufferCoordinates(int xBufferCoordinate, int yBufferCoordinate) {
-        PointerByReference iter = new PointerByReference();
-        boolean posOverText = library.gtk_text_view_get_iter_at_position(getCReference(), iter, Pointer.NULL, xBufferCoordinate, yBufferCoordinate);
-        if (posOverText && iter.getPointer() != Pointer.NULL) {
-            return new Option<>(new GtkTextIter(iter.getPointer()));
+        GtkTextIter iter = new GtkTextIter();
+        boolean posOverText = library.gtk_text_view_get_iter_at_position(getCReference(), iter.getCReference(), Pointer.NULL, xBufferCoordinate, yBufferCoordinate);
+        if (posOverText) {
+            return new Option<>(iter);
         }
         return Option.NONE;
     }
@@ -536,13 +572,10 @@ public class GtkTextView extends GtkWidget implements GtkAccessible, GtkBuildabl
      *         second - top coordinate of the line.
      */
     public Option<Pair<GtkTextIter, Integer>> getLineAtY(int yBufferCoordinate) {
-        PointerByReference targetIter = new PointerByReference();
+        GtkTextIter targetIter = new GtkTextIter();
         PointerByReference lineTop = new PointerByReference();
-        library.gtk_text_view_get_line_at_y(getCReference(), targetIter, yBufferCoordinate, lineTop);
-        if (targetIter.getPointer() != Pointer.NULL && lineTop.getPointer() != Pointer.NULL) {
-            return new Option<>(new Pair<>(new GtkTextIter(targetIter.getPointer()), lineTop.getPointer().getInt(0)));
-        }
-        return Option.NONE;
+        library.gtk_text_view_get_line_at_y(getCReference(), targetIter.getCReference(), yBufferCoordinate, lineTop);
+        return new Option<>(new Pair<>(targetIter, lineTop.getPointer().getInt(0)));
     }
 
     /**
@@ -566,6 +599,27 @@ public class GtkTextView extends GtkWidget implements GtkAccessible, GtkBuildabl
         return Option.NONE;
     }
 
+    /**
+     * Gets the y coordinate of the top of the line containing iter, and the height of the line, without allocating
+     * any objects.
+     *
+     * @param iter A GtkTextIter
+     * @param out  Receives the y buffer coordinate at index 0 and the line height at index 1; must have a length of at
+     *             least 2
+     * @return true if out was filled, false if iter is NULL
+     */
+    public boolean getLineYRange(GtkTextIter iter, int[] out) {
+        AssertionUtils.assertTrue(GtkTextView.class, "getLineYRange(iter, out): out must hold 2 ints", out != null && out.length >= 2);
+        if (iter != null) {
+            int[][] scratch = LINE_Y_RANGE.get();
+            library.gtk_text_view_get_line_yrange(getCReference(), iter.getCReference(), scratch[0], scratch[1]);
+            out[0] = scratch[0][0];
+            out[1] = scratch[1][0];
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Gets the default number of pixels to put above paragraphs.
      * <p>
@@ -729,6 +783,17 @@ public class GtkTextView extends GtkWidget implements GtkAccessible, GtkBuildabl
         return new GdkRectangle(gdkRect);
     }
 
+    /**
+     * Fills out with the currently-visible region of the buffer, in buffer coordinates, without allocating any
+     * objects.
+     *
+     * @param out Receives x, y, width, height at indices 0..3; must have a length of at least 4
+     */
+    public void getVisibleRectangle(int[] out) {
+        AssertionUtils.assertTrue(GtkTextView.class, "getVisibleRectangle(out): out must hold 4 ints", out != null && out.length >= 4);
+        library.gtk_text_view_get_visible_rect(getCReference(), out);
+    }
+
     /**
      * Gets the line wrapping for the view.
      *
@@ -1403,6 +1468,18 @@ public class GtkTextView extends GtkWidget implements GtkAccessible, GtkBuildabl
          */
         public native void gtk_text_view_get_cursor_locations(Pointer text_view, Pointer iter, GdkRectangle.GdkRectangleStruct.ByReference strong, GdkRectangle.GdkRectangleStruct.ByReference weak);
 
+        /**
+         * Determine the positions of the strong and weak cursors if the insertion point is at iter.
+         *
+         * @param text_view self
+         * @param iter      A GtkTextIter
+         *                  <p>
+         *                  The argument can be NULL.
+         * @param strong    Location to store the strong cursor position. Type: GdkRectangle as int[4]
+         * @param weak      Location to store the weak cursor position. Type: GdkRectangle as int[4]
+         */
+        public native void gtk_text_view_get_cursor_locations(Pointer text_view, Pointer iter, int[] strong, int[] weak);
+
         /**
          * Find out whether the cursor should be displayed.
          *
@@ -1510,7 +1587,7 @@ public class GtkTextView extends GtkWidget implements GtkAccessible, GtkBuildabl
          * @param y         Y position, in buffer coordinates.
          * @return TRUE if the position is over text.
          */
-        public native boolean gtk_text_view_get_iter_at_location(Pointer text_view, PointerByReference iter, int x, int y);
+        public native boolean gtk_text_view_get_iter_at_location(Pointer text_view, Pointer iter, int x, int y);
 
         /**
          * Retrieves the iterator pointing to the character at buffer coordinates x and y.
@@ -1533,7 +1610,7 @@ public class GtkTextView extends GtkWidget implements GtkAccessible, GtkBuildabl
          * @param y         Y position, in buffer coordinates.
          * @return TRUE if the position is over text.
          */
-        public native boolean gtk_text_view_get_iter_at_position(Pointer text_view, PointerByReference iter, Pointer trailing, int x, int y);
+        public native boolean gtk_text_view_get_iter_at_position(Pointer text_view, Pointer iter, Pointer trailing, int x, int y);
 
         /**
          * Gets a rectangle which roughly contains the character at iter.
@@ -1547,6 +1624,15 @@ public class GtkTextView extends GtkWidget implements GtkAccessible, GtkBuildabl
          */
         public native void gtk_text_view_get_iter_location(Pointer text_view, Pointer iter, GdkRectangle.GdkRectangleStruct.ByReference location);
 
+        /**
+         * Gets a rectangle which roughly contains the character at iter.
+         *
+         * @param text_view self
+         * @param iter      A GtkTextIter
+         * @param location  Bounds of the character at iter. Type: GdkRectangle as int[4]
+         */
+        public native void gtk_text_view_get_iter_location(Pointer text_view, Pointer iter, int[] location);
+
         /**
          * Gets the default justification of paragraphs in text_view.
          * <p>
@@ -1578,7 +1664,7 @@ public class GtkTextView extends GtkWidget implements GtkAccessible, GtkBuildabl
          * @param y           A y coordinate.
          * @param line_top    Return location for top coordinate of the line.
          */
-        public native void gtk_text_view_get_line_at_y(Pointer text_view, PointerByReference target_iter, int y, PointerByReference line_top);
+        public native void gtk_text_view_get_line_at_y(Pointer text_view, Pointer target_iter, int y, PointerByReference line_top);
 
         /**
          * Gets the y coordinate of the top of the line containing iter, and the height of the line.
@@ -1593,6 +1679,16 @@ public class GtkTextView extends GtkWidget implements GtkAccessible, GtkBuildabl
          */
         public native void gtk_text_view_get_line_yrange(Pointer text_view, Pointer iter, PointerByReference y, PointerByReference height);
 
+        /**
+         * Gets the y coordinate of the top of the line containing iter, and the height of the line.
+         *
+         * @param text_view self
+         * @param iter      A GtkTextIter
+         * @param y         Return location for a y coordinate. Type: int[1]
+         * @param height    Return location for a height. Type: int[1]
+         */
+        public native void gtk_text_view_get_line_yrange(Pointer text_view, Pointer iter, int[] y, int[] height);
+
         /**
          * Gets the PangoContext that is used for rendering LTR directed text layouts.
          * <p>
@@ -1703,6 +1799,14 @@ public class GtkTextView extends GtkWidget implements GtkAccessible, GtkBuildabl
          */
         public native void gtk_text_view_get_visible_rect(Pointer text_view, GdkRectangle.GdkRectangleStruct.ByReference visible_rect);
 
+        /**
+         * Fills visible_rect with the currently-visible region of the buffer, in buffer coordinates.
+         *
+         * @param text_view    self
+         * @param visible_rect Rectangle to fill. Type: GdkRectangle as int[4]
+         */
+        public native void gtk_text_view_get_visible_rect(Pointer text_view, int[] visible_rect);
+
         /**
          * Gets the line wrapping for the view.
          *
@@ -0,0 +1,412 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.jgtk.GListModel;
+import com.gitlab.ccook.jgtk.GObject;
+import com.gitlab.ccook.jgtk.callbacks.GInterfaceInitFunc;
+import com.gitlab.ccook.jgtk.callbacks.GListModelGetItemFunc;
+import com.gitlab.ccook.jgtk.callbacks.GListModelGetItemTypeFunc;
+import com.gitlab.ccook.jgtk.callbacks.GListModelGetNItemsFunc;
+import com.gitlab.ccook.jgtk.callbacks.GWeakNotify;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.util.AssertionUtils;
+import com.gitlab.ccook.util.Option;
+import com.sun.jna.CallbackReference;
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A GListModel whose items come from a Java list, for showing large Java collections in GtkListView / GtkGridView.
+ * <p>
+ * The model is an instance of a GObject type registered at runtime ("JgtkJavaListModel") whose GListModel vfuncs call
+ * back into this class. GTK only asks for the items it shows, and an item GObject ("JgtkJavaListItem") is only created
+ * when GTK first asks for a Java element. Item GObjects are cached weakly: GTK owns them, and once GTK drops its last
+ * reference the cache entry goes away. Use {@link #getItem(GObject)} to get back the Java element of an item, e.g. in
+ * a list item factory.
+ * <p>
+ * Mutations made through this class emit "items-changed"; mutations inside {@link #batch(Runnable)} are merged into a
+ * single emission. The model, like GTK, must only be used on the main thread. Elements must not be null.
+ *
+ * @param <T> Java element type
+ */
+public class JavaListModel<T> extends GObject implements GListModel<GObject> {
+    private static final JavaListModelLibrary library = new JavaListModelLibrary();
+    private static final Map<Pointer, JavaListModel<?>> models = new HashMap<>();
+    private static final Map<Pointer, JavaListModel<?>> itemOwners = new HashMap<>();
+    private static final GListModelGetItemTypeFunc getItemType = list -> itemType();
+    private static final GListModelGetNItemsFunc getNItems = list -> {
+        JavaListModel<?> model = models.get(list);
+        return model != null ? model.items.size() : 0;
+    };
+    private static final GListModelGetItemFunc getItem = (list, position) -> {
+        JavaListModel<?> model = models.get(list);
+        return model != null ? model.itemAt(position) : null;
+    };
+    private static final GInterfaceInitFunc initListModel = (iface, data) -> {
+        // GListModelInterface: GTypeInterface (two GTypes), then get_item_type, get_n_items, get_item
+        long vfuncs = 2L * Native.SIZE_T_SIZE;
+        iface.setPointer(vfuncs, CallbackReference.getFunctionPointer(getItemType));
+        iface.setPointer(vfuncs + Native.POINTER_SIZE, CallbackReference.getFunctionPointer(getNItems));
+        iface.setPointer(vfuncs + 2L * Native.POINTER_SIZE, CallbackReference.getFunctionPointer(getItem));
+    };
+    private static final GWeakNotify modelFinalized = (data, where) -> models.remove(where);
+    private static final GWeakNotify itemFinalized = (data, where) -> {
+        JavaListModel<?> owner = itemOwners.remove(where);
+        if (owner != null) {
+            owner.forget(where);
+        }
+    };
+    private static long modelType = 0;
+    private static long itemType = 0;
+    private static Memory interfaceInfo;
+
+    private final List<T> items;
+    private final Map<T, Pointer> itemPointers;
+    private final Map<Pointer, T> itemValues = new HashMap<>();
+    private int batchDepth = 0;
+    // Pending change while batching: [changeStart, changeStart + changeRemoved) of the old list became
+    // [changeStart, changeStart + changeAdded) of the new one
+    private int changeStart = -1;
+    private int changeRemoved = 0;
+    private int changeAdded = 0;
+
+    /**
+     * Creates an empty model
+     */
+    public JavaListModel() {
+        this(Collections.emptyList());
+    }
+
+    /**
+     * @param items Initial elements; the collection is copied
+     */
+    public JavaListModel(Collection<? extends T> items) {
+        this(new ArrayList<>(items), true, false);
+    }
+
+    private JavaListModel(List<T> items, boolean checkElements, boolean byValue) {
+        super(library.g_object_new_with_properties(modelType(), 0, null, null));
+        this.items = items;
+        this.itemPointers = byValue ? new HashMap<>() : new IdentityHashMap<>();
+        if (checkElements) {
+            for (T item : this.items) {
+                AssertionUtils.assertNotNull(JavaListModel.class, "ctor: null element", item);
+            }
+        }
+        models.put(getCReference(), this);
+        library.g_object_weak_ref(getCReference(), modelFinalized, Pointer.NULL);
+    }
+
+    /**
+     * Creates a model over list without copying it, e.g. a computed view over primitive data.
+     * <p>
+     * list must not hold nulls. When list changes other than through this model, call
+     * {@link #itemsChanged(int, int, int)}. The mutating methods of the model only work if list supports them.
+     *
+     * @param list Elements
+     * @param <T>  Java element type
+     * @return A new model backed by list
+     */
+    public static <T> JavaListModel<T> wrap(List<T> list) {
+        AssertionUtils.assertNotNull(JavaListModel.class, "wrap: list is null", list);
+        return new JavaListModel<>(list, false, false);
+    }
+
+    /**
+     * Like {@link #wrap(List)}, but elements that are equal() share one item GObject instead of identical ones.
+     * <p>
+     * For lists that compute a new element on every get, e.g. by boxing an int, where items would otherwise not be
+     * stable. The elements of list must be distinct.
+     *
+     * @param list Elements
+     * @param <T>  Java element type
+     * @return A new model backed by list
+     */
+    public static <T> JavaListModel<T> wrapByValue(List<T> list) {
+        AssertionUtils.assertNotNull(JavaListModel.class, "wrapByValue: list is null", list);
+        return new JavaListModel<>(list, false, true);
+    }
+
+    private static synchronized long modelType() {
+        if (modelType == 0) {
+            modelType = library.g_type_from_name("JgtkJavaListModel");
+            if (modelType == 0) {
+                long parent = library.g_object_get_type();
+                Memory query = new Memory(Native.SIZE_T_SIZE + Native.POINTER_SIZE + 8);
+                library.g_type_query(parent, query);
+                int classSize = query.getInt(Native.SIZE_T_SIZE + Native.POINTER_SIZE);
+                int instanceSize = query.getInt(Native.SIZE_T_SIZE + Native.POINTER_SIZE + 4);
+                itemType = library.g_type_register_static_simple(parent, "JgtkJavaListItem", classSize, null, instanceSize, null, 0);
+                modelType = library.g_type_register_static_simple(parent, "JgtkJavaListModel", classSize, null, instanceSize, null, 0);
+                interfaceInfo = new Memory(3L * Native.POINTER_SIZE);
+                interfaceInfo.clear();
+                interfaceInfo.setPointer(0, CallbackReference.getFunctionPointer(initListModel));
+                library.g_type_add_interface_static(modelType, library.g_list_model_get_type(), interfaceInfo);
+            } else {
+                itemType = library.g_type_from_name("JgtkJavaListItem");
+            }
+        }
+        return modelType;
+    }
+
+    private static long itemType() {
+        modelType();
+        return itemType;
+    }
+
+    /**
+     * Finds the Java element behind an item of any JavaListModel
+     *
+     * @param item An item handed out by a JavaListModel, e.g. GtkListItem's item
+     * @return The element, if item belongs to a live JavaListModel
+     */
+    public static Option<Object> lookup(Pointer item) {
+        JavaListModel<?> owner = item != null ? itemOwners.get(item) : null;
+        if (owner != null) {
+            return new Option<>(owner.itemValues.get(item));
+        }
+        return Option.NONE;
+    }
+
+    /**
+     * @param item An item of this model, e.g. GtkListItem's item
+     * @return The element behind item
+     */
+    public Option<T> getItem(GObject item) {
+        if (item != null) {
+            return getItem(item.getCReference());
+        }
+        return Option.NONE;
+    }
+
+    /**
+     * @param item Pointer to an item of this model
+     * @return The element behind item
+     */
+    public Option<T> getItem(Pointer item) {
+        if (item != null) {
+            T value = itemValues.get(item);
+            if (value != null) {
+                return new Option<>(value);
+            }
+        }
+        return Option.NONE;
+    }
+
+    /**
+     * Like {@link #getItem(Pointer)}, without allocating; for hot paths such as binding rows
+     *
+     * @param item Pointer to an item of this model
+     * @return The element behind item, or NULL
+     */
+    public T getItemValue(Pointer item) {
+        return item != null ? itemValues.get(item) : null;
+    }
+
+    /**
+     * @param position Index of the element
+     * @return The element at position
+     */
+    public T get(int position) {
+        return items.get(position);
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * @return Read-only view of the elements
+     */
+    public List<T> asList() {
+        return Collections.unmodifiableList(items);
+    }
+
+    public void add(T item) {
+        splice(items.size(), 0, Collections.singletonList(item));
+    }
+
+    public void add(int position, T item) {
+        splice(position, 0, Collections.singletonList(item));
+    }
+
+    public void addAll(Collection<? extends T> toAdd) {
+        splice(items.size(), 0, toAdd);
+    }
+
+    public void set(int position, T item) {
+        splice(position, 1, Collections.singletonList(item));
+    }
+
+    public void remove(int position) {
+        splice(position, 1, Collections.emptyList());
+    }
+
+    public void clear() {
+        splice(0, items.size(), Collections.emptyList());
+    }
+
+    /**
+     * Removes removeCount elements at position and inserts toAdd in their place
+     *
+     * @param position    Where to start
+     * @param removeCount Number of elements to remove
+     * @param toAdd       Elements to insert. The argument can be NULL.
+     */
+    public void splice(int position, int removeCount, Collection<? extends T> toAdd) {
+        AssertionUtils.assertTrue(JavaListModel.class, "splice: range [" + position + ", +" + removeCount + ") outside [0, " + items.size() + ")",
+                position >= 0 && removeCount >= 0 && position + removeCount <= items.size());
+        int added = toAdd != null ? toAdd.size() : 0;
+        if (removeCount == 0 && added == 0) {
+            return;
+        }
+        List<T> removed = items.subList(position, position + removeCount);
+        removed.clear();
+        if (added > 0) {
+            for (T item : toAdd) {
+                AssertionUtils.assertNotNull(JavaListModel.class, "splice: null element", item);
+            }
+            items.addAll(position, toAdd);
+        }
+        recordChange(position, removeCount, added);
+    }
+
+    /**
+     * Runs edits, emitting a single "items-changed" covering all of them once the outermost batch ends
+     *
+     * @param edits Mutations of this model
+     */
+    public void batch(Runnable edits) {
+        batchDepth++;
+        try {
+            edits.run();
+        } finally {
+            batchDepth--;
+            if (batchDepth == 0) {
+                flushChange();
+            }
+        }
+    }
+
+    /**
+     * Tells views that the backing list changed outside this model: removed elements at position were replaced by
+     * added elements. Within {@link #batch(Runnable)}, merged into the batch's emission.
+     *
+     * @param position Where the change starts
+     * @param removed  Number of elements removed
+     * @param added    Number of elements added
+     */
+    public void itemsChanged(int position, int removed, int added) {
+        AssertionUtils.assertTrue(JavaListModel.class, "itemsChanged: invalid change", position >= 0 && removed >= 0 && added >= 0);
+        if (removed > 0 || added > 0) {
+            recordChange(position, removed, added);
+        }
+    }
+
+    private void recordChange(int position, int removed, int added) {
+        if (changeStart < 0) {
+            changeStart = position;
+            changeRemoved = removed;
+            changeAdded = added;
+        } else {
+            // Merge with the pending change: take the union of both ranges in current coordinates
+            int start = Math.min(changeStart, position);
+            int end = Math.max(changeStart + changeAdded, position + removed);
+            int span = end - start;
+            changeRemoved = changeRemoved + span - changeAdded;
+            changeAdded = span - removed + added;
+            changeStart = start;
+        }
+        if (batchDepth == 0) {
+            flushChange();
+        }
+    }
+
+    private void flushChange() {
+        if (changeStart >= 0) {
+            int start = changeStart;
+            int removed = changeRemoved;
+            int added = changeAdded;
+            changeStart = -1;
+            changeRemoved = 0;
+            changeAdded = 0;
+            library.g_list_model_items_changed(getCReference(), start, removed, added);
+        }
+    }
+
+    private Pointer itemAt(int position) {
+        if (position < 0 || position >= items.size()) {
+            return null;
+        }
+        T value = items.get(position);
+        Pointer item = itemPointers.get(value);
+        if (item != null) {
+            return library.g_object_ref(item);
+        }
+        item = library.g_object_new_with_properties(itemType(), 0, null, null);
+        itemPointers.put(value, item);
+        itemValues.put(item, value);
+        itemOwners.put(item, this);
+        library.g_object_weak_ref(item, itemFinalized, Pointer.NULL);
+        return item;
+    }
+
+    private void forget(Pointer item) {
+        T value = itemValues.remove(item);
+        if (value != null) {
+            itemPointers.remove(value);
+        }
+    }
+
+    protected static class JavaListModelLibrary extends GtkLibrary {
+        static {
+            Native.register("gtk-4");
+        }
+
+        public native long g_list_model_get_type();
+
+        public native void g_list_model_items_changed(Pointer list, int position, int removed, int added);
+
+        public native long g_object_get_type();
+
+        public native Pointer g_object_new_with_properties(long objectType, int nProperties, Pointer names, Pointer values);
+
+        public native void g_type_add_interface_static(long instanceType, long interfaceType, Pointer info);
+
+        public native long g_type_from_name(String name);
+
+        public native void g_type_query(long type, Pointer query);
+
+        public native long g_type_register_static_simple(long parentType, String typeName, int classSize, Pointer classInit, int instanceSize, Pointer instanceInit, int flags);
+    }
+}
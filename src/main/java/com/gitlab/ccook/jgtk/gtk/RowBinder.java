@@ -0,0 +1,66 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+/**
+ * Binds items of a list model to row widgets through a Java view holder, see {@link RowBinderFactory}.
+ * <p>
+ * A holder is created once per row widget and reused for every item the row widget shows.
+ *
+ * @param <T> Item type
+ * @param <V> View holder type, typically a small class keeping the row's widgets
+ */
+public interface RowBinder<T, V> {
+    /**
+     * Creates the widgets of a row. Called once per row widget.
+     *
+     * @param listItem The list item; set its child here
+     * @return The holder handed to later calls for this row widget
+     */
+    V setup(GtkListItem listItem);
+
+    /**
+     * Shows item in the row widget
+     *
+     * @param holder   Holder returned by setup
+     * @param item     The item to show; NULL if the model's items are not known to the factory's item mapper
+     * @param position Position of item in the model
+     */
+    void bind(V holder, T item, int position);
+
+    /**
+     * Undoes bind, e.g. disconnects what bind connected
+     *
+     * @param holder Holder returned by setup
+     * @param item   The item that was shown
+     */
+    default void unbind(V holder, T item) {
+    }
+
+    /**
+     * Undoes setup. The row widget is not used again after this.
+     *
+     * @param holder Holder returned by setup
+     */
+    default void teardown(V holder) {
+    }
+}
@@ -0,0 +1,127 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.jgtk.callbacks.ListItemFactoryCallback;
+import com.gitlab.ccook.util.AssertionUtils;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A GtkSignalListItemFactory driven by a {@link RowBinder}.
+ * <p>
+ * On setup the binder creates a view holder, which is kept in a side table keyed by the list item pointer. bind and
+ * unbind look the holder up and hand it to the binder with the item, decoded by the item mapper, and its position -
+ * no GtkListItem, child or item wrappers are created per bound row.
+ * <p>
+ * Keep a reference to the factory for as long as views use it.
+ *
+ * @param <T> Item type
+ * @param <V> View holder type
+ */
+public class RowBinderFactory<T, V> extends GtkSignalListItemFactory {
+    private static final RowBinderFactoryLibrary library = new RowBinderFactoryLibrary();
+    private final RowBinder<T, V> binder;
+    private final Function<Pointer, ? extends T> itemMapper;
+    private final Map<Pointer, V> holders = new HashMap<>();
+    private final ListItemFactoryCallback onSetup = (factory, listItem, userData) -> setup(listItem);
+    private final ListItemFactoryCallback onBind = (factory, listItem, userData) -> bind(listItem);
+    private final ListItemFactoryCallback onUnbind = (factory, listItem, userData) -> unbind(listItem);
+    private final ListItemFactoryCallback onTeardown = (factory, listItem, userData) -> teardown(listItem);
+
+    /**
+     * @param binder     Creates and fills row widgets
+     * @param itemMapper Maps a model item pointer to the item handed to the binder; should not allocate, e.g.
+     *                   {@code model::getItemValue} of a JavaListModel
+     */
+    public RowBinderFactory(RowBinder<T, V> binder, Function<Pointer, ? extends T> itemMapper) {
+        AssertionUtils.assertNotNull(RowBinderFactory.class, "ctor: binder is null", binder);
+        AssertionUtils.assertNotNull(RowBinderFactory.class, "ctor: itemMapper is null", itemMapper);
+        this.binder = binder;
+        this.itemMapper = itemMapper;
+        library.g_signal_connect_data(getCReference(), Signals.SETUP.getDetailedName(), onSetup, Pointer.NULL, Pointer.NULL, 0);
+        library.g_signal_connect_data(getCReference(), Signals.BIND.getDetailedName(), onBind, Pointer.NULL, Pointer.NULL, 0);
+        library.g_signal_connect_data(getCReference(), Signals.UNBIND.getDetailedName(), onUnbind, Pointer.NULL, Pointer.NULL, 0);
+        library.g_signal_connect_data(getCReference(), Signals.TEAR_DOWN.getDetailedName(), onTeardown, Pointer.NULL, Pointer.NULL, 0);
+    }
+
+    /**
+     * Binds rows of a JavaListModel to their elements
+     *
+     * @param model  Model whose items the factory's rows show
+     * @param binder Creates and fills row widgets
+     * @param <T>    Element type
+     * @param <V>    View holder type
+     * @return A new factory
+     */
+    public static <T, V> RowBinderFactory<T, V> forModel(JavaListModel<T> model, RowBinder<T, V> binder) {
+        AssertionUtils.assertNotNull(RowBinderFactory.class, "forModel: model is null", model);
+        return new RowBinderFactory<>(binder, model::getItemValue);
+    }
+
+    /**
+     * @return Number of row widgets currently set up
+     */
+    public int getRowWidgetCount() {
+        return holders.size();
+    }
+
+    private void setup(Pointer listItem) {
+        holders.put(listItem, binder.setup(new GtkListItem(listItem)));
+    }
+
+    private void bind(Pointer listItem) {
+        V holder = holders.get(listItem);
+        if (holder != null) {
+            T item = itemMapper.apply(library.gtk_list_item_get_item(listItem));
+            binder.bind(holder, item, library.gtk_list_item_get_position(listItem));
+        }
+    }
+
+    private void unbind(Pointer listItem) {
+        V holder = holders.get(listItem);
+        if (holder != null) {
+            binder.unbind(holder, itemMapper.apply(library.gtk_list_item_get_item(listItem)));
+        }
+    }
+
+    private void teardown(Pointer listItem) {
+        V holder = holders.remove(listItem);
+        if (holder != null) {
+            binder.teardown(holder);
+        }
+    }
+
+    protected static class RowBinderFactoryLibrary extends GtkSignalListItemFactoryLibrary {
+        static {
+            Native.register("gtk-4");
+        }
+
+        public native Pointer gtk_list_item_get_item(Pointer self);
+
+        public native int gtk_list_item_get_position(Pointer self);
+    }
+}
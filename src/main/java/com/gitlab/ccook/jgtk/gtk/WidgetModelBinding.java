@@ -0,0 +1,197 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.jgtk.GtkWidget;
+import com.gitlab.ccook.jgtk.callbacks.GDestroyNotify;
+import com.gitlab.ccook.jgtk.callbacks.GObjectNotifyCallback;
+import com.gitlab.ccook.jgtk.callbacks.GtkFlowBoxCreateWidgetFunc;
+import com.gitlab.ccook.jgtk.callbacks.GtkListBoxCreateWidgetFunc;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.util.AssertionUtils;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A model binding of a GtkListBox or GtkFlowBox made from Java functions, see GtkListBox.bindModel(JavaListModel,
+ * Function) and GtkFlowBox.bindModel(JavaListModel, Function).
+ * <p>
+ * The binding keeps its callbacks reachable until GTK destroys the binding (the box is rebound or finalized) and every
+ * widget it created is gone. It holds a reference on each widget it created; when the box releases a widget (its row
+ * was removed on "items-changed"), the widget is either kept in a pool, if recycling is enabled, or unreferenced.
+ * Pooled widgets are keyed by the Java class of the item they were created for, and are handed out again for new
+ * items of that class after being refreshed by the update callback, instead of building a new widget tree.
+ * <p>
+ * Must be used on the main thread.
+ *
+ * @param <T> Item type
+ */
+public class WidgetModelBinding<T> {
+    private static final WidgetModelBindingLibrary library = new WidgetModelBindingLibrary();
+    // G_SIGNAL_MATCH_FUNC
+    private static final int MATCH_FUNC = 1 << 3;
+    // Bindings GTK may still call into
+    private static final Set<WidgetModelBinding<?>> active = new HashSet<>();
+    final GtkListBoxCreateWidgetFunc listBoxCreate = (item, userData) -> create(item);
+    final GtkFlowBoxCreateWidgetFunc flowBoxCreate = (item, userData) -> create(item);
+    final GDestroyNotify destroy = data -> unbind();
+    private final GObjectNotifyCallback parentChanged = (object, paramSpec, userData) -> parentChanged(object);
+    private final Function<Pointer, ? extends T> itemMapper;
+    private final Function<? super T, ? extends GtkWidget> createWidget;
+    private final Map<Pointer, Class<?>> widgetTypes = new HashMap<>();
+    private final Map<Pointer, GtkWidget> widgets = new HashMap<>();
+    private final Map<Class<?>, ArrayDeque<GtkWidget>> pools = new HashMap<>();
+    private BiConsumer<? super T, ? super GtkWidget> update;
+    private int maxPooledPerType = 0;
+    private boolean bound = true;
+
+    WidgetModelBinding(Function<Pointer, ? extends T> itemMapper, Function<? super T, ? extends GtkWidget> createWidget) {
+        AssertionUtils.assertNotNull(WidgetModelBinding.class, "ctor: itemMapper is null", itemMapper);
+        AssertionUtils.assertNotNull(WidgetModelBinding.class, "ctor: createWidget is null", createWidget);
+        this.itemMapper = itemMapper;
+        this.createWidget = createWidget;
+        active.add(this);
+    }
+
+    /**
+     * Keeps released widgets for reuse
+     *
+     * @param update           Refreshes a pooled widget to show another item of the same class
+     * @param maxPooledPerType Maximum number of idle widgets kept per item class
+     * @return this
+     */
+    public WidgetModelBinding<T> recycle(BiConsumer<? super T, ? super GtkWidget> update, int maxPooledPerType) {
+        AssertionUtils.assertNotNull(WidgetModelBinding.class, "recycle: update is null", update);
+        AssertionUtils.assertTrue(WidgetModelBinding.class, "recycle: maxPooledPerType must not be negative", maxPooledPerType >= 0);
+        this.update = update;
+        this.maxPooledPerType = maxPooledPerType;
+        return this;
+    }
+
+    /**
+     * @return Number of idle widgets waiting for reuse
+     */
+    public int getPooledCount() {
+        int count = 0;
+        for (ArrayDeque<GtkWidget> pool : pools.values()) {
+            count += pool.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return Whether the box still uses this binding
+     */
+    public boolean isBound() {
+        return bound;
+    }
+
+    private Pointer create(Pointer itemPointer) {
+        T item = itemMapper.apply(itemPointer);
+        Class<?> type = item != null ? item.getClass() : Void.class;
+        GtkWidget widget = null;
+        ArrayDeque<GtkWidget> pool = pools.get(type);
+        if (update != null && pool != null) {
+            widget = pool.poll();
+            if (widget != null) {
+                update.accept(item, widget);
+            }
+        }
+        if (widget == null) {
+            widget = createWidget.apply(item);
+            AssertionUtils.assertNotNull(WidgetModelBinding.class, "createWidget returned null", widget);
+            Pointer p = widget.getCReference();
+            if (!widgets.containsKey(p)) {
+                // Our own reference, so the widget survives removal from the box
+                library.g_object_ref_sink(p);
+                widgets.put(p, widget);
+                widgetTypes.put(p, type);
+                library.g_signal_connect_data(p, "notify::parent", parentChanged, Pointer.NULL, Pointer.NULL, 0);
+            }
+        }
+        // create_widget_func returns a full reference
+        return library.g_object_ref(widget.getCReference());
+    }
+
+    private void parentChanged(Pointer widget) {
+        if (library.gtk_widget_get_parent(widget) != null) {
+            return;
+        }
+        GtkWidget released = widgets.get(widget);
+        if (released == null) {
+            return;
+        }
+        if (bound && update != null) {
+            ArrayDeque<GtkWidget> pool = pools.computeIfAbsent(widgetTypes.get(widget), t -> new ArrayDeque<>());
+            if (pool.size() < maxPooledPerType) {
+                pool.add(released);
+                return;
+            }
+        }
+        release(widget);
+    }
+
+    private void release(Pointer widget) {
+        widgets.remove(widget);
+        widgetTypes.remove(widget);
+        library.g_signal_handlers_disconnect_matched(widget, MATCH_FUNC, 0, 0, Pointer.NULL, parentChanged, Pointer.NULL);
+        library.g_object_unref(widget);
+        if (!bound && widgets.isEmpty()) {
+            active.remove(this);
+        }
+    }
+
+    private void unbind() {
+        bound = false;
+        List<GtkWidget> idle = new ArrayList<>();
+        for (ArrayDeque<GtkWidget> pool : pools.values()) {
+            idle.addAll(pool);
+        }
+        pools.clear();
+        for (GtkWidget widget : idle) {
+            release(widget.getCReference());
+        }
+        if (widgets.isEmpty()) {
+            active.remove(this);
+        }
+    }
+
+    protected static class WidgetModelBindingLibrary extends GtkLibrary {
+        static {
+            Native.register("gtk-4");
+        }
+
+        public native Pointer g_object_ref_sink(Pointer object);
+
+        public native Pointer gtk_widget_get_parent(Pointer widget);
+    }
+}
@@ -0,0 +1,494 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.jgtk.GtkMultiSelection;
+import com.gitlab.ccook.jgtk.callbacks.ListItemFactoryCallback;
+import com.gitlab.ccook.jgtk.gtk.GtkColumnView;
+import com.gitlab.ccook.jgtk.gtk.GtkColumnViewColumn;
+import com.gitlab.ccook.jgtk.gtk.GtkSignalListItemFactory;
+import com.gitlab.ccook.jgtk.gtk.JavaListModel;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.util.AssertionUtils;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleFunction;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongFunction;
+
+/**
+ * A table of a fixed number of rows shown in a GtkColumnView, with its data held in off-heap columns.
+ * <p>
+ * Numeric columns live in direct DoubleBuffers / LongBuffers, string columns are dictionary-encoded into a direct
+ * IntBuffer, so a row costs its column widths plus 4 bytes of ordering, and no Java object per row or cell. The view's
+ * model is a {@link JavaListModel} over the row order with one stable item per row index, so a row keeps its item
+ * wherever sorting moves it. Cells are GtkLabels that are only formatted when GTK binds them to a visible row, and each
+ * column keeps a small cache of recently formatted cells.
+ * <p>
+ * Sorting computes a permutation of row indices; the column data never moves. After changing data, call
+ * {@link #refresh()} so bound cells are formatted again.
+ * <p>
+ * Must be used on the main thread.
+ */
+public class DataGrid {
+    private static final DataGridLibrary library = new DataGridLibrary();
+    private static final int FORMAT_CACHE_SIZE = 1024;
+    private final int rowCount;
+    private final JavaListModel<Integer> rows;
+    private final GtkMultiSelection selection;
+    private final GtkColumnView view;
+    private final List<Column> columns = new ArrayList<>();
+    // order[position] is the row shown at position
+    private int[] order;
+
+    /**
+     * @param rowCount Number of rows
+     */
+    public DataGrid(int rowCount) {
+        AssertionUtils.assertTrue(DataGrid.class, "ctor: rowCount must not be negative", rowCount >= 0);
+        this.rowCount = rowCount;
+        this.order = identity(rowCount);
+        this.rows = JavaListModel.wrapByValue(new AbstractList<Integer>() {
+            @Override
+            public Integer get(int position) {
+                return order[position];
+            }
+
+            @Override
+            public int size() {
+                return DataGrid.this.rowCount;
+            }
+        });
+        this.selection = new GtkMultiSelection(rows);
+        this.view = new GtkColumnView(selection);
+    }
+
+    private static int[] identity(int n) {
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = i;
+        }
+        return a;
+    }
+
+    /**
+     * Sorts a with cmp, keeping the relative order of equal elements
+     */
+    static void sortStable(int[] a, IntBinaryOperator cmp) {
+        int n = a.length;
+        int[] src = a;
+        int[] dst = new int[n];
+        for (int width = 1; width < n; width <<= 1) {
+            for (int lo = 0; lo < n; lo += width << 1) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + (width << 1), n);
+                int i = lo;
+                int j = mid;
+                int k = lo;
+                while (i < mid && j < hi) {
+                    dst[k++] = cmp.applyAsInt(src[j], src[i]) < 0 ? src[j++] : src[i++];
+                }
+                while (i < mid) {
+                    dst[k++] = src[i++];
+                }
+                while (j < hi) {
+                    dst[k++] = src[j++];
+                }
+            }
+            int[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
+        }
+    }
+
+    /**
+     * @return The widget showing the grid
+     */
+    public GtkColumnView getView() {
+        return view;
+    }
+
+    /**
+     * @return The selection model of the view; positions are view positions, see {@link #getRow(int)}
+     */
+    public GtkMultiSelection getSelection() {
+        return selection;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @param position Position in the view
+     * @return The row shown at position
+     */
+    public int getRow(int position) {
+        return order[position];
+    }
+
+    /**
+     * @return The columns, in the order they were added
+     */
+    public List<Column> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * Adds a column of doubles, initially 0
+     *
+     * @param title     Column header
+     * @param formatter Formats a value for display; NULL for Double.toString
+     * @return The new column
+     */
+    public DoubleColumn addDoubleColumn(String title, DoubleFunction<String> formatter) {
+        return add(new DoubleColumn(title, formatter));
+    }
+
+    /**
+     * Adds a column of longs, initially 0
+     *
+     * @param title     Column header
+     * @param formatter Formats a value for display; NULL for Long.toString
+     * @return The new column
+     */
+    public LongColumn addLongColumn(String title, LongFunction<String> formatter) {
+        return add(new LongColumn(title, formatter));
+    }
+
+    /**
+     * Adds a dictionary-encoded column of strings, initially NULL (shown empty)
+     *
+     * @param title Column header
+     * @return The new column
+     */
+    public StringColumn addStringColumn(String title) {
+        return add(new StringColumn(title));
+    }
+
+    private <C extends Column> C add(C column) {
+        columns.add(column);
+        view.appendColumn(column.viewColumn);
+        return column;
+    }
+
+    /**
+     * Orders rows by column. Rows that compare equal keep their current relative order.
+     *
+     * @param column    Column of this grid
+     * @param ascending FALSE for descending order
+     */
+    public void sortBy(Column column, boolean ascending) {
+        AssertionUtils.assertTrue(DataGrid.class, "sortBy: column is not part of this grid", column != null && columns.contains(column));
+        IntBinaryOperator cmp = column.comparator();
+        int[] sorted = order.clone();
+        sortStable(sorted, ascending ? cmp : (a, b) -> cmp.applyAsInt(b, a));
+        order = sorted;
+        rows.itemsChanged(0, rowCount, rowCount);
+    }
+
+    /**
+     * Shows rows in their natural order again
+     */
+    public void unsort() {
+        order = identity(rowCount);
+        rows.itemsChanged(0, rowCount, rowCount);
+    }
+
+    /**
+     * Drops formatted cells and formats the bound cells again, after column data changed
+     */
+    public void refresh() {
+        for (Column column : columns) {
+            column.formatted.clear();
+            for (Map.Entry<Pointer, Integer> cell : column.bound.entrySet()) {
+                library.gtk_label_set_text(cell.getKey(), column.text(cell.getValue()));
+            }
+        }
+    }
+
+    /**
+     * A column of the grid
+     */
+    public abstract class Column {
+        final GtkColumnViewColumn viewColumn;
+        final Map<Integer, String> formatted = new LinkedHashMap<Integer, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+                return size() > FORMAT_CACHE_SIZE;
+            }
+        };
+        // Label of each bound cell and the row it shows
+        final Map<Pointer, Integer> bound = new HashMap<>();
+        private final GtkSignalListItemFactory factory = new GtkSignalListItemFactory();
+        private final ListItemFactoryCallback setup;
+        private final ListItemFactoryCallback bind = (f, listItem, userData) -> {
+            Integer row = rows.getItemValue(library.gtk_list_item_get_item(listItem));
+            Pointer label = library.gtk_list_item_get_child(listItem);
+            if (label != null && row != null) {
+                library.gtk_label_set_text(label, text(row));
+                bound.put(label, row);
+            }
+        };
+        private final ListItemFactoryCallback unbind = (f, listItem, userData) -> {
+            Pointer label = library.gtk_list_item_get_child(listItem);
+            if (label != null) {
+                bound.remove(label);
+            }
+        };
+
+        Column(String title, float xAlign) {
+            this.setup = (f, listItem, userData) -> {
+                Pointer label = library.gtk_label_new("");
+                library.gtk_label_set_xalign(label, xAlign);
+                library.gtk_list_item_set_child(listItem, label);
+            };
+            library.g_signal_connect_data(factory.getCReference(), "setup", setup, Pointer.NULL, Pointer.NULL, 0);
+            library.g_signal_connect_data(factory.getCReference(), "bind", bind, Pointer.NULL, Pointer.NULL, 0);
+            library.g_signal_connect_data(factory.getCReference(), "unbind", unbind, Pointer.NULL, Pointer.NULL, 0);
+            this.viewColumn = new GtkColumnViewColumn(title, factory);
+            viewColumn.shouldResize(true);
+        }
+
+        /**
+         * @return The GtkColumnViewColumn showing this column, e.g. to set its width
+         */
+        public GtkColumnViewColumn getViewColumn() {
+            return viewColumn;
+        }
+
+        /**
+         * @return Text of a bound cell showing row, or NULL if no cell shows it
+         */
+        String getShownText(int row) {
+            for (Map.Entry<Pointer, Integer> cell : bound.entrySet()) {
+                if (cell.getValue() == row) {
+                    return library.gtk_label_get_text(cell.getKey());
+                }
+            }
+            return null;
+        }
+
+        String text(int row) {
+            String text = formatted.get(row);
+            if (text == null) {
+                text = format(row);
+                formatted.put(row, text);
+            }
+            return text;
+        }
+
+        abstract String format(int row);
+
+        abstract IntBinaryOperator comparator();
+    }
+
+    public class DoubleColumn extends Column {
+        private final DoubleBuffer data = ByteBuffer.allocateDirect(rowCount * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        private final DoubleFunction<String> formatter;
+
+        DoubleColumn(String title, DoubleFunction<String> formatter) {
+            super(title, 1f);
+            this.formatter = formatter != null ? formatter : Double::toString;
+        }
+
+        public double get(int row) {
+            return data.get(row);
+        }
+
+        public void set(int row, double value) {
+            data.put(row, value);
+            formatted.remove(row);
+        }
+
+        /**
+         * @param fromRow First row to write
+         * @param values  Values of consecutive rows
+         */
+        public void set(int fromRow, double[] values) {
+            DoubleBuffer target = data.duplicate();
+            target.position(fromRow);
+            target.put(values);
+            formatted.clear();
+        }
+
+        @Override
+        String format(int row) {
+            return formatter.apply(data.get(row));
+        }
+
+        @Override
+        IntBinaryOperator comparator() {
+            return (a, b) -> Double.compare(data.get(a), data.get(b));
+        }
+    }
+
+    public class LongColumn extends Column {
+        private final LongBuffer data = ByteBuffer.allocateDirect(rowCount * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        private final LongFunction<String> formatter;
+
+        LongColumn(String title, LongFunction<String> formatter) {
+            super(title, 1f);
+            this.formatter = formatter != null ? formatter : Long::toString;
+        }
+
+        public long get(int row) {
+            return data.get(row);
+        }
+
+        public void set(int row, long value) {
+            data.put(row, value);
+            formatted.remove(row);
+        }
+
+        /**
+         * @param fromRow First row to write
+         * @param values  Values of consecutive rows
+         */
+        public void set(int fromRow, long[] values) {
+            LongBuffer target = data.duplicate();
+            target.position(fromRow);
+            target.put(values);
+            formatted.clear();
+        }
+
+        @Override
+        String format(int row) {
+            return formatter.apply(data.get(row));
+        }
+
+        @Override
+        IntBinaryOperator comparator() {
+            return (a, b) -> Long.compare(data.get(a), data.get(b));
+        }
+    }
+
+    /**
+     * Strings stored as 4-byte codes into a dictionary of distinct values
+     */
+    public class StringColumn extends Column {
+        private final IntBuffer codes = ByteBuffer.allocateDirect(rowCount * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        private final List<String> dictionary = new ArrayList<>();
+        private final Map<String, Integer> codeOf = new HashMap<>();
+
+        StringColumn(String title) {
+            super(title, 0f);
+            for (int i = 0; i < rowCount; i++) {
+                codes.put(i, -1);
+            }
+        }
+
+        public String get(int row) {
+            int code = codes.get(row);
+            return code >= 0 ? dictionary.get(code) : null;
+        }
+
+        public void set(int row, String value) {
+            int code = -1;
+            if (value != null) {
+                Integer known = codeOf.get(value);
+                if (known == null) {
+                    known = dictionary.size();
+                    dictionary.add(value);
+                    codeOf.put(value, known);
+                }
+                code = known;
+            }
+            codes.put(row, code);
+        }
+
+        /**
+         * @return Number of distinct strings stored
+         */
+        public int getDictionarySize() {
+            return dictionary.size();
+        }
+
+        @Override
+        String text(int row) {
+            // Dictionary lookup is already cheap, no need to cache
+            String value = get(row);
+            return value != null ? value : "";
+        }
+
+        @Override
+        String format(int row) {
+            return text(row);
+        }
+
+        @Override
+        IntBinaryOperator comparator() {
+            // Rank dictionary entries once, then compare ranks; NULL sorts first
+            Integer[] byValue = new Integer[dictionary.size()];
+            for (int i = 0; i < byValue.length; i++) {
+                byValue[i] = i;
+            }
+            Arrays.sort(byValue, (a, b) -> dictionary.get(a).compareTo(dictionary.get(b)));
+            int[] rank = new int[byValue.length];
+            for (int r = 0; r < byValue.length; r++) {
+                rank[byValue[r]] = r;
+            }
+            return (a, b) -> {
+                int ca = codes.get(a);
+                int cb = codes.get(b);
+                return Integer.compare(ca >= 0 ? rank[ca] : -1, cb >= 0 ? rank[cb] : -1);
+            };
+        }
+    }
+
+    protected static class DataGridLibrary extends GtkLibrary {
+        static {
+            Native.register("gtk-4");
+        }
+
+        public native Pointer gtk_label_new(String str);
+
+        public native void gtk_label_set_text(Pointer self, String str);
+
+        public native void gtk_label_set_xalign(Pointer self, float xalign);
+
+        public native String gtk_label_get_text(Pointer self);
+
+        public native Pointer gtk_list_item_get_child(Pointer self);
+
+        public native Pointer gtk_list_item_get_item(Pointer self);
+
+        public native void gtk_list_item_set_child(Pointer self, Pointer child);
+    }
+}
@@ -0,0 +1,303 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.jgtk.GtkWidget;
+import com.gitlab.ccook.jgtk.callbacks.GSourceFunc;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.util.Option;
+import com.sun.jna.Pointer;
+
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * Runs long main-thread jobs (filling a big list, loading a large text buffer, ...) cooperatively, a slice at a time.
+ * <p>
+ * Each idle dispatch runs work units until the slice budget is used up: the frame interval reported by the widget's
+ * GdkFrameClock (16.6ms when unknown) minus a reserve left for layout and rendering. Input and redraws are
+ * processed between slices, so the window stays responsive while the work is spread over several frames.
+ * <p>
+ * Tasks with a lower priority value run first (like GLib priorities); tasks of equal priority run in submission
+ * order. All callbacks run on the main thread.
+ */
+public class FrameBudgetScheduler {
+    public static final int PRIORITY_HIGH = -100;
+    public static final int PRIORITY_DEFAULT = 0;
+    public static final int PRIORITY_LOW = 100;
+    /**
+     * Default render reserve, in microseconds
+     */
+    public static final long DEFAULT_RENDER_RESERVE = 4_000;
+    private static final long DEFAULT_REFRESH_INTERVAL = 16_667;
+    private static final long MIN_SLICE = 1_000;
+    protected final static GtkLibrary library = new GtkLibrary();
+
+    private final PriorityQueue<Handle> tasks = new PriorityQueue<>();
+    private final GtkWidget clockSource;
+    private final long renderReserve;
+    private final long[] refreshInterval = new long[1];
+    private long sequence = 0;
+    private boolean running = false;
+    // Held for the lifetime of the scheduler, GLib keeps calling it
+    private final GSourceFunc slice = userData -> runSlice();
+
+    /**
+     * A scheduler using a 16.6ms frame and the default render reserve
+     */
+    public FrameBudgetScheduler() {
+        this(null, DEFAULT_RENDER_RESERVE);
+    }
+
+    /**
+     * @param clockSource   Widget whose frame clock determines the frame interval. The argument can be NULL.
+     * @param renderReserve Microseconds of each frame to leave for rendering
+     */
+    public FrameBudgetScheduler(GtkWidget clockSource, long renderReserve) {
+        this.clockSource = clockSource;
+        this.renderReserve = Math.max(0, renderReserve);
+    }
+
+    /**
+     * Schedules a sequence of work units
+     *
+     * @param units    The work units, pulled lazily one at a time
+     * @param priority Lower values run first
+     * @return Handle to the task
+     */
+    public Handle submit(Iterator<? extends Runnable> units, int priority) {
+        return submit(units, priority, -1, null);
+    }
+
+    /**
+     * Schedules a sequence of work units
+     *
+     * @param units      The work units, pulled lazily one at a time. An empty iterator gives a handle that is already done.
+     * @param priority   Lower values run first
+     * @param totalUnits Number of units, for progress reporting, or -1 if unknown
+     * @param listener   Called after every slice in which the task made progress. The argument can be NULL.
+     * @return Handle to the task
+     */
+    public Handle submit(Iterator<? extends Runnable> units, int priority, long totalUnits, ProgressListener listener) {
+        if (units == null || !units.hasNext()) {
+            // Nothing to run, so no unit is counted
+            return submit((Task) null, priority, totalUnits, listener);
+        }
+        return submit(() -> {
+            units.next().run();
+            return units.hasNext();
+        }, priority, totalUnits, listener);
+    }
+
+    /**
+     * Schedules a resumable task
+     *
+     * @param task       The task
+     * @param priority   Lower values run first
+     * @param totalUnits Number of units, for progress reporting, or -1 if unknown
+     * @param listener   Called after every slice in which the task made progress. The argument can be NULL.
+     * @return Handle to the task
+     */
+    public Handle submit(Task task, int priority, long totalUnits, ProgressListener listener) {
+        Handle h = new Handle(task, priority, totalUnits, listener);
+        synchronized (tasks) {
+            h.sequence = sequence++;
+            if (task == null) {
+                h.done = true;
+                return h;
+            }
+            tasks.add(h);
+            if (!running) {
+                running = true;
+                library.g_idle_add_full(MainThreadExecutor.G_PRIORITY_DEFAULT_IDLE, slice, Pointer.NULL, null);
+            }
+        }
+        return h;
+    }
+
+    /**
+     * @return The current slice budget in microseconds
+     */
+    public long getSliceBudget() {
+        long interval = DEFAULT_REFRESH_INTERVAL;
+        if (clockSource != null) {
+            Pointer clock = library.gtk_widget_get_frame_clock(clockSource.getCReference());
+            if (clock != null) {
+                library.gdk_frame_clock_get_refresh_info(clock, library.gdk_frame_clock_get_frame_time(clock), refreshInterval, null);
+                if (refreshInterval[0] > 0) {
+                    interval = refreshInterval[0];
+                }
+            }
+        }
+        return Math.max(MIN_SLICE, interval - renderReserve);
+    }
+
+    /**
+     * @return The number of tasks not yet finished or cancelled
+     */
+    public int size() {
+        synchronized (tasks) {
+            return tasks.size();
+        }
+    }
+
+    private boolean runSlice() {
+        long deadline = System.nanoTime() + getSliceBudget() * 1_000;
+        Handle current = null;
+        long before = 0;
+        while (true) {
+            Handle next;
+            synchronized (tasks) {
+                next = tasks.peek();
+                if (next == null) {
+                    running = false;
+                }
+            }
+            if (next == null) {
+                report(current, before);
+                return false;
+            }
+            if (next != current) {
+                report(current, before);
+                current = next;
+                before = current.completed;
+            }
+            if (current.cancelled) {
+                remove(current);
+            } else {
+                boolean more;
+                try {
+                    more = current.task.runUnit();
+                    current.completed++;
+                } catch (Throwable t) {
+                    current.error = t;
+                    more = false;
+                }
+                if (!more) {
+                    current.done = true;
+                    remove(current);
+                }
+            }
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+        report(current, before);
+        synchronized (tasks) {
+            running = !tasks.isEmpty();
+            return running;
+        }
+    }
+
+    private void remove(Handle h) {
+        synchronized (tasks) {
+            tasks.remove(h);
+        }
+    }
+
+    private void report(Handle h, long before) {
+        if (h != null && h.listener != null && (h.completed != before || h.isDone() || h.isCancelled())) {
+            h.listener.onProgress(h, h.completed, h.totalUnits);
+        }
+    }
+
+    /**
+     * A unit of resumable work
+     */
+    public interface Task {
+        /**
+         * Runs one (small) unit of work
+         *
+         * @return true if there is more work to do
+         */
+        boolean runUnit();
+    }
+
+    public interface ProgressListener {
+        /**
+         * Called after each slice in which the task made progress, and once more when it finishes, fails or is
+         * removed after being cancelled.
+         *
+         * @param handle     The task's handle; check isDone()/isCancelled()/getError() for completion
+         * @param completed  Number of units completed so far
+         * @param totalUnits Total number of units, or -1 if unknown
+         */
+        void onProgress(Handle handle, long completed, long totalUnits);
+    }
+
+    /**
+     * Handle to a submitted task
+     */
+    public static class Handle implements Comparable<Handle> {
+        private final Task task;
+        private final int priority;
+        private final long totalUnits;
+        private final ProgressListener listener;
+        private long sequence;
+        private volatile long completed = 0;
+        private volatile boolean cancelled = false;
+        private volatile boolean done = false;
+        private volatile Throwable error;
+
+        private Handle(Task task, int priority, long totalUnits, ProgressListener listener) {
+            this.task = task;
+            this.priority = priority;
+            this.totalUnits = totalUnits;
+            this.listener = listener;
+        }
+
+        /**
+         * Stops the task before its next unit. Units already run are not undone.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return true if the task ran to completion (or failed)
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        public long getCompletedUnits() {
+            return completed;
+        }
+
+        /**
+         * @return The exception thrown by a unit, if the task failed
+         */
+        public Option<Throwable> getError() {
+            return new Option<>(error);
+        }
+
+        @Override
+        public int compareTo(Handle o) {
+            int c = Integer.compare(priority, o.priority);
+            return c != 0 ? c : Long.compare(sequence, o.sequence);
+        }
+    }
+}
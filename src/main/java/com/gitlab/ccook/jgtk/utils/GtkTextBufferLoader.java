@@ -0,0 +1,190 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.jgtk.GtkTextIter;
+import com.gitlab.ccook.jgtk.gtk.GtkTextBuffer;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.jna.NativeArena;
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams a (possibly huge) UTF-8 file into a GtkTextBuffer without materializing it as a Java String.
+ * <p>
+ * The file is memory-mapped in windows and appended at the end of the buffer one chunk per work unit of a
+ * {@link FrameBudgetScheduler}, so the view stays scrollable while loading. Chunks are cut on UTF-8 sequence
+ * boundaries and validated with g_utf8_validate(); invalid bytes (including NUL) are replaced with U+FFFD. Chunks are
+ * inserted as irreversible actions, so loading does not fill the undo stack.
+ */
+public class GtkTextBufferLoader implements FrameBudgetScheduler.Task {
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    private static final Memory REPLACEMENT_CHARACTER = new Memory(3);
+    protected final static GtkLibrary library = new GtkLibrary();
+
+    static {
+        REPLACEMENT_CHARACTER.write(0, new byte[]{(byte) 0xEF, (byte) 0xBF, (byte) 0xBD}, 0, 3);
+    }
+
+    private final GtkTextBuffer buffer;
+    private final FileChannel channel;
+    private final long size;
+    private final int chunkSize;
+    private long position = 0;
+    private long windowStart = 0;
+    private MappedByteBuffer window;
+
+    private GtkTextBufferLoader(GtkTextBuffer buffer, FileChannel channel, int chunkSize) throws IOException {
+        this.buffer = buffer;
+        this.channel = channel;
+        this.size = channel.size();
+        this.chunkSize = (int) Math.min(Math.max(4, chunkSize), WINDOW_SIZE);
+    }
+
+    /**
+     * Appends file to the end of buffer, a chunk at a time
+     *
+     * @param buffer    The buffer to load into
+     * @param file      A UTF-8 text file
+     * @param scheduler The scheduler the chunks are inserted from
+     * @param listener  Progress, in chunks, is reported here. The argument can be NULL.
+     * @return Handle to the load, cancel it to stop loading
+     * @throws IOException if file cannot be opened
+     */
+    public static FrameBudgetScheduler.Handle load(GtkTextBuffer buffer, File file, FrameBudgetScheduler scheduler, FrameBudgetScheduler.ProgressListener listener) throws IOException {
+        return load(buffer, file, DEFAULT_CHUNK_SIZE, FrameBudgetScheduler.PRIORITY_DEFAULT, scheduler, listener);
+    }
+
+    /**
+     * Appends file to the end of buffer, a chunk at a time
+     *
+     * @param buffer    The buffer to load into
+     * @param file      A UTF-8 text file
+     * @param chunkSize Bytes inserted per work unit
+     * @param priority  Scheduler priority of the load
+     * @param scheduler The scheduler the chunks are inserted from
+     * @param listener  Progress, in chunks, is reported here. The argument can be NULL.
+     * @return Handle to the load, cancel it to stop loading
+     * @throws IOException if file cannot be opened
+     */
+    public static FrameBudgetScheduler.Handle load(GtkTextBuffer buffer, File file, int chunkSize, int priority, FrameBudgetScheduler scheduler, FrameBudgetScheduler.ProgressListener listener) throws IOException {
+        if (buffer == null || file == null || scheduler == null) {
+            throw new IllegalArgumentException("buffer, file and scheduler must not be null");
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        GtkTextBufferLoader loader;
+        try {
+            loader = new GtkTextBufferLoader(buffer, channel, chunkSize);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        long chunks = Math.max(1, (loader.size + loader.chunkSize - 1) / loader.chunkSize);
+        return scheduler.submit(loader, priority, chunks, (handle, completed, total) -> {
+            if (handle.isDone() || handle.isCancelled()) {
+                loader.close();
+            }
+            if (listener != null) {
+                listener.onProgress(handle, completed, total);
+            }
+        });
+    }
+
+    @Override
+    public boolean runUnit() {
+        if (position < size) {
+            int len = (int) Math.min(chunkSize, size - position);
+            // map one byte past the chunk so the boundary check can look at the next chunk's first byte
+            Pointer chunk = map((int) Math.min(len + 1L, size - position));
+            if (position + len < size) {
+                len = cutAtBoundary(chunk, len);
+            }
+            try (NativeArena.Scope scope = NativeArena.open()) {
+                GtkTextIter end = buffer.getEndIterator(scope);
+                Pointer invalid = scope.allocatePointer();
+                buffer.beginIrreversibleAction();
+                try {
+                    if (!library.g_utf8_validate(chunk, len, invalid)) {
+                        // insert the valid prefix, replace the offending byte and pick up after it next unit
+                        len = (int) (Pointer.nativeValue(invalid.getPointer(0)) - Pointer.nativeValue(chunk));
+                        if (len > 0) {
+                            buffer.insertText(chunk, len, end);
+                        }
+                        buffer.insertText(REPLACEMENT_CHARACTER, 3, end);
+                        len++;
+                    } else {
+                        buffer.insertText(chunk, len, end);
+                    }
+                } finally {
+                    buffer.endIrreversibleAction();
+                }
+            }
+            position += len;
+        }
+        return position < size;
+    }
+
+    /**
+     * @return Number of bytes of the file loaded so far
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    private Pointer map(int len) {
+        if (window == null || position + len > windowStart + window.capacity()) {
+            try {
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, size - windowStart));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return Native.getDirectBufferPointer(window).share(position - windowStart);
+    }
+
+    private static int cutAtBoundary(Pointer chunk, int len) {
+        // Back off over at most 3 continuation bytes so a multibyte sequence is never split between chunks
+        int cut = len;
+        while (cut > 0 && len - cut < 3 && (chunk.getByte(cut) & 0xC0) == 0x80) {
+            cut--;
+        }
+        return cut > 0 ? cut : len;
+    }
+
+    private void close() {
+        window = null;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
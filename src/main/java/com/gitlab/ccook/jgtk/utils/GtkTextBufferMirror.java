@@ -0,0 +1,154 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.jgtk.GtkTextIter;
+import com.gitlab.ccook.jgtk.callbacks.DeleteRangeCallback;
+import com.gitlab.ccook.jgtk.callbacks.InsertTextCallback;
+import com.gitlab.ccook.jgtk.gtk.GtkTextBuffer;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.util.AssertionUtils;
+import com.gitlab.ccook.util.Option;
+import com.gitlab.ccook.util.Pair;
+import com.sun.jna.Pointer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps a {@link TextRope} copy of a GtkTextBuffer's content in sync with the buffer, so reads, searches and analysis
+ * do not have to cross into native code.
+ * <p>
+ * The mirror follows "insert-text" and "delete-range", so it reflects the buffer including hidden text. It is updated
+ * on the main thread; {@link #snapshot()} hands out the current rope, which is immutable and may be read from any
+ * thread while the buffer keeps changing.
+ */
+public class GtkTextBufferMirror {
+    // G_SIGNAL_MATCH_FUNC
+    private static final int MATCH_FUNC = 1 << 3;
+    protected final static GtkLibrary library = new GtkLibrary();
+    private final GtkTextBuffer buffer;
+    private final InsertTextCallback onInsert = (buf, location, text, len, userData) -> inserted(location, text, len);
+    private final DeleteRangeCallback onDelete = (buf, start, end, userData) -> deleted(start, end);
+    private volatile TextRope rope;
+    private boolean detached = false;
+
+    /**
+     * Copies buffer's content and starts following its edits. Must be called on the main thread.
+     *
+     * @param buffer The buffer to mirror
+     */
+    public GtkTextBufferMirror(GtkTextBuffer buffer) {
+        AssertionUtils.assertNotNull(GtkTextBufferMirror.class, "ctor: buffer is null", buffer);
+        this.buffer = buffer;
+        resync();
+        library.g_signal_connect_data(buffer.getCReference(), GtkTextBuffer.Signals.INSERT_TEXT.getDetailedName(), onInsert, Pointer.NULL, Pointer.NULL, 0);
+        library.g_signal_connect_data(buffer.getCReference(), GtkTextBuffer.Signals.DELETE_RANGE.getDetailedName(), onDelete, Pointer.NULL, Pointer.NULL, 0);
+    }
+
+    /**
+     * Re-reads the whole buffer, e.g. after the mirror was detached for a while
+     */
+    public void resync() {
+        GtkTextIter.Pool pool = GtkTextIter.Pool.get();
+        GtkTextIter start = pool.acquire();
+        GtkTextIter end = pool.acquire();
+        try {
+            Option<String> text = buffer.getText(buffer.getStartIterator(start), buffer.getEndIterator(end), true);
+            rope = TextRope.of(text.isDefined() ? text.get() : "");
+        } finally {
+            pool.release(end);
+            pool.release(start);
+        }
+    }
+
+    /**
+     * Stops following edits and disconnects from the buffer. The last snapshot stays readable.
+     */
+    public void detach() {
+        if (detached) {
+            return;
+        }
+        detached = true;
+        library.g_signal_handlers_disconnect_matched(buffer.getCReference(), MATCH_FUNC, 0, 0, Pointer.NULL, onInsert, Pointer.NULL);
+        library.g_signal_handlers_disconnect_matched(buffer.getCReference(), MATCH_FUNC, 0, 0, Pointer.NULL, onDelete, Pointer.NULL);
+    }
+
+    private void inserted(Pointer location, Pointer text, int len) {
+        if (text != null && len != 0) {
+            String inserted = len < 0 ? text.getString(0, StandardCharsets.UTF_8.name()) : new String(text.getByteArray(0, len), StandardCharsets.UTF_8);
+            rope = rope.insert(new GtkTextIter(location).getCharacterOffset(), inserted);
+        }
+    }
+
+    private void deleted(Pointer start, Pointer end) {
+        rope = rope.delete(new GtkTextIter(start).getCharacterOffset(), new GtkTextIter(end).getCharacterOffset());
+    }
+
+    /**
+     * @return The current content; immutable and safe to read from any thread
+     */
+    public TextRope snapshot() {
+        return rope;
+    }
+
+    /**
+     * @return Whether the mirror and the buffer agree on the number of characters and lines
+     */
+    public boolean isInSync() {
+        TextRope current = rope;
+        return current.getCharacterCount() == buffer.getCharacterCount() && current.getLineCount() == buffer.getLineCount();
+    }
+
+    /**
+     * @param characterOffset Character offset from the start of the buffer
+     * @return Line the character is on, counting from 0
+     */
+    public int getLineAtOffset(int characterOffset) {
+        return rope.getLineAtOffset(characterOffset);
+    }
+
+    /**
+     * @param line Line number counting from 0
+     * @return Character offset of the start of line
+     */
+    public int getLineStartOffset(int line) {
+        return rope.getLineStartOffset(line);
+    }
+
+    /**
+     * Searches the mirrored text, creating iterators only for the matches. Must be called on the main thread.
+     *
+     * @param pattern The pattern to look for
+     * @return Start and end iterator of each match
+     */
+    public List<Pair<GtkTextIter, GtkTextIter>> search(Pattern pattern) {
+        int[] offsets = rope.findAll(pattern);
+        List<Pair<GtkTextIter, GtkTextIter>> matches = new ArrayList<>(offsets.length / 2);
+        for (int i = 0; i + 1 < offsets.length; i += 2) {
+            matches.add(new Pair<>(buffer.getIteratorAtCharacterOffset(offsets[i]), buffer.getIteratorAtCharacterOffset(offsets[i + 1])));
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,503 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.jgtk.GtkTextIter;
+import com.gitlab.ccook.jgtk.GtkTextTag;
+import com.gitlab.ccook.jgtk.callbacks.DeleteRangeCallback;
+import com.gitlab.ccook.jgtk.callbacks.InsertTextCallback;
+import com.gitlab.ccook.jgtk.gtk.GtkTextBuffer;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.util.AssertionUtils;
+import com.gitlab.ccook.util.Option;
+import com.sun.jna.Pointer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the highlighting of a GtkTextBuffer up to date by re-lexing only the lines touched by an edit.
+ * <p>
+ * The tokenizer listens to "insert-text" and "delete-range" and tracks, per line, the lexer state at the start of the
+ * line plus a dirty-line set. Once the main loop is idle, the text from the first dirty line onwards is copied and
+ * lexed on a worker thread. Lexing stops as soon as a clean line is reached whose start state did not change. The
+ * resulting tokens are posted back through {@link MainThreadExecutor} and applied with
+ * {@link GtkTextBuffer#applyTagRanges(GtkTextTag[], int[], int[], int[], int, int, int)}. A result is discarded if the
+ * buffer was edited while it was being computed; the affected lines simply stay dirty for the next pass.
+ * <p>
+ * Lexer states are compared with equals() and must be immutable, since they are handed between threads.
+ * <p>
+ * If the lexer throws, the error is passed to the error listener (logged by default) and the pass is retried after a
+ * short back-off, up to {@link #MAX_RETRIES} times. After that the lines stay dirty until the next edit or
+ * {@link #invalidateAll()}.
+ *
+ * @param <S> Lexer state carried from one line to the next
+ */
+public class IncrementalTokenizer<S> {
+    public static final int DEFAULT_MAX_LINES_PER_PASS = 2000;
+    /**
+     * Number of times a pass whose lexer threw is retried before giving up until the next edit
+     */
+    public static final int MAX_RETRIES = 3;
+    private static final long FIRST_RETRY_DELAY = 100;
+    // G_SIGNAL_MATCH_FUNC
+    private static final int MATCH_FUNC = 1 << 3;
+    protected final static GtkLibrary library = new GtkLibrary();
+    private static final Logger log = LoggerFactory.getLogger(IncrementalTokenizer.class);
+    private static final ExecutorService DEFAULT_WORKERS = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "jgtk-tokenizer");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final ScheduledExecutorService RETRY_TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "jgtk-tokenizer-retry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final GtkTextBuffer buffer;
+    private final Lexer<S> lexer;
+    private final GtkTextTag[] palette;
+    private final ExecutorService workers;
+    private final int maxLinesPerPass;
+    private final AtomicLong generation = new AtomicLong();
+    private final InsertTextCallback onInsertText = (buf, location, text, len, userData) -> onInsert(new GtkTextIter(location).getLineNumber(), countLineBreaks(text, len));
+    private final DeleteRangeCallback onDeleteRange = (buf, start, end, userData) -> onDelete(new GtkTextIter(start).getLineNumber(), new GtkTextIter(end).getLineNumber());
+    // Main-thread state: start state of each line (null = unknown) and the lines needing a re-lex
+    private final List<S> lineStates = new ArrayList<>();
+    private final BitSet dirty = new BitSet();
+    private boolean passScheduled = false;
+    private boolean passInFlight = false;
+    private boolean attached = false;
+    private int failures = 0;
+    private Consumer<? super RuntimeException> errorListener = e -> log.warn("Lexer failed, the affected lines stay dirty", e);
+
+    /**
+     * Creates a tokenizer lexing on a shared pool of daemon threads. Pass an ExecutorService to the other
+     * constructor to lex elsewhere, e.g. on virtual threads where the runtime has them.
+     *
+     * @param buffer  The buffer to highlight
+     * @param lexer   The lexer producing tokens
+     * @param palette Tags indexed by the tag index of each token
+     */
+    public IncrementalTokenizer(GtkTextBuffer buffer, Lexer<S> lexer, GtkTextTag... palette) {
+        this(buffer, lexer, DEFAULT_WORKERS, DEFAULT_MAX_LINES_PER_PASS, palette);
+    }
+
+    /**
+     * @param buffer          The buffer to highlight
+     * @param lexer           The lexer producing tokens
+     * @param workers         Where lexing passes run
+     * @param maxLinesPerPass Upper bound of lines copied and lexed per pass
+     * @param palette         Tags indexed by the tag index of each token
+     */
+    public IncrementalTokenizer(GtkTextBuffer buffer, Lexer<S> lexer, ExecutorService workers, int maxLinesPerPass, GtkTextTag... palette) {
+        AssertionUtils.assertNotNull(IncrementalTokenizer.class, "ctor: buffer is null", buffer);
+        AssertionUtils.assertNotNull(IncrementalTokenizer.class, "ctor: lexer is null", lexer);
+        AssertionUtils.assertNotNull(IncrementalTokenizer.class, "ctor: workers is null", workers);
+        this.buffer = buffer;
+        this.lexer = lexer;
+        this.workers = workers;
+        this.maxLinesPerPass = Math.max(1, maxLinesPerPass);
+        this.palette = palette != null ? palette.clone() : new GtkTextTag[0];
+    }
+
+    /**
+     * Starts tracking edits and schedules lexing of the whole buffer. Must be called on the main thread, and not
+     * again until {@link #detach()}.
+     *
+     * @return this
+     */
+    public IncrementalTokenizer<S> attach() {
+        AssertionUtils.assertTrue(IncrementalTokenizer.class, "attach: already attached", !attached);
+        attached = true;
+        library.g_signal_connect_data(buffer.getCReference(), GtkTextBuffer.Signals.INSERT_TEXT.getDetailedName(), onInsertText, Pointer.NULL, Pointer.NULL, 0);
+        library.g_signal_connect_data(buffer.getCReference(), GtkTextBuffer.Signals.DELETE_RANGE.getDetailedName(), onDeleteRange, Pointer.NULL, Pointer.NULL, 0);
+        invalidateAll();
+        return this;
+    }
+
+    /**
+     * Stops tracking edits and disconnects from the buffer. Pending results are discarded and existing tags are left
+     * in place.
+     */
+    public void detach() {
+        if (!attached) {
+            return;
+        }
+        attached = false;
+        generation.incrementAndGet();
+        library.g_signal_handlers_disconnect_matched(buffer.getCReference(), MATCH_FUNC, 0, 0, Pointer.NULL, onInsertText, Pointer.NULL);
+        library.g_signal_handlers_disconnect_matched(buffer.getCReference(), MATCH_FUNC, 0, 0, Pointer.NULL, onDeleteRange, Pointer.NULL);
+    }
+
+    /**
+     * Marks every line dirty, e.g. after the lexer's configuration changed
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        lineStates.clear();
+        int lines = Math.max(1, buffer.getLineCount());
+        lineStates.addAll(Collections.nCopies(lines, (S) null));
+        lineStates.set(0, lexer.getInitialState());
+        dirty.clear();
+        dirty.set(0, lines);
+        failures = 0;
+        requestPass();
+    }
+
+    /**
+     * @param errorListener Called on the main thread when the lexer throws. The argument can be NULL to ignore errors.
+     */
+    public void setErrorListener(Consumer<? super RuntimeException> errorListener) {
+        this.errorListener = errorListener;
+    }
+
+    /**
+     * @return Number of lines waiting to be re-lexed
+     */
+    public int getDirtyLineCount() {
+        return dirty.cardinality();
+    }
+
+    private void onInsert(int line, int insertedLines) {
+        generation.incrementAndGet();
+        failures = 0;
+        if (insertedLines > 0) {
+            shiftDirty(line + 1, insertedLines);
+            lineStates.addAll(Math.min(line + 1, lineStates.size()), Collections.nCopies(insertedLines, (S) null));
+        }
+        dirty.set(line, line + insertedLines + 1);
+        requestPass();
+    }
+
+    private void onDelete(int startLine, int endLine) {
+        generation.incrementAndGet();
+        failures = 0;
+        int first = Math.min(startLine, endLine);
+        int last = Math.max(startLine, endLine);
+        if (last > first) {
+            shiftDirty(last + 1, first - last);
+            lineStates.subList(Math.min(first + 1, lineStates.size()), Math.min(last + 1, lineStates.size())).clear();
+        }
+        dirty.set(first);
+        requestPass();
+    }
+
+    private void shiftDirty(int from, int by) {
+        BitSet tail = dirty.get(from, Math.max(from, dirty.length()));
+        dirty.clear(Math.max(0, from + Math.min(0, by)), Math.max(from, dirty.length()));
+        for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+            dirty.set(from + by + i);
+        }
+    }
+
+    private void requestPass() {
+        if (!passScheduled && !passInFlight && attached) {
+            passScheduled = true;
+            MainThreadExecutor.getDefault().execute(this::startPass);
+        }
+    }
+
+    private void startPass() {
+        passScheduled = false;
+        int lineCount = Math.max(1, buffer.getLineCount());
+        if (!attached || dirty.isEmpty()) {
+            return;
+        }
+        if (lineStates.size() != lineCount) {
+            // Line break bookkeeping drifted (e.g. a \r\n pair was split or joined): re-lex from the first dirty line
+            int firstDirty = Math.min(dirty.nextSetBit(0), lineCount - 1);
+            while (lineStates.size() < lineCount) {
+                lineStates.add(null);
+            }
+            lineStates.subList(lineCount, lineStates.size()).clear();
+            dirty.clear(lineCount, Math.max(lineCount, dirty.length()));
+            dirty.set(Math.max(0, firstDirty), lineCount);
+        }
+        int firstLine = dirty.nextSetBit(0);
+        if (firstLine >= lineCount) {
+            dirty.clear();
+            return;
+        }
+        int endLine = Math.min(lineCount, firstLine + maxLinesPerPass);
+        S startState = firstLine == 0 ? lexer.getInitialState() : lineStates.get(firstLine);
+        if (startState == null) {
+            // The start state of the first dirty line is derived from the line above, which must then be re-lexed
+            int known = firstLine;
+            while (known > 0 && lineStates.get(known) == null) {
+                known--;
+            }
+            dirty.set(known, firstLine);
+            firstLine = known;
+            startState = firstLine == 0 ? lexer.getInitialState() : lineStates.get(firstLine);
+            endLine = Math.min(lineCount, firstLine + maxLinesPerPass);
+        }
+
+        GtkTextIter.Pool pool = GtkTextIter.Pool.get();
+        GtkTextIter start = pool.acquire();
+        GtkTextIter end = pool.acquire();
+        String text;
+        int startOffset;
+        try {
+            buffer.getIteratorAtLine(start, firstLine);
+            if (endLine >= lineCount) {
+                buffer.getEndIterator(end);
+            } else {
+                buffer.getIteratorAtLine(end, endLine);
+            }
+            startOffset = start.getCharacterOffset();
+            Option<String> slice = buffer.getText(start, end, true);
+            text = slice.isDefined() ? slice.get() : "";
+        } finally {
+            pool.release(end);
+            pool.release(start);
+        }
+
+        Object[] knownStates = new Object[endLine - firstLine + 1];
+        for (int i = firstLine + 1; i < endLine; i++) {
+            knownStates[i - firstLine] = lineStates.get(i);
+        }
+        Pass<S> pass = new Pass<>(generation.get(), firstLine, startOffset, startState, text, dirty.get(firstLine, endLine), knownStates, endLine >= lineCount);
+        passInFlight = true;
+        try {
+            workers.execute(() -> {
+                runPass(pass);
+                MainThreadExecutor.getDefault().execute(() -> finishPass(pass));
+            });
+        } catch (RuntimeException e) {
+            passInFlight = false;
+            throw e;
+        }
+    }
+
+    private void runPass(Pass<S> pass) {
+        try {
+            TokenCollector tokens = pass.tokens;
+            String text = pass.text;
+            S state = pass.startState;
+            int position = 0;
+            int offset = pass.startOffset;
+            int line = 0;
+            while (generation.get() == pass.generation && (position < text.length() || pass.reachesEnd)) {
+                int lineEnd = position;
+                while (lineEnd < text.length() && !isLineBreak(text.charAt(lineEnd))) {
+                    lineEnd++;
+                }
+                int breakLength = lineEnd >= text.length() ? 0 : (text.charAt(lineEnd) == '\r' && lineEnd + 1 < text.length() && text.charAt(lineEnd + 1) == '\n') ? 2 : 1;
+                CharSequence lineText = text.subSequence(position, lineEnd);
+                tokens.begin(lineText, offset);
+                state = lexer.lexLine(lineText, state, tokens);
+                offset += Character.codePointCount(text, position, lineEnd) + breakLength;
+                position = lineEnd + breakLength;
+                line++;
+                pass.newStates.add(state);
+                pass.endOffset = offset;
+                if (breakLength == 0) {
+                    break;
+                }
+                if (!pass.dirtyLines.get(line) && line < pass.knownStates.length - 1 && Objects.equals(state, pass.knownStates[line])) {
+                    pass.converged = true;
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            pass.error = e;
+        }
+    }
+
+    private void finishPass(Pass<S> pass) {
+        passInFlight = false;
+        if (pass.error != null) {
+            onPassFailed(pass);
+            return;
+        }
+        failures = 0;
+        if (attached && generation.get() == pass.generation) {
+            int lexed = pass.newStates.size();
+            for (int i = 0; i < lexed; i++) {
+                int next = pass.firstLine + i + 1;
+                if (next < lineStates.size()) {
+                    lineStates.set(next, pass.newStates.get(i));
+                }
+            }
+            dirty.clear(pass.firstLine, pass.firstLine + lexed);
+            int following = pass.firstLine + lexed;
+            if (!pass.converged && following < lineStates.size()) {
+                dirty.set(following);
+            }
+            TokenCollector tokens = pass.tokens;
+            buffer.applyTagRanges(palette, tokens.starts, tokens.ends, tokens.tags, tokens.count, pass.startOffset, pass.endOffset);
+        }
+        requestPass();
+    }
+
+    private void onPassFailed(Pass<S> pass) {
+        if (!attached) {
+            return;
+        }
+        if (errorListener != null) {
+            errorListener.accept(pass.error);
+        }
+        if (generation.get() != pass.generation) {
+            // The buffer changed meanwhile, the next pass lexes different text anyway
+            requestPass();
+        } else if (failures < MAX_RETRIES) {
+            long delay = FIRST_RETRY_DELAY << (2 * failures);
+            failures++;
+            passScheduled = true;
+            RETRY_TIMER.schedule(() -> MainThreadExecutor.getDefault().execute(this::startPass), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static boolean isLineBreak(char c) {
+        return c == '\n' || c == '\r' || c == '\u2029';
+    }
+
+    private static int countLineBreaks(Pointer text, int len) {
+        if (text == null || len == 0) {
+            return 0;
+        }
+        String s = len < 0 ? text.getString(0, StandardCharsets.UTF_8.name()) : new String(text.getByteArray(0, len), StandardCharsets.UTF_8);
+        int breaks = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (isLineBreak(c)) {
+                breaks++;
+                if (c == '\r' && i + 1 < s.length() && s.charAt(i + 1) == '\n') {
+                    i++;
+                }
+            }
+        }
+        return breaks;
+    }
+
+    /**
+     * Lexes one line at a time, carrying state across line boundaries (e.g. "inside a block comment")
+     *
+     * @param <S> Lexer state, compared with equals() to detect when re-lexing can stop
+     */
+    public interface Lexer<S> {
+        /**
+         * @return State at the start of the buffer
+         */
+        S getInitialState();
+
+        /**
+         * Lexes a single line. Called on a worker thread.
+         *
+         * @param line  Text of the line, without its line break
+         * @param state State at the start of the line
+         * @param sink  Receives the tokens found on the line
+         * @return State at the start of the next line
+         */
+        S lexLine(CharSequence line, S state, TokenSink sink);
+    }
+
+    /**
+     * Receives the tokens of a line from a {@link Lexer}
+     */
+    public interface TokenSink {
+        /**
+         * @param start    Index of the first char of the token within the line
+         * @param end      Index one past the last char of the token within the line
+         * @param tagIndex Index of the tag to apply in the tokenizer's palette
+         */
+        void token(int start, int end, int tagIndex);
+    }
+
+    private static final class TokenCollector implements TokenSink {
+        private int[] starts = new int[256];
+        private int[] ends = new int[256];
+        private int[] tags = new int[256];
+        private int count = 0;
+        private CharSequence line;
+        private int lineOffset;
+        private boolean hasSurrogates;
+
+        private void begin(CharSequence line, int lineOffset) {
+            this.line = line;
+            this.lineOffset = lineOffset;
+            this.hasSurrogates = Character.codePointCount(line, 0, line.length()) != line.length();
+        }
+
+        @Override
+        public void token(int start, int end, int tagIndex) {
+            int from = Math.max(0, Math.min(start, line.length()));
+            int to = Math.max(from, Math.min(end, line.length()));
+            if (to == from) {
+                return;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                tags = Arrays.copyOf(tags, count * 2);
+            }
+            // GTK offsets count characters (code points), the lexer works in UTF-16 chars
+            starts[count] = lineOffset + (hasSurrogates ? Character.codePointCount(line, 0, from) : from);
+            ends[count] = lineOffset + (hasSurrogates ? Character.codePointCount(line, 0, to) : to);
+            tags[count] = tagIndex;
+            count++;
+        }
+    }
+
+    private static final class Pass<S> {
+        private final long generation;
+        private final int firstLine;
+        private final int startOffset;
+        private final S startState;
+        private final String text;
+        private final BitSet dirtyLines;
+        private final Object[] knownStates;
+        private final boolean reachesEnd;
+        private final List<S> newStates = new ArrayList<>();
+        private final TokenCollector tokens = new TokenCollector();
+        private int endOffset;
+        private boolean converged = false;
+        private RuntimeException error;
+
+        private Pass(long generation, int firstLine, int startOffset, S startState, String text, BitSet dirtyLines, Object[] knownStates, boolean reachesEnd) {
+            this.generation = generation;
+            this.firstLine = firstLine;
+            this.startOffset = startOffset;
+            this.startState = startState;
+            this.text = text;
+            this.dirtyLines = dirtyLines;
+            this.knownStates = knownStates;
+            this.reachesEnd = reachesEnd;
+            this.endOffset = startOffset;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.jgtk.callbacks.GSourceFunc;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.sun.jna.Pointer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs tasks on the thread owning the default GMainContext (the GTK main thread).
+ * <p>
+ * Tasks submitted from any thread are queued and drained together in a single idle dispatch, so a burst of
+ * submissions costs one main-loop wakeup instead of one per task.
+ */
+public class MainThreadExecutor implements Executor {
+    /**
+     * Use this for high priority idle functions.
+     */
+    public static final int G_PRIORITY_HIGH_IDLE = 100;
+    /**
+     * Use this for default priority idle functions.
+     */
+    public static final int G_PRIORITY_DEFAULT_IDLE = 200;
+    protected final static GtkLibrary library = new GtkLibrary();
+    private static final MainThreadExecutor DEFAULT = new MainThreadExecutor(G_PRIORITY_DEFAULT_IDLE);
+
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final int priority;
+    // Held for the lifetime of the executor, GLib keeps calling it
+    private final GSourceFunc drain = userData -> {
+        drain();
+        return false;
+    };
+
+    /**
+     * @param priority The GLib priority of the idle dispatch, e.g. G_PRIORITY_DEFAULT_IDLE
+     */
+    public MainThreadExecutor(int priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * @return The shared executor, dispatching at G_PRIORITY_DEFAULT_IDLE
+     */
+    public static MainThreadExecutor getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return true if the calling thread owns the default main context
+     */
+    public static boolean isMainThread() {
+        return library.g_main_context_is_owner(library.g_main_context_default());
+    }
+
+    /**
+     * Queues a task to run on the main thread. Safe to call from any thread.
+     *
+     * @param task The task to run
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (task != null) {
+            queue.add(task);
+            if (scheduled.compareAndSet(false, true)) {
+                library.g_idle_add_full(priority, drain, Pointer.NULL, null);
+            }
+        }
+    }
+
+    /**
+     * Runs task right away when called on the main thread, otherwise queues it
+     *
+     * @param task The task to run
+     */
+    public void executeOrRun(Runnable task) {
+        if (task != null) {
+            if (isMainThread()) {
+                task.run();
+            } else {
+                execute(task);
+            }
+        }
+    }
+
+    private void drain() {
+        // Anything queued after this point schedules its own dispatch
+        scheduled.set(false);
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                Thread.UncaughtExceptionHandler h = Thread.currentThread().getUncaughtExceptionHandler();
+                h.uncaughtException(Thread.currentThread(), t);
+            }
+        }
+    }
+}
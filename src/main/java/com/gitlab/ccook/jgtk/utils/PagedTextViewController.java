@@ -0,0 +1,424 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.jgtk.GtkAdjustment;
+import com.gitlab.ccook.jgtk.GtkTextIter;
+import com.gitlab.ccook.jgtk.GtkTextMark;
+import com.gitlab.ccook.jgtk.enums.GtkOrientation;
+import com.gitlab.ccook.jgtk.enums.GtkPolicyType;
+import com.gitlab.ccook.jgtk.gtk.GtkScrollBar;
+import com.gitlab.ccook.jgtk.gtk.GtkScrolledWindow;
+import com.gitlab.ccook.jgtk.gtk.GtkTextBuffer;
+import com.gitlab.ccook.jgtk.gtk.GtkTextView;
+import com.gitlab.ccook.jna.GCallbackFunction;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.util.AssertionUtils;
+import com.gitlab.ccook.util.Option;
+import com.gitlab.ccook.util.Pair;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Shows a file of any size in a GtkTextView by keeping only a window of its lines in the buffer.
+ * <p>
+ * A background thread builds a sparse index of the file, remembering the byte offset of every INDEX_STRIDE-th line.
+ * The window of lines in the buffer is memory-mapped and copied in on demand. When the view's vertical adjustment gets
+ * within a couple of pages of either end of the window, the window is moved so it is centered on the top visible line
+ * again. The view's own vertical scrollbar only covers the window, so the controller provides a separate scrollbar
+ * (see {@link #getScrollbar()}) whose adjustment spans every line in the file.
+ * <p>
+ * Lines are split on \n only. Bytes that are not valid UTF-8 are shown as U+FFFD. All methods must be called on the
+ * main thread.
+ */
+public class PagedTextViewController implements Closeable {
+    public static final int DEFAULT_WINDOW_LINES = 20000;
+    private static final int INDEX_STRIDE = 1024;
+    private static final long SCAN_WINDOW = 64L * 1024 * 1024;
+    private static final double EDGE_PAGES = 2;
+    // G_SIGNAL_MATCH_FUNC
+    private static final int MATCH_FUNC = 1 << 3;
+    private static final Logger log = LoggerFactory.getLogger(PagedTextViewController.class);
+    protected final static GtkLibrary library = new GtkLibrary();
+
+    private final GtkScrolledWindow scrolledWindow;
+    private final GtkTextView view;
+    private final GtkTextBuffer buffer;
+    private final FileChannel channel;
+    private final LineIndex index;
+    private final int windowLines;
+    private final GtkAdjustment viewAdjustment;
+    private final GtkAdjustment virtualAdjustment;
+    private final GtkScrollBar scrollbar;
+    private final GtkTextMark anchor;
+    // Connected directly, so GTK holds these very objects; they stay reachable until close() disconnects them
+    private final GCallbackFunction onViewScrolled = (adjustment, data) -> viewScrolled();
+    private final GCallbackFunction onVirtualScrolled = (adjustment, data) -> virtualScrolled();
+    private Pair<GtkPolicyType, GtkPolicyType> previousPolicy;
+    private long windowFirst = 0;
+    private int windowCount = 0;
+    private boolean updating = false;
+    private boolean recenterPending = false;
+    private volatile boolean closed = false;
+
+    private PagedTextViewController(GtkScrolledWindow scrolledWindow, GtkTextView view, FileChannel channel, int windowLines) throws IOException {
+        this.scrolledWindow = scrolledWindow;
+        this.view = view;
+        this.buffer = view.getBuffer();
+        this.channel = channel;
+        this.index = new LineIndex(channel.size());
+        this.windowLines = Math.max(INDEX_STRIDE, windowLines);
+        this.viewAdjustment = scrolledWindow.getVerticalAdjustment();
+        this.virtualAdjustment = new GtkAdjustment(0, 0, 0, 1, 10, 10);
+        this.scrollbar = new GtkScrollBar(GtkOrientation.GTK_ORIENTATION_VERTICAL, virtualAdjustment);
+        buffer.setText("");
+        this.anchor = buffer.createMark(null, buffer.getStartIterator(), true).get();
+    }
+
+    /**
+     * Starts paging file into view. The caller should pack {@link #getScrollbar()} next to scrolledWindow; the
+     * scrolled window's own vertical scrollbar is hidden.
+     *
+     * @param scrolledWindow The scrolled window view is the child of
+     * @param view           The text view to page into. Its buffer's content is replaced.
+     * @param file           The file to show
+     * @param windowLines    Number of lines kept in the buffer at a time
+     * @return The controller; close it to release the file
+     * @throws IOException if file cannot be opened
+     */
+    public static PagedTextViewController open(GtkScrolledWindow scrolledWindow, GtkTextView view, File file, int windowLines) throws IOException {
+        AssertionUtils.assertNotNull(PagedTextViewController.class, "open: scrolledWindow is null", scrolledWindow);
+        AssertionUtils.assertNotNull(PagedTextViewController.class, "open: view is null", view);
+        AssertionUtils.assertNotNull(PagedTextViewController.class, "open: file is null", file);
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        PagedTextViewController controller;
+        try {
+            controller = new PagedTextViewController(scrolledWindow, view, channel, windowLines);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        controller.start();
+        return controller;
+    }
+
+    /**
+     * @see #open(GtkScrolledWindow, GtkTextView, File, int)
+     */
+    public static PagedTextViewController open(GtkScrolledWindow scrolledWindow, GtkTextView view, File file) throws IOException {
+        return open(scrolledWindow, view, file, DEFAULT_WINDOW_LINES);
+    }
+
+    private void start() {
+        previousPolicy = scrolledWindow.getPolicy();
+        scrolledWindow.setPolicy(previousPolicy.getFirst(), GtkPolicyType.GTK_POLICY_EXTERNAL);
+        library.g_signal_connect_data(viewAdjustment.getCReference(), "value-changed", onViewScrolled, Pointer.NULL, Pointer.NULL, 0);
+        library.g_signal_connect_data(virtualAdjustment.getCReference(), "value-changed", onVirtualScrolled, Pointer.NULL, Pointer.NULL, 0);
+        Thread indexer = new Thread(this::buildIndex, "jgtk-line-index");
+        indexer.setDaemon(true);
+        indexer.start();
+    }
+
+    /**
+     * @return Scrollbar spanning all lines of the file
+     */
+    public GtkScrollBar getScrollbar() {
+        return scrollbar;
+    }
+
+    /**
+     * @return Number of lines indexed so far; the total once {@link #isIndexComplete()}
+     */
+    public long getLineCount() {
+        return index.getLineCount();
+    }
+
+    /**
+     * @return Whether the whole file has been indexed
+     */
+    public boolean isIndexComplete() {
+        return index.isComplete();
+    }
+
+    /**
+     * @return Line number in the file of the first line held by the buffer
+     */
+    public long getWindowFirstLine() {
+        return windowFirst;
+    }
+
+    /**
+     * @return Line number in the file of the line at the top of the view
+     */
+    public long getTopLine() {
+        Option<Pair<GtkTextIter, Integer>> top = view.getLineAtY((int) viewAdjustment.getValue());
+        return windowFirst + (top.isDefined() ? top.get().getFirst().getLineNumber() : 0);
+    }
+
+    /**
+     * Scrolls so line is at the top of the view, moving the window if needed
+     *
+     * @param line Line number in the file, counting from 0
+     */
+    public void scrollToLine(long line) {
+        long target = Math.max(0, Math.min(line, getLineCount() - 1));
+        long margin = windowLines / 4;
+        boolean inside = target >= windowFirst && target < windowFirst + windowCount;
+        boolean nearEdge = (target < windowFirst + margin && windowFirst > 0) || (target >= windowFirst + windowCount - margin && windowFirst + windowCount < getLineCount());
+        if (!inside || nearEdge) {
+            loadWindow(target - windowLines / 2);
+        }
+        GtkTextIter iter = GtkTextIter.Pool.get().acquire();
+        try {
+            buffer.getIteratorAtLine(iter, (int) Math.max(0, Math.min(target - windowFirst, Integer.MAX_VALUE)));
+            buffer.moveMark(anchor, iter);
+        } finally {
+            GtkTextIter.Pool.get().release(iter);
+        }
+        view.scrollToMark(anchor, 0, 0, 0);
+        syncVirtualAdjustment(target);
+    }
+
+    /**
+     * Disconnects from the view, gives the scrolled window its scrollbar policy back and releases the file. The
+     * buffer keeps the lines it holds.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        library.g_signal_handlers_disconnect_matched(viewAdjustment.getCReference(), MATCH_FUNC, 0, 0, Pointer.NULL, onViewScrolled, Pointer.NULL);
+        library.g_signal_handlers_disconnect_matched(virtualAdjustment.getCReference(), MATCH_FUNC, 0, 0, Pointer.NULL, onVirtualScrolled, Pointer.NULL);
+        scrolledWindow.setPolicy(previousPolicy.getFirst(), previousPolicy.getSecond());
+        channel.close();
+    }
+
+    private void viewScrolled() {
+        if (closed || updating) {
+            return;
+        }
+        long top = getTopLine();
+        syncVirtualAdjustment(top);
+        double value = viewAdjustment.getValue();
+        double page = viewAdjustment.getPageSize();
+        double margin = page * EDGE_PAGES;
+        boolean nearTop = value < margin && windowFirst > 0;
+        boolean nearBottom = value + page > viewAdjustment.getUpper() - margin && windowFirst + windowCount < getLineCount();
+        if ((nearTop || nearBottom) && !recenterPending) {
+            // Don't swap the buffer from inside the adjustment's own signal emission
+            recenterPending = true;
+            MainThreadExecutor.getDefault().execute(() -> {
+                recenterPending = false;
+                if (!closed) {
+                    scrollToLine(getTopLine());
+                }
+            });
+        }
+    }
+
+    private void virtualScrolled() {
+        if (closed || updating) {
+            return;
+        }
+        scrollToLine((long) virtualAdjustment.getValue());
+    }
+
+    private void syncVirtualAdjustment(long top) {
+        double linesPerPage = windowCount > 0 && viewAdjustment.getUpper() > 0
+                ? Math.max(1, viewAdjustment.getPageSize() * windowCount / viewAdjustment.getUpper()) : 10;
+        updating = true;
+        try {
+            virtualAdjustment.configure(top, 0, Math.max(getLineCount(), linesPerPage), 1, linesPerPage, linesPerPage);
+        } finally {
+            updating = false;
+        }
+    }
+
+    private void loadWindow(long first) {
+        long lineCount = getLineCount();
+        long start = Math.max(0, Math.min(first, lineCount - windowLines));
+        long end = Math.min(lineCount, start + windowLines);
+        try {
+            long startByte = index.offsetOfLine(channel, start);
+            long endByte = index.offsetOfLine(channel, end);
+            int length = (int) Math.min(endByte - startByte, Integer.MAX_VALUE - 1);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, startByte, length);
+            if (length > 0 && mapped.get(length - 1) == '\n') {
+                length--;
+            }
+            updating = true;
+            try {
+                if (library.g_utf8_validate(Native.getDirectBufferPointer(mapped), length, null)) {
+                    buffer.setText(mapped, length);
+                } else {
+                    byte[] bytes = new byte[length];
+                    mapped.get(bytes);
+                    buffer.setText(new String(bytes, StandardCharsets.UTF_8).replace('\0', '\uFFFD'));
+                }
+            } finally {
+                updating = false;
+            }
+            windowFirst = start;
+            windowCount = (int) (end - start);
+        } catch (IOException e) {
+            log.warn("Could not load lines {} to {}", start, end, e);
+        }
+    }
+
+    private void buildIndex() {
+        try {
+            long size = channel.size();
+            long position = 0;
+            while (position < size && !closed) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SCAN_WINDOW, size - position));
+                index.scan(window, position);
+                position += window.capacity();
+                boolean done = position >= size;
+                if (done) {
+                    index.complete(size > 0 && window.get(window.capacity() - 1) != '\n');
+                }
+                MainThreadExecutor.getDefault().execute(this::indexProgressed);
+            }
+            if (size == 0) {
+                index.complete(false);
+                MainThreadExecutor.getDefault().execute(this::indexProgressed);
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                log.warn("Could not index the file, paging stops at line {}", index.getLineCount(), e);
+            }
+        }
+    }
+
+    private void indexProgressed() {
+        if (closed) {
+            return;
+        }
+        if (windowCount < windowLines && windowFirst + windowCount < getLineCount()) {
+            // Still filling the first window
+            long top = windowCount > 0 ? getTopLine() : 0;
+            loadWindow(windowFirst);
+            syncVirtualAdjustment(top);
+        } else {
+            syncVirtualAdjustment((long) virtualAdjustment.getValue());
+        }
+    }
+
+    /**
+     * Byte offsets of every INDEX_STRIDE-th line; written by the indexing thread, read on the main thread
+     */
+    private static final class LineIndex {
+        private final long size;
+        private long[] entries = new long[]{0};
+        private int entryCount = 1;
+        private long newlines = 0;
+        private long scanned = 0;
+        private boolean complete = false;
+        private boolean unterminatedLastLine = false;
+
+        private LineIndex(long size) {
+            this.size = size;
+        }
+
+        private void scan(MappedByteBuffer window, long base) {
+            long count;
+            synchronized (this) {
+                count = newlines;
+            }
+            long[] found = new long[16];
+            int foundCount = 0;
+            int limit = window.capacity();
+            for (int i = 0; i < limit; i++) {
+                if (window.get(i) == '\n' && ++count % INDEX_STRIDE == 0) {
+                    if (foundCount == found.length) {
+                        found = Arrays.copyOf(found, foundCount * 2);
+                    }
+                    found[foundCount++] = base + i + 1;
+                }
+            }
+            synchronized (this) {
+                if (entryCount + foundCount > entries.length) {
+                    entries = Arrays.copyOf(entries, Math.max(entries.length * 2, entryCount + foundCount));
+                }
+                System.arraycopy(found, 0, entries, entryCount, foundCount);
+                entryCount += foundCount;
+                newlines = count;
+                scanned = base + limit;
+            }
+        }
+
+        private synchronized void complete(boolean unterminatedLastLine) {
+            this.complete = true;
+            this.unterminatedLastLine = unterminatedLastLine;
+        }
+
+        private synchronized boolean isComplete() {
+            return complete;
+        }
+
+        private synchronized long getLineCount() {
+            return newlines + (unterminatedLastLine ? 1 : 0);
+        }
+
+        private long offsetOfLine(FileChannel channel, long line) throws IOException {
+            long base;
+            long limit;
+            long skip;
+            synchronized (this) {
+                if (line > newlines) {
+                    return size;
+                }
+                int k = (int) (line / INDEX_STRIDE);
+                base = entries[k];
+                limit = k + 1 < entryCount ? entries[k + 1] : (complete ? size : scanned);
+                skip = line - (long) k * INDEX_STRIDE;
+            }
+            long position = base;
+            while (skip > 0 && position < limit) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SCAN_WINDOW, limit - position));
+                int capacity = window.capacity();
+                for (int i = 0; i < capacity; i++) {
+                    if (window.get(i) == '\n' && --skip == 0) {
+                        return position + i + 1;
+                    }
+                }
+                position += capacity;
+            }
+            return position;
+        }
+    }
+}
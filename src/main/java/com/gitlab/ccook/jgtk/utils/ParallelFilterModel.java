@@ -0,0 +1,323 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.jgtk.GtkBitset;
+import com.gitlab.ccook.jgtk.gtk.JavaListModel;
+import com.gitlab.ccook.util.AssertionUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Filters a Java list on a ForkJoinPool and shows the matches in a {@link JavaListModel}.
+ * <p>
+ * The source is copied into an immutable snapshot. Setting a filter evaluates the predicate over the snapshot in
+ * parallel, into a bitset with one bit per source element. The result is then applied on the main thread: the old and
+ * new bitsets are compared, and only the range between the first and the last differing element is spliced into the
+ * model, as a single "items-changed". Setting another filter (e.g. on each keystroke) makes evaluations in flight stop
+ * at their next word of 64 elements and never reach the model.
+ * <p>
+ * Predicates are called concurrently from pool threads and must not touch GTK. All other methods must be called on the
+ * main thread.
+ *
+ * @param <T> Element type
+ */
+public class ParallelFilterModel<T> {
+    // A leaf task owns up to LEAF_WORDS words, i.e. LEAF_WORDS * 64 = 4096 elements
+    private static final int LEAF_WORDS = 64;
+    private final ForkJoinPool pool;
+    private final JavaListModel<T> model;
+    private final AtomicLong generation = new AtomicLong();
+    private List<T> source;
+    private Predicate<? super T> predicate;
+    // Applied state: which elements of appliedSource are in the model
+    private List<T> appliedSource;
+    private long[] matches;
+    private long appliedGeneration = 0;
+
+    /**
+     * Starts unfiltered, using the common pool
+     *
+     * @param source Elements to filter; the collection is copied
+     */
+    public ParallelFilterModel(Collection<? extends T> source) {
+        this(source, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Starts unfiltered
+     *
+     * @param source Elements to filter; the collection is copied
+     * @param pool   Pool evaluating predicates
+     */
+    public ParallelFilterModel(Collection<? extends T> source, ForkJoinPool pool) {
+        AssertionUtils.assertNotNull(ParallelFilterModel.class, "ctor: source is null", source);
+        AssertionUtils.assertNotNull(ParallelFilterModel.class, "ctor: pool is null", pool);
+        this.pool = pool;
+        this.source = Collections.unmodifiableList(new ArrayList<>(source));
+        this.appliedSource = this.source;
+        this.matches = allOf(this.source.size());
+        this.model = new JavaListModel<>(this.source);
+    }
+
+    private static long[] allOf(int size) {
+        long[] words = new long[(size + 63) >>> 6];
+        Arrays.fill(words, -1L);
+        if ((size & 63) != 0) {
+            words[words.length - 1] = (1L << (size & 63)) - 1;
+        }
+        return words;
+    }
+
+    /**
+     * Counts set bits in [from, to)
+     */
+    static int count(long[] words, int from, int to) {
+        int count = 0;
+        for (int bit = from; bit < to; ) {
+            int w = bit >>> 6;
+            int end = Math.min(to, (w + 1) << 6);
+            long word = words[w] >>> (bit & 63);
+            if (end - bit < 64) {
+                word &= (1L << (end - bit)) - 1;
+            }
+            count += Long.bitCount(word);
+            bit = end;
+        }
+        return count;
+    }
+
+    /**
+     * @return The smallest range [first, last] of bits that differ between a and b (same length), or NULL if equal
+     */
+    static int[] differingRange(long[] a, long[] b) {
+        int lo = 0;
+        while (lo < a.length && a[lo] == b[lo]) {
+            lo++;
+        }
+        if (lo == a.length) {
+            return null;
+        }
+        int hi = a.length - 1;
+        while (a[hi] == b[hi]) {
+            hi--;
+        }
+        int first = (lo << 6) + Long.numberOfTrailingZeros(a[lo] ^ b[lo]);
+        int last = (hi << 6) + 63 - Long.numberOfLeadingZeros(a[hi] ^ b[hi]);
+        return new int[]{first, last};
+    }
+
+    /**
+     * @return The model holding the elements that match the current filter, in source order
+     */
+    public JavaListModel<T> getModel() {
+        return model;
+    }
+
+    /**
+     * @return The snapshot being filtered
+     */
+    public List<T> getSource() {
+        return source;
+    }
+
+    /**
+     * @return TRUE while an evaluation has not reached the model yet
+     */
+    public boolean isPending() {
+        return appliedGeneration != generation.get();
+    }
+
+    /**
+     * @return The source positions of the elements in the model
+     */
+    public GtkBitset getMatches() {
+        return GtkBitset.fromBitSet(BitSet.valueOf(matches));
+    }
+
+    /**
+     * Maps a model position back to the source
+     *
+     * @param position Position in the model
+     * @return Position of the same element in the source, or -1 if position is out of range
+     */
+    public int getSourcePosition(int position) {
+        if (position < 0) {
+            return -1;
+        }
+        int remaining = position;
+        for (int w = 0; w < matches.length; w++) {
+            int bits = Long.bitCount(matches[w]);
+            if (remaining < bits) {
+                long word = matches[w];
+                for (int i = 0; i < remaining; i++) {
+                    word &= word - 1;
+                }
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            remaining -= bits;
+        }
+        return -1;
+    }
+
+    /**
+     * Filters the source with predicate, cancelling evaluations of earlier filters
+     *
+     * @param predicate Elements to keep; NULL keeps everything
+     * @return Completes on the main thread with TRUE once the result is in the model, or FALSE if a later call
+     *         superseded it
+     */
+    public CompletableFuture<Boolean> setFilter(Predicate<? super T> predicate) {
+        this.predicate = predicate;
+        return refilter();
+    }
+
+    /**
+     * Replaces the source, keeping the current filter
+     *
+     * @param source Elements to filter; the collection is copied
+     * @return Completes on the main thread with TRUE once the result is in the model, or FALSE if a later call
+     *         superseded it
+     */
+    public CompletableFuture<Boolean> setSource(Collection<? extends T> source) {
+        AssertionUtils.assertNotNull(ParallelFilterModel.class, "setSource: source is null", source);
+        this.source = Collections.unmodifiableList(new ArrayList<>(source));
+        return refilter();
+    }
+
+    /**
+     * Evaluates the current filter again, e.g. after the elements changed in a way the predicate sees
+     *
+     * @return Completes on the main thread with TRUE once the result is in the model, or FALSE if a later call
+     *         superseded it
+     */
+    public CompletableFuture<Boolean> refilter() {
+        long gen = generation.incrementAndGet();
+        List<T> snapshot = source;
+        Predicate<? super T> filter = predicate;
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        if (filter == null) {
+            apply(gen, snapshot, allOf(snapshot.size()), result);
+            return result;
+        }
+        long[] words = new long[(snapshot.size() + 63) >>> 6];
+        Evaluation evaluation = new Evaluation(gen, snapshot, filter, words, 0, words.length);
+        CompletableFuture.runAsync(evaluation::invoke, pool).whenCompleteAsync((v, error) -> {
+            if (error != null) {
+                if (gen == generation.get()) {
+                    appliedGeneration = gen;
+                }
+                result.completeExceptionally(error);
+            } else {
+                apply(gen, snapshot, words, result);
+            }
+        }, MainThreadExecutor.getDefault());
+        return result;
+    }
+
+    private void apply(long gen, List<T> snapshot, long[] words, CompletableFuture<Boolean> result) {
+        if (gen != generation.get()) {
+            result.complete(false);
+            return;
+        }
+        if (snapshot != appliedSource) {
+            List<T> added = new ArrayList<>(count(words, 0, snapshot.size()));
+            collect(snapshot, words, 0, snapshot.size(), added);
+            model.splice(0, model.size(), added);
+        } else {
+            int[] range = differingRange(matches, words);
+            if (range != null) {
+                int position = count(matches, 0, range[0]);
+                int removed = count(matches, range[0], range[1] + 1);
+                List<T> added = new ArrayList<>(count(words, range[0], range[1] + 1));
+                collect(snapshot, words, range[0], range[1] + 1, added);
+                model.splice(position, removed, added);
+            }
+        }
+        appliedSource = snapshot;
+        matches = words;
+        appliedGeneration = gen;
+        result.complete(true);
+    }
+
+    private static <T> void collect(List<T> snapshot, long[] words, int from, int to, List<T> into) {
+        for (int i = from; i < to; i++) {
+            if ((words[i >>> 6] & (1L << (i & 63))) != 0) {
+                into.add(snapshot.get(i));
+            }
+        }
+    }
+
+    private class Evaluation extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final long gen;
+        private final List<T> snapshot;
+        private final Predicate<? super T> filter;
+        private final long[] words;
+        private final int fromWord;
+        private final int toWord;
+
+        Evaluation(long gen, List<T> snapshot, Predicate<? super T> filter, long[] words, int fromWord, int toWord) {
+            this.gen = gen;
+            this.snapshot = snapshot;
+            this.filter = filter;
+            this.words = words;
+            this.fromWord = fromWord;
+            this.toWord = toWord;
+        }
+
+        @Override
+        protected void compute() {
+            if (toWord - fromWord > LEAF_WORDS) {
+                int mid = (fromWord + toWord) >>> 1;
+                invokeAll(new Evaluation(gen, snapshot, filter, words, fromWord, mid),
+                        new Evaluation(gen, snapshot, filter, words, mid, toWord));
+                return;
+            }
+            int size = snapshot.size();
+            for (int w = fromWord; w < toWord; w++) {
+                if (generation.get() != gen) {
+                    return;
+                }
+                int base = w << 6;
+                int end = Math.min(size, base + 64);
+                long bits = 0;
+                for (int i = base; i < end; i++) {
+                    if (filter.test(snapshot.get(i))) {
+                        bits |= 1L << (i - base);
+                    }
+                }
+                words[w] = bits;
+            }
+        }
+    }
+}
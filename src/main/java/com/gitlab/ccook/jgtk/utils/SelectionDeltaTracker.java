@@ -0,0 +1,178 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.jgtk.GtkBitset;
+import com.gitlab.ccook.jgtk.callbacks.ItemsChangedCallback;
+import com.gitlab.ccook.jgtk.callbacks.SelectionChangedCallback;
+import com.gitlab.ccook.jgtk.gtk.interfaces.GtkSelectionModel;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.gitlab.ccook.util.AssertionUtils;
+import com.sun.jna.Pointer;
+
+import java.util.BitSet;
+
+/**
+ * Turns "selection-changed" of a GtkSelectionModel (e.g. GtkMultiSelection, GtkSingleSelection) into lists of
+ * selected and deselected positions.
+ * <p>
+ * The tracker keeps a Java copy of the selection. On "selection-changed" it reads the selection of the changed range
+ * with one gtk_selection_model_get_selection_in_range() call, diffs it against the copy, and hands the listener the
+ * runs that were selected and deselected. Selecting all rows of a large model is a handful of native calls, not one
+ * per row. "items-changed" shifts the copy along with the rows; rows that were removed are dropped from the copy
+ * without being reported.
+ * <p>
+ * Must be used on the main thread. Keep a reference to the tracker for as long as it should listen.
+ */
+public class SelectionDeltaTracker {
+    protected final static GtkLibrary library = new GtkLibrary();
+    // G_SIGNAL_MATCH_FUNC
+    private static final int MATCH_FUNC = 1 << 3;
+    private final GtkSelectionModel model;
+    private final Listener listener;
+    private final BitSet selection = new BitSet();
+    private final SelectionChangedCallback onSelectionChanged = (m, position, nItems, userData) -> update(position, nItems);
+    private final ItemsChangedCallback onItemsChanged = (list, position, removed, added, userData) -> shift(position, removed, added);
+
+    /**
+     * @param model    Selection model to track
+     * @param listener Called with the changes of the selection
+     */
+    public SelectionDeltaTracker(GtkSelectionModel model, Listener listener) {
+        AssertionUtils.assertNotNull(SelectionDeltaTracker.class, "ctor: model is null", model);
+        AssertionUtils.assertNotNull(SelectionDeltaTracker.class, "ctor: listener is null", listener);
+        this.model = model;
+        this.listener = listener;
+        Pointer all = library.gtk_selection_model_get_selection(model.getCReference());
+        new GtkBitset(all).forEachRange((first, last) -> selection.set(first, last + 1));
+        library.gtk_bitset_unref(all);
+        library.g_signal_connect_data(model.getCReference(), "selection-changed", onSelectionChanged, Pointer.NULL, Pointer.NULL, 0);
+        library.g_signal_connect_data(model.getCReference(), "items-changed", onItemsChanged, Pointer.NULL, Pointer.NULL, 0);
+    }
+
+    /**
+     * @param set Values
+     * @return The runs of set as closed ranges: first0, last0, first1, last1, ...
+     */
+    static int[] toRanges(BitSet set) {
+        int runs = 0;
+        for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(set.nextClearBit(i))) {
+            runs++;
+        }
+        int[] ranges = new int[2 * runs];
+        int r = 0;
+        for (int i = set.nextSetBit(0); i >= 0; ) {
+            int end = set.nextClearBit(i);
+            ranges[r++] = i;
+            ranges[r++] = end - 1;
+            i = set.nextSetBit(end);
+        }
+        return ranges;
+    }
+
+    /**
+     * @return Copy of the tracked selection
+     */
+    public BitSet getSelection() {
+        return (BitSet) selection.clone();
+    }
+
+    /**
+     * @param position A position in the model
+     * @return Whether position is selected, without a native call
+     */
+    public boolean isSelected(int position) {
+        return position >= 0 && selection.get(position);
+    }
+
+    /**
+     * Stops listening to the model
+     */
+    public void dispose() {
+        library.g_signal_handlers_disconnect_matched(model.getCReference(), MATCH_FUNC, 0, 0, Pointer.NULL, onSelectionChanged, Pointer.NULL);
+        library.g_signal_handlers_disconnect_matched(model.getCReference(), MATCH_FUNC, 0, 0, Pointer.NULL, onItemsChanged, Pointer.NULL);
+    }
+
+    private void update(int position, int nItems) {
+        if (nItems <= 0) {
+            return;
+        }
+        int end = position + nItems;
+        BitSet now = new BitSet();
+        Pointer inRange = library.gtk_selection_model_get_selection_in_range(model.getCReference(), position, nItems);
+        // The returned bitset may hold values outside the range
+        new GtkBitset(inRange).forEachRange((first, last) -> {
+            int from = Math.max(first, position);
+            int to = Math.min(last + 1, end);
+            if (from < to) {
+                now.set(from, to);
+            }
+        });
+        library.gtk_bitset_unref(inRange);
+        BitSet before = shiftUp(selection.get(position, end), position);
+        BitSet added = (BitSet) now.clone();
+        added.andNot(before);
+        BitSet removed = before;
+        removed.andNot(now);
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        selection.clear(position, end);
+        selection.or(now);
+        listener.selectionChanged(toRanges(added), toRanges(removed));
+    }
+
+    private void shift(int position, int removed, int added) {
+        BitSet tail = selection.get(position + removed, Math.max(position + removed, selection.length()));
+        selection.clear(position, Math.max(position, selection.length()));
+        for (int i = tail.nextSetBit(0); i >= 0; ) {
+            int end = tail.nextClearBit(i);
+            selection.set(position + added + i, position + added + end);
+            i = tail.nextSetBit(end);
+        }
+        if (added > 0) {
+            // New rows may come in selected (e.g. GtkSingleSelection autoselect)
+            update(position, added);
+        }
+    }
+
+    private static BitSet shiftUp(BitSet bits, int offset) {
+        BitSet shifted = new BitSet();
+        for (int i = bits.nextSetBit(0); i >= 0; ) {
+            int end = bits.nextClearBit(i);
+            shifted.set(offset + i, offset + end);
+            i = bits.nextSetBit(end);
+        }
+        return shifted;
+    }
+
+    /**
+     * Receives changes of a selection
+     */
+    public interface Listener {
+        /**
+         * @param selected   Runs of positions that became selected, as closed ranges: first0, last0, first1, ...
+         * @param deselected Runs of positions that became deselected, in the same layout
+         */
+        void selectionChanged(int[] selected, int[] deselected);
+    }
+}
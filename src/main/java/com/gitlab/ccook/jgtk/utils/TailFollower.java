@@ -0,0 +1,188 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.jgtk.GtkAdjustment;
+import com.gitlab.ccook.jgtk.GtkTextIter;
+import com.gitlab.ccook.jgtk.GtkTextMark;
+import com.gitlab.ccook.jgtk.callbacks.GtkTickCallback;
+import com.gitlab.ccook.jgtk.gtk.GtkTextBuffer;
+import com.gitlab.ccook.jgtk.gtk.GtkTextView;
+import com.gitlab.ccook.util.AssertionUtils;
+import com.gitlab.ccook.util.Option;
+import com.gitlab.ccook.util.Pair;
+
+/**
+ * Turns a GtkTextView into a live log pane: text is appended at the end and the buffer keeps at most a bounded number
+ * of lines.
+ * <p>
+ * Appends may come from any thread. They are collected and written to the buffer at most once per frame from a tick
+ * callback on the view, as a single insert. Once the buffer holds more than maxLines plus 10%, the oldest lines are
+ * deleted in one go, so trimming is amortized over many appends. The view follows the end of the text only if it was
+ * scrolled to the bottom before the append; otherwise the line at the top of the view is kept in place while lines
+ * are trimmed above it. Undo is disabled on the buffer.
+ */
+public class TailFollower {
+    private final GtkTextView view;
+    private final GtkTextBuffer buffer;
+    private final int maxLines;
+    private final int trimSlack;
+    private final Object lock = new Object();
+    private final GtkTextMark end;
+    private final GtkTextMark top;
+    private final GtkTickCallback onTick = (widget, frameClock, userData) -> {
+        flush();
+        return false;
+    };
+    private final Runnable installTick = this::installTick;
+    // Guarded by lock
+    private StringBuilder pending = new StringBuilder();
+    private int pendingLines = 0;
+    private boolean scheduled = false;
+
+    /**
+     * Must be called on the main thread.
+     *
+     * @param view     The view to follow; its buffer's content is kept
+     * @param maxLines Maximum number of lines kept in the buffer (exceeded by up to 10% between trims)
+     */
+    public TailFollower(GtkTextView view, int maxLines) {
+        AssertionUtils.assertNotNull(TailFollower.class, "ctor: view is null", view);
+        AssertionUtils.assertTrue(TailFollower.class, "ctor: maxLines must be positive", maxLines > 0);
+        this.view = view;
+        this.buffer = view.getBuffer();
+        this.maxLines = maxLines;
+        this.trimSlack = Math.max(1, maxLines / 10);
+        buffer.enableUndo(false);
+        GtkTextIter iter = buffer.getEndIterator();
+        this.end = buffer.createMark(null, iter, false).get();
+        this.top = buffer.createMark(null, iter, true).get();
+    }
+
+    /**
+     * Appends line plus a line break. May be called from any thread.
+     *
+     * @param line Text of the line, without a line break
+     */
+    public void appendLine(CharSequence line) {
+        synchronized (lock) {
+            pending.append(line).append('\n');
+            pendingLines++;
+            afterAppend();
+        }
+    }
+
+    /**
+     * Appends text as is. May be called from any thread.
+     *
+     * @param text Text to append; may contain any number of line breaks
+     */
+    public void append(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return;
+        }
+        synchronized (lock) {
+            pending.append(text);
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '\n') {
+                    pendingLines++;
+                }
+            }
+            afterAppend();
+        }
+    }
+
+    /**
+     * @return Maximum number of lines kept in the buffer
+     */
+    public int getMaxLines() {
+        return maxLines;
+    }
+
+    private void afterAppend() {
+        if (pendingLines > maxLines + trimSlack) {
+            // The view is not drawing (e.g. unmapped); only the last maxLines lines could survive the next trim anyway
+            int drop = pendingLines - maxLines;
+            int cut = 0;
+            while (drop > 0) {
+                cut = pending.indexOf("\n", cut) + 1;
+                drop--;
+            }
+            pending.delete(0, cut);
+            pendingLines = maxLines;
+        }
+        if (!scheduled) {
+            scheduled = true;
+            MainThreadExecutor.getDefault().executeOrRun(installTick);
+        }
+    }
+
+    private void installTick() {
+        view.addTickCallback(onTick);
+    }
+
+    private void flush() {
+        String text;
+        synchronized (lock) {
+            scheduled = false;
+            if (pending.length() == 0) {
+                return;
+            }
+            text = pending.toString();
+            pending = new StringBuilder(Math.min(text.length(), 1 << 20));
+            pendingLines = 0;
+        }
+        Option<GtkAdjustment> adjustment = view.getVerticalAdjustment();
+        boolean atBottom = !adjustment.isDefined() || isAtBottom(adjustment.get());
+        GtkTextIter.Pool pool = GtkTextIter.Pool.get();
+        GtkTextIter start = pool.acquire();
+        GtkTextIter cut = pool.acquire();
+        try {
+            if (!atBottom) {
+                Option<Pair<GtkTextIter, Integer>> topLine = view.getLineAtY((int) adjustment.get().getValue());
+                if (topLine.isDefined()) {
+                    buffer.moveMark(top, topLine.get().getFirst());
+                }
+            }
+            buffer.insertText(text, buffer.getEndIterator(start));
+            int lines = buffer.getLineCount();
+            if (lines > maxLines + trimSlack) {
+                buffer.getStartIterator(start);
+                buffer.getIteratorAtLine(cut, lines - maxLines);
+                buffer.deleteText(start, cut);
+            }
+        } finally {
+            pool.release(cut);
+            pool.release(start);
+        }
+        if (atBottom) {
+            view.scrollToMark(end, 0, 0, 1.0);
+        } else {
+            view.scrollToMark(top, 0, 0, 0);
+        }
+    }
+
+    private static boolean isAtBottom(GtkAdjustment adjustment) {
+        double slack = Math.max(1, adjustment.getStepIncrement());
+        return adjustment.getValue() + adjustment.getPageSize() >= adjustment.getUpper() - slack;
+    }
+}
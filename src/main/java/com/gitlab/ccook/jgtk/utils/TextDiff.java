@@ -0,0 +1,315 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the edits turning one text into another, first by line and then by char inside the changed lines.
+ * <p>
+ * Both passes use Myers' O((N+M)D) algorithm after stripping the common prefix and suffix. If a region needs more than
+ * a bounded number of edits it is replaced as a whole rather than diffed, so the cost stays predictable on unrelated
+ * texts.
+ */
+public final class TextDiff {
+    private static final int MAX_LINE_EDITS = 2000;
+    private static final int MAX_CHAR_EDITS = 256;
+    private static final int MAX_CHAR_REGION = 8192;
+
+    private TextDiff() {
+    }
+
+    /**
+     * @param before Old text
+     * @param after  New text
+     * @return Non-overlapping hunks in ascending order; offsets are GTK character offsets (code points) into before
+     */
+    public static List<Hunk> diff(String before, String after) {
+        List<Hunk> hunks = new ArrayList<>();
+        if (before.equals(after)) {
+            return hunks;
+        }
+        int[] beforeLines = lineStarts(before);
+        int[] afterLines = lineStarts(after);
+        Map<String, Integer> ids = new HashMap<>();
+        int[] a = lineIds(before, beforeLines, ids);
+        int[] b = lineIds(after, afterLines, ids);
+        OffsetCounter offsets = new OffsetCounter(before);
+        for (int[] region : regions(a, b, MAX_LINE_EDITS)) {
+            int beforeStart = beforeLines[region[0]];
+            int beforeEnd = beforeLines[region[1]];
+            int afterStart = afterLines[region[2]];
+            int afterEnd = afterLines[region[3]];
+            charHunks(before, beforeStart, beforeEnd, after, afterStart, afterEnd, offsets, hunks);
+        }
+        return hunks;
+    }
+
+    private static void charHunks(String before, int beforeStart, int beforeEnd, String after, int afterStart, int afterEnd, OffsetCounter offsets, List<Hunk> hunks) {
+        while (beforeStart < beforeEnd && afterStart < afterEnd && before.charAt(beforeStart) == after.charAt(afterStart)) {
+            beforeStart++;
+            afterStart++;
+        }
+        while (beforeEnd > beforeStart && afterEnd > afterStart && before.charAt(beforeEnd - 1) == after.charAt(afterEnd - 1)) {
+            beforeEnd--;
+            afterEnd--;
+        }
+        // Never cut a surrogate pair in half; the chars moved back into the region are common to both texts
+        if (beforeStart > 0 && Character.isHighSurrogate(before.charAt(beforeStart - 1))) {
+            beforeStart--;
+            afterStart--;
+        }
+        if (beforeEnd < before.length() && Character.isLowSurrogate(before.charAt(beforeEnd))) {
+            beforeEnd++;
+            afterEnd++;
+        }
+        if (beforeStart == beforeEnd && afterStart == afterEnd) {
+            return;
+        }
+        List<int[]> regions = null;
+        if (beforeEnd - beforeStart <= MAX_CHAR_REGION && afterEnd - afterStart <= MAX_CHAR_REGION) {
+            int[] a = new int[beforeEnd - beforeStart];
+            int[] b = new int[afterEnd - afterStart];
+            for (int i = 0; i < a.length; i++) {
+                a[i] = before.charAt(beforeStart + i);
+            }
+            for (int i = 0; i < b.length; i++) {
+                b[i] = after.charAt(afterStart + i);
+            }
+            regions = myers(a, b, MAX_CHAR_EDITS);
+        }
+        if (regions == null || hasSplitSurrogate(before, after, beforeStart, afterStart, regions)) {
+            regions = Collections.singletonList(new int[]{0, beforeEnd - beforeStart, 0, afterEnd - afterStart});
+        }
+        for (int[] r : regions) {
+            int start = offsets.toOffset(beforeStart + r[0]);
+            int end = offsets.toOffset(beforeStart + r[1]);
+            hunks.add(new Hunk(start, end, after.substring(afterStart + r[2], afterStart + r[3])));
+        }
+    }
+
+    private static boolean hasSplitSurrogate(String before, String after, int beforeStart, int afterStart, List<int[]> regions) {
+        for (int[] r : regions) {
+            if (isInsidePair(before, beforeStart + r[0]) || isInsidePair(before, beforeStart + r[1])
+                    || isInsidePair(after, afterStart + r[2]) || isInsidePair(after, afterStart + r[3])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isInsidePair(String s, int index) {
+        return index > 0 && index < s.length() && Character.isLowSurrogate(s.charAt(index)) && Character.isHighSurrogate(s.charAt(index - 1));
+    }
+
+    private static List<int[]> regions(int[] a, int[] b, int maxEdits) {
+        List<int[]> regions = myers(a, b, maxEdits);
+        if (regions == null) {
+            int prefix = 0;
+            while (prefix < a.length && prefix < b.length && a[prefix] == b[prefix]) {
+                prefix++;
+            }
+            int suffix = 0;
+            while (suffix < a.length - prefix && suffix < b.length - prefix && a[a.length - 1 - suffix] == b[b.length - 1 - suffix]) {
+                suffix++;
+            }
+            regions = Collections.singletonList(new int[]{prefix, a.length - suffix, prefix, b.length - suffix});
+        }
+        return regions;
+    }
+
+    /**
+     * @return Differing regions as {aStart, aEnd, bStart, bEnd}, or null if more than maxEdits edits are needed
+     */
+    private static List<int[]> myers(int[] a, int[] b, int maxEdits) {
+        int prefix = 0;
+        while (prefix < a.length && prefix < b.length && a[prefix] == b[prefix]) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.length - prefix && suffix < b.length - prefix && a[a.length - 1 - suffix] == b[b.length - 1 - suffix]) {
+            suffix++;
+        }
+        int n = a.length - prefix - suffix;
+        int m = b.length - prefix - suffix;
+        List<int[]> regions = new ArrayList<>();
+        if (n == 0 && m == 0) {
+            return regions;
+        }
+        if (n == 0 || m == 0) {
+            regions.add(new int[]{prefix, prefix + n, prefix, prefix + m});
+            return regions;
+        }
+        int max = Math.min(n + m, maxEdits);
+        List<int[]> trace = new ArrayList<>();
+        int[] v = new int[]{0, 0, 0};
+        int found = -1;
+        for (int d = 0; d <= max && found < 0; d++) {
+            // v holds the furthest x on each diagonal k in [-d, d], stored at index k + d
+            int[] next = new int[2 * d + 3];
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && get(v, d - 1, k - 1) < get(v, d - 1, k + 1))) {
+                    x = get(v, d - 1, k + 1);
+                } else {
+                    x = get(v, d - 1, k - 1) + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && a[prefix + x] == b[prefix + y]) {
+                    x++;
+                    y++;
+                }
+                next[k + d + 1] = x;
+                if (x >= n && y >= m) {
+                    found = d;
+                }
+            }
+            trace.add(next);
+            v = next;
+        }
+        if (found < 0) {
+            return null;
+        }
+        // Walk the trace backwards, collecting the non-diagonal moves
+        List<int[]> moves = new ArrayList<>();
+        int x = n;
+        int y = m;
+        for (int d = found; d > 0; d--) {
+            int[] previous = trace.get(d - 1);
+            int k = x - y;
+            int prevK = (k == -d || (k != d && get(previous, d - 1, k - 1) < get(previous, d - 1, k + 1))) ? k + 1 : k - 1;
+            int prevX = get(previous, d - 1, prevK);
+            int prevY = prevX - prevK;
+            // One deletion (x + 1) or insertion (y + 1) away from the previous point, then a diagonal up to (x, y)
+            int midX = prevK == k + 1 ? prevX : prevX + 1;
+            int midY = midX - k;
+            moves.add(new int[]{prevX, midX, prevY, midY});
+            x = prevX;
+            y = prevY;
+        }
+        Collections.reverse(moves);
+        int[] current = null;
+        for (int[] move : moves) {
+            if (current != null && current[1] == prefix + move[0] && current[3] == prefix + move[2]) {
+                current[1] = prefix + move[1];
+                current[3] = prefix + move[3];
+            } else {
+                current = new int[]{prefix + move[0], prefix + move[1], prefix + move[2], prefix + move[3]};
+                regions.add(current);
+            }
+        }
+        return regions;
+    }
+
+    private static int get(int[] v, int d, int k) {
+        int i = k + d + 1;
+        return i >= 0 && i < v.length ? v[i] : 0;
+    }
+
+    private static int[] lineStarts(String text) {
+        int[] starts = new int[16];
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+        if (starts[count - 1] != text.length()) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count + 1);
+            }
+            starts[count++] = text.length();
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    private static int[] lineIds(String text, int[] lineStarts, Map<String, Integer> ids) {
+        int[] lineIds = new int[lineStarts.length - 1];
+        for (int i = 0; i < lineIds.length; i++) {
+            lineIds[i] = ids.computeIfAbsent(text.substring(lineStarts[i], lineStarts[i + 1]), s -> ids.size());
+        }
+        return lineIds;
+    }
+
+    /**
+     * Converts ascending char indices into code point offsets without rescanning from the start
+     */
+    private static final class OffsetCounter {
+        private final String text;
+        private int index = 0;
+        private int offset = 0;
+
+        private OffsetCounter(String text) {
+            this.text = text;
+        }
+
+        private int toOffset(int charIndex) {
+            if (charIndex < index) {
+                index = 0;
+                offset = 0;
+            }
+            offset += Character.codePointCount(text, index, charIndex);
+            index = charIndex;
+            return offset;
+        }
+    }
+
+    /**
+     * Replace the characters [start, end) of the old text with text
+     */
+    public static final class Hunk {
+        private final int start;
+        private final int end;
+        private final String text;
+
+        public Hunk(int start, int end, String text) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        @Override
+        public String toString() {
+            return "Hunk[" + start + ", " + end + ") -> \"" + text + "\"";
+        }
+    }
+}
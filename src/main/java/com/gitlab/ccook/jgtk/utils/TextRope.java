@@ -0,0 +1,464 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.util.AssertionUtils;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An immutable rope of UTF-16 chunks with a line index, used to mirror the content of a GtkTextBuffer.
+ * <p>
+ * Edits return a new rope sharing all untouched chunks with the old one, so a rope can be handed to worker threads as
+ * a snapshot while the mirror keeps moving. Chunks are kept in a height-balanced tree whose nodes cache their length
+ * in chars, their length in code points (GTK's "characters") and their number of line breaks, so offset conversions
+ * and offset-to-line lookups are O(log n). Line breaks are counted the way GTK does: \n, \r, \r\n and U+2029.
+ * <p>
+ * Indices taken by the {@link CharSequence} methods are UTF-16 char indices; methods talking about "offsets" use
+ * GTK character offsets (code points).
+ */
+public final class TextRope implements CharSequence {
+    public static final TextRope EMPTY = new TextRope(new Leaf(""));
+    private static final int MAX_LEAF = 2048;
+
+    private final Node root;
+
+    private TextRope(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @param text Initial content
+     * @return A rope holding text
+     */
+    public static TextRope of(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return EMPTY;
+        }
+        return new TextRope(build(text.toString(), 0, text.length()));
+    }
+
+    private static Node build(String text, int start, int end) {
+        if (end - start <= MAX_LEAF) {
+            return new Leaf(text.substring(start, end));
+        }
+        int mid = start + (end - start) / 2;
+        if (Character.isLowSurrogate(text.charAt(mid)) && Character.isHighSurrogate(text.charAt(mid - 1))) {
+            mid++;
+        }
+        return concat(build(text, start, mid), build(text, mid, end));
+    }
+
+    @Override
+    public int length() {
+        return root.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= root.length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + root.length);
+        }
+        Node node = root;
+        while (node instanceof Branch) {
+            Branch b = (Branch) node;
+            if (index < b.left.length) {
+                node = b.left;
+            } else {
+                index -= b.left.length;
+                node = b.right;
+            }
+        }
+        return ((Leaf) node).text.charAt(index);
+    }
+
+    @Override
+    public TextRope subSequence(int start, int end) {
+        if (start < 0 || end > root.length || start > end) {
+            throw new IndexOutOfBoundsException("range [" + start + ", " + end + "), length " + root.length);
+        }
+        if (start == 0 && end == root.length) {
+            return this;
+        }
+        return new TextRope(split(split(root, end)[0], start)[1]);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(root.length);
+        appendTo(root, sb);
+        return sb.toString();
+    }
+
+    private static void appendTo(Node node, StringBuilder sb) {
+        if (node instanceof Leaf) {
+            sb.append(((Leaf) node).text);
+        } else {
+            appendTo(((Branch) node).left, sb);
+            appendTo(((Branch) node).right, sb);
+        }
+    }
+
+    /**
+     * @return Number of GTK characters (code points)
+     */
+    public int getCharacterCount() {
+        return root.codePoints;
+    }
+
+    /**
+     * @return Number of lines, which is one more than the number of line breaks
+     */
+    public int getLineCount() {
+        return root.breaks + 1;
+    }
+
+    /**
+     * @param characterOffset GTK character offset, clamped to the rope
+     * @return UTF-16 index of that character
+     */
+    public int toCharIndex(int characterOffset) {
+        int cp = Math.max(0, Math.min(characterOffset, root.codePoints));
+        Node node = root;
+        int index = 0;
+        while (node instanceof Branch) {
+            Branch b = (Branch) node;
+            if (cp <= b.left.codePoints) {
+                node = b.left;
+            } else {
+                cp -= b.left.codePoints;
+                index += b.left.length;
+                node = b.right;
+            }
+        }
+        String text = ((Leaf) node).text;
+        return index + (text.length() == node.codePoints ? cp : text.offsetByCodePoints(0, cp));
+    }
+
+    /**
+     * @param charIndex UTF-16 index, clamped to the rope
+     * @return GTK character offset of that index
+     */
+    public int toCharacterOffset(int charIndex) {
+        int index = Math.max(0, Math.min(charIndex, root.length));
+        Node node = root;
+        int cp = 0;
+        while (node instanceof Branch) {
+            Branch b = (Branch) node;
+            if (index <= b.left.length) {
+                node = b.left;
+            } else {
+                index -= b.left.length;
+                cp += b.left.codePoints;
+                node = b.right;
+            }
+        }
+        String text = ((Leaf) node).text;
+        return cp + (text.length() == node.codePoints ? index : text.codePointCount(0, index));
+    }
+
+    /**
+     * @param characterOffset GTK character offset
+     * @return Line the character is on, counting from 0
+     */
+    public int getLineAtOffset(int characterOffset) {
+        return breaksBefore(root, toCharIndex(characterOffset));
+    }
+
+    /**
+     * @param line Line number counting from 0, clamped to the rope
+     * @return GTK character offset of the first character of line
+     */
+    public int getLineStartOffset(int line) {
+        int k = Math.max(0, Math.min(line, root.breaks));
+        return k == 0 ? 0 : toCharacterOffset(breakEnd(root, k));
+    }
+
+    /**
+     * @param characterOffset GTK character offset to insert at
+     * @param text            Text to insert
+     * @return A new rope containing the insertion
+     */
+    public TextRope insert(int characterOffset, CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return this;
+        }
+        Node[] halves = split(root, toCharIndex(characterOffset));
+        return new TextRope(concat(concat(halves[0], build(text.toString(), 0, text.length())), halves[1]));
+    }
+
+    /**
+     * @param startOffset GTK character offset where the deleted range starts
+     * @param endOffset   GTK character offset where the deleted range ends (exclusive)
+     * @return A new rope without the range
+     */
+    public TextRope delete(int startOffset, int endOffset) {
+        int start = toCharIndex(Math.min(startOffset, endOffset));
+        int end = toCharIndex(Math.max(startOffset, endOffset));
+        if (start == end) {
+            return this;
+        }
+        return new TextRope(concat(split(root, start)[0], split(root, end)[1]));
+    }
+
+    /**
+     * Finds every match of pattern. Safe to call from any thread.
+     *
+     * @param pattern The pattern to look for
+     * @return GTK character offsets of the matches, as consecutive (start, end) pairs
+     */
+    public int[] findAll(Pattern pattern) {
+        AssertionUtils.assertNotNull(TextRope.class, "findAll: pattern is null", pattern);
+        Matcher matcher = pattern.matcher(new Reader(root));
+        int[] found = new int[16];
+        int count = 0;
+        while (matcher.find()) {
+            if (count + 2 > found.length) {
+                found = Arrays.copyOf(found, found.length * 2);
+            }
+            found[count++] = toCharacterOffset(matcher.start());
+            found[count++] = toCharacterOffset(matcher.end());
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * @return A CharSequence over this rope that remembers the last chunk it read from, making sequential access
+     * (e.g. by a regex Matcher) O(1) per char. Not thread-safe; create one per thread.
+     */
+    public CharSequence newReader() {
+        return new Reader(root);
+    }
+
+    private static int breaksBefore(Node node, int index) {
+        if (node instanceof Leaf) {
+            return ((Leaf) node).breaksBefore(index);
+        }
+        Branch b = (Branch) node;
+        if (index <= b.left.length) {
+            int before = breaksBefore(b.left, index);
+            // The left half counted its trailing \r as a break ending at index; the \n after it really ends it
+            return index == b.left.length && b.joint ? before - 1 : before;
+        }
+        return b.left.breaks - (b.joint ? 1 : 0) + breaksBefore(b.right, index - b.left.length);
+    }
+
+    private static int breakEnd(Node node, int k) {
+        if (node instanceof Leaf) {
+            return ((Leaf) node).breakEnd(k);
+        }
+        Branch b = (Branch) node;
+        if (k < b.left.breaks || (k == b.left.breaks && !b.joint)) {
+            return breakEnd(b.left, k);
+        }
+        if (k == b.left.breaks) {
+            return b.left.length + 1;
+        }
+        return b.left.length + breakEnd(b.right, k - b.left.breaks + (b.joint ? 1 : 0));
+    }
+
+    private static Node[] split(Node node, int index) {
+        if (index <= 0) {
+            return new Node[]{EMPTY.root, node};
+        }
+        if (index >= node.length) {
+            return new Node[]{node, EMPTY.root};
+        }
+        if (node instanceof Leaf) {
+            String text = ((Leaf) node).text;
+            return new Node[]{new Leaf(text.substring(0, index)), new Leaf(text.substring(index))};
+        }
+        Branch b = (Branch) node;
+        if (index <= b.left.length) {
+            Node[] parts = split(b.left, index);
+            return new Node[]{parts[0], concat(parts[1], b.right)};
+        }
+        Node[] parts = split(b.right, index - b.left.length);
+        return new Node[]{concat(b.left, parts[0]), parts[1]};
+    }
+
+    private static Node concat(Node a, Node b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        if (a instanceof Leaf && b instanceof Leaf && a.length + b.length <= MAX_LEAF) {
+            return new Leaf(((Leaf) a).text + ((Leaf) b).text);
+        }
+        if (a.height > b.height + 1) {
+            Branch ab = (Branch) a;
+            return rebalance(ab.left, concat(ab.right, b));
+        }
+        if (b.height > a.height + 1) {
+            Branch bb = (Branch) b;
+            return rebalance(concat(a, bb.left), bb.right);
+        }
+        return new Branch(a, b);
+    }
+
+    private static Node rebalance(Node left, Node right) {
+        if (left.height > right.height + 1) {
+            Branch l = (Branch) left;
+            if (l.left.height >= l.right.height) {
+                return new Branch(l.left, new Branch(l.right, right));
+            }
+            Branch lr = (Branch) l.right;
+            return new Branch(new Branch(l.left, lr.left), new Branch(lr.right, right));
+        }
+        if (right.height > left.height + 1) {
+            Branch r = (Branch) right;
+            if (r.right.height >= r.left.height) {
+                return new Branch(new Branch(left, r.left), r.right);
+            }
+            Branch rl = (Branch) r.left;
+            return new Branch(new Branch(left, rl.left), new Branch(rl.right, r.right));
+        }
+        return new Branch(left, right);
+    }
+
+    private static boolean isBreak(char c) {
+        return c == '\n' || c == '\r' || c == '\u2029';
+    }
+
+    private abstract static class Node {
+        final int length;
+        final int codePoints;
+        final int breaks;
+        final int height;
+        final char first;
+        final char last;
+
+        Node(int length, int codePoints, int breaks, int height, char first, char last) {
+            this.length = length;
+            this.codePoints = codePoints;
+            this.breaks = breaks;
+            this.height = height;
+            this.first = first;
+            this.last = last;
+        }
+    }
+
+    private static final class Leaf extends Node {
+        final String text;
+
+        Leaf(String text) {
+            super(text.length(), text.codePointCount(0, text.length()), countBreaks(text, text.length()), 0,
+                    text.isEmpty() ? 0 : text.charAt(0), text.isEmpty() ? 0 : text.charAt(text.length() - 1));
+            this.text = text;
+        }
+
+        // A \r directly followed by \n only counts once, at the \n; a trailing \r counts as a break on its own
+        private static int countBreaks(String text, int end) {
+            int breaks = 0;
+            for (int i = 0; i < end; i++) {
+                char c = text.charAt(i);
+                if (isBreak(c) && !(c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n')) {
+                    breaks++;
+                }
+            }
+            return breaks;
+        }
+
+        int breaksBefore(int index) {
+            return countBreaks(text, index);
+        }
+
+        int breakEnd(int k) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (isBreak(c) && !(c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') && --k == 0) {
+                    return i + 1;
+                }
+            }
+            return text.length();
+        }
+    }
+
+    private static final class Branch extends Node {
+        final Node left;
+        final Node right;
+        final boolean joint;
+
+        Branch(Node left, Node right) {
+            super(left.length + right.length, left.codePoints + right.codePoints,
+                    left.breaks + right.breaks - (left.last == '\r' && right.first == '\n' ? 1 : 0),
+                    Math.max(left.height, right.height) + 1, left.first, right.last);
+            this.left = left;
+            this.right = right;
+            this.joint = left.last == '\r' && right.first == '\n';
+        }
+    }
+
+    private static final class Reader implements CharSequence {
+        private final Node root;
+        private String leaf = "";
+        private int leafStart = 0;
+
+        Reader(Node root) {
+            this.root = root;
+        }
+
+        @Override
+        public int length() {
+            return root.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            int local = index - leafStart;
+            if (local < 0 || local >= leaf.length()) {
+                if (index < 0 || index >= root.length) {
+                    throw new IndexOutOfBoundsException("index " + index + ", length " + root.length);
+                }
+                Node node = root;
+                int start = 0;
+                while (node instanceof Branch) {
+                    Branch b = (Branch) node;
+                    if (index - start < b.left.length) {
+                        node = b.left;
+                    } else {
+                        start += b.left.length;
+                        node = b.right;
+                    }
+                }
+                leaf = ((Leaf) node).text;
+                leafStart = start;
+                local = index - start;
+            }
+            return leaf.charAt(local);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new TextRope(root).subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new TextRope(root).toString();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.jgtk.GtkWidget;
+import com.gitlab.ccook.jgtk.gtk.GtkLabel;
+import com.gitlab.ccook.jgtk.gtk.GtkLevelBar;
+import com.gitlab.ccook.jgtk.gtk.GtkProgressBar;
+import com.sun.jna.Pointer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records widget mutations from any thread and replays them on the main thread in a single dispatch.
+ * <p>
+ * Writes are collapsed last-write-wins per (widget, property): setting a label's text a thousand times between two
+ * frames results in one gtk_label_set_text() call. Adding and then removing the same CSS class collapses the same
+ * way. Commands for different (widget, property) pairs are not ordered relative to each other. A command that throws is
+ * logged and does not keep the others from running.
+ */
+public class UICommandBuffer {
+    private static final Logger log = LoggerFactory.getLogger(UICommandBuffer.class);
+    private final Map<Key, Runnable> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final MainThreadExecutor executor;
+    private final Runnable flush = this::flush;
+
+    public UICommandBuffer() {
+        this(MainThreadExecutor.getDefault());
+    }
+
+    /**
+     * @param executor The executor replays are dispatched through
+     */
+    public UICommandBuffer(MainThreadExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the text of a label (see GtkLabel#setText(String))
+     *
+     * @param label The label
+     * @param text  The text
+     */
+    public void setText(GtkLabel label, String text) {
+        if (label != null && text != null) {
+            record(label, "text", () -> label.setText(text));
+        }
+    }
+
+    /**
+     * Sets the value of a level bar (see GtkLevelBar#setValue(double))
+     *
+     * @param bar   The level bar
+     * @param value A value in the interval between GtkLevelBar:min-value and GtkLevelBar:max-value.
+     */
+    public void setValue(GtkLevelBar bar, double value) {
+        if (bar != null) {
+            record(bar, "value", () -> bar.setValue(value));
+        }
+    }
+
+    /**
+     * Sets the fraction of a progress bar (see GtkProgressBar#setProgress(double))
+     *
+     * @param bar      The progress bar
+     * @param progress Fraction of the task that's been completed.
+     */
+    public void setProgress(GtkProgressBar bar, double progress) {
+        if (bar != null) {
+            record(bar, "fraction", () -> bar.setProgress(progress));
+        }
+    }
+
+    /**
+     * Sets the text shown on a progress bar (see GtkProgressBar#setText(String))
+     *
+     * @param bar  The progress bar
+     * @param text A UTF-8 string, or NULL.
+     */
+    public void setText(GtkProgressBar bar, String text) {
+        if (bar != null) {
+            record(bar, "text", () -> bar.setText(text));
+        }
+    }
+
+    /**
+     * Adds a style class to widget (see GtkWidget#addCSSClass(String))
+     *
+     * @param widget   The widget
+     * @param cssClass The style class, without the leading '.'
+     */
+    public void addCSSClass(GtkWidget widget, String cssClass) {
+        if (widget != null && cssClass != null) {
+            record(widget, "css-class:" + cssClass, () -> widget.addCSSClass(cssClass));
+        }
+    }
+
+    /**
+     * Removes a style class from widget (see GtkWidget#removeCSSClass(String))
+     *
+     * @param widget   The widget
+     * @param cssClass The style class, without the leading '.'
+     */
+    public void removeCSSClass(GtkWidget widget, String cssClass) {
+        if (widget != null && cssClass != null) {
+            record(widget, "css-class:" + cssClass, () -> widget.removeCSSClass(cssClass));
+        }
+    }
+
+    /**
+     * Records an arbitrary mutation, collapsed with any earlier one recorded for the same widget and property
+     *
+     * @param widget   The widget being mutated
+     * @param property A name identifying what is being mutated
+     * @param command  The mutation, run on the main thread
+     */
+    public void record(GtkWidget widget, String property, Runnable command) {
+        if (widget != null && property != null && command != null) {
+            pending.put(new Key(widget.getCReference(), property), command);
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(flush);
+            }
+        }
+    }
+
+    /**
+     * @return The number of commands waiting to be replayed
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Replays every pending command. Must be called on the main thread; normally this happens automatically.
+     */
+    public void flush() {
+        scheduled.set(false);
+        Iterator<Key> keys = pending.keySet().iterator();
+        while (keys.hasNext()) {
+            Runnable command = pending.remove(keys.next());
+            if (command != null) {
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    log.warn("UI command failed", e);
+                }
+            }
+        }
+    }
+
+    private static final class Key {
+        private final Pointer widget;
+        private final String property;
+        private final int hash;
+
+        private Key(Pointer widget, String property) {
+            this.widget = widget;
+            this.property = property;
+            this.hash = Objects.hash(widget, property);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return widget.equals(k.widget) && property.equals(k.property);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
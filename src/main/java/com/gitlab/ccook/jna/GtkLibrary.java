@@ -23,9 +23,12 @@ package com.gitlab.ccook.jna;
 
 import com.gitlab.ccook.jgtk.*;
 import com.gitlab.ccook.jgtk.callbacks.GDestroyNotify;
+import com.gitlab.ccook.jgtk.callbacks.GSourceFunc;
+import com.gitlab.ccook.jgtk.callbacks.GWeakNotify;
 import com.gitlab.ccook.jgtk.callbacks.GtkPrinterFunc;
 import com.gitlab.ccook.jgtk.callbacks.GtkTextCharPredicate;
 import com.gitlab.ccook.jgtk.callbacks.GtkTextTagTableForeach;
+import com.gitlab.ccook.jgtk.callbacks.GtkTickCallback;
 import com.sun.jna.Callback;
 import com.sun.jna.Native;
 import com.sun.jna.Pointer;
@@ -51,6 +54,8 @@ public class GtkLibrary {
 
     public native Pointer g_date_time_new_from_iso8601(String iso, Pointer o);
 
+    public native void g_error_free(Pointer error);
+
     public native int g_file_error_from_errno(int code);
 
     public native String g_file_get_parse_name(Pointer cReference);
@@ -69,6 +74,14 @@ public class GtkLibrary {
 
     public native Pointer g_icon_new_for_string(String iconForString);
 
+    public native int g_idle_add_full(int priority, GSourceFunc function, Pointer data, GDestroyNotify notify);
+
+    public native Pointer g_main_context_default();
+
+    public native boolean g_main_context_is_owner(Pointer context);
+
+    public native boolean g_main_context_iteration(Pointer context, boolean mayBlock);
+
     public native int g_list_length(Pointer cReference);
 
     public native Pointer g_list_model_get_item(Pointer cReference, int n);
@@ -84,14 +97,24 @@ public class GtkLibrary {
 
     public native void g_object_get_property(Pointer cReference, String s, PointerByReference p);
 
+    public native Pointer g_object_ref(Pointer cReference);
+
     public native void g_object_set_property(Pointer cReference, String s, Pointer b);
 
+    public native void g_object_unref(Pointer cReference);
+
+    public native void g_object_weak_ref(Pointer object, GWeakNotify notify, Pointer data);
+
+    public native void g_object_weak_unref(Pointer object, GWeakNotify notify, Pointer data);
+
     public native int g_quark_from_static_string(String s);
 
     public native void g_signal_connect_data(Pointer instance, String detailedSignal, Callback toConnect, Pointer data, Pointer nullPointer, int connectFlags0);
 
     public native void g_signal_emit_by_name(Pointer cReference, String detailedName, PointerByReference returnOut);
 
+    public native int g_signal_handlers_disconnect_matched(Pointer instance, int mask, int signalId, int detail, Pointer closure, Callback func, Pointer data);
+
     public void g_signal_emit_by_name(Pointer cReference, String detailedName, Pointer[] params) {
         INSTANCE.g_signal_emit_by_name(cReference, detailedName, params);
     }
@@ -99,6 +122,8 @@ public class GtkLibrary {
 
     public native Pointer g_simple_permission_new(boolean isAllowed);
 
+    public native void g_slist_free(Pointer cReference);
+
     public native int g_slist_length(Pointer cReference);
 
     public native Pointer g_slist_nth(Pointer cReference, int index);
@@ -107,6 +132,8 @@ public class GtkLibrary {
 
     public native String g_type_name_from_instance(Pointer cReference);
 
+    public native boolean g_utf8_validate(Pointer str, long maxLen, Pointer end);
+
     public native Pointer g_value_dup_object(Pointer cReference);
 
     public native boolean g_value_get_boolean(Pointer p);
@@ -129,6 +156,10 @@ public class GtkLibrary {
 
     public native Pointer g_variant_new_string(String str);
 
+    public native long gdk_frame_clock_get_frame_time(Pointer frameClock);
+
+    public native void gdk_frame_clock_get_refresh_info(Pointer frameClock, long baseTime, long[] refreshIntervalReturn, long[] presentationTimeReturn);
+
     public native Pointer gdk_pixbuf_new_from_file(String absolutePath, GError.GErrorStruct error);
 
     public native boolean gdk_rectangle_equal(Pointer cReference, Pointer cReference1);
@@ -279,10 +310,18 @@ public class GtkLibrary {
 
     public native int gtk_bitset_get_size(Pointer cReference);
 
+    public native long gtk_bitset_get_size_in_range(Pointer cReference, int first, int last);
+
     public native void gtk_bitset_intersect(Pointer cReference, Pointer cReference1);
 
     public native boolean gtk_bitset_is_empty(Pointer cReference);
 
+    public native boolean gtk_bitset_iter_init_at(Pointer iter, Pointer set, int target, Pointer value);
+
+    public native boolean gtk_bitset_iter_init_first(Pointer iter, Pointer set, Pointer value);
+
+    public native boolean gtk_bitset_iter_next(Pointer iter, Pointer value);
+
     public native Pointer gtk_bitset_new_empty();
 
     public native Pointer gtk_bitset_new_range(int startPosition, int numberOfItems);
@@ -305,6 +344,8 @@ public class GtkLibrary {
 
     public native void gtk_bitset_union(Pointer cReference, Pointer cReference1);
 
+    public native void gtk_bitset_unref(Pointer cReference);
+
     public native String gtk_buildable_get_buildable_id(Pointer cReference);
 
     public native String gtk_check_version(int minorVersion, int minorVersion1, int patchVersion);
@@ -556,7 +597,7 @@ public class GtkLibrary {
 
     public native boolean gtk_text_iter_backward_lines(Pointer cReference, int numLines);
 
-    public native boolean gtk_text_iter_backward_search(Pointer cReference, String search, int cValueFromFlags, PointerByReference matchStart, PointerByReference matchEnd, Pointer limitPointer);
+    public native boolean gtk_text_iter_backward_search(Pointer cReference, String search, int cValueFromFlags, Pointer matchStart, Pointer matchEnd, Pointer limitPointer);
 
     public native boolean gtk_text_iter_backward_sentence_start(Pointer cReference);
 
@@ -612,7 +653,7 @@ public class GtkLibrary {
 
     public native boolean gtk_text_iter_forward_lines(Pointer cReference, int numLines);
 
-    public native boolean gtk_text_iter_forward_search(Pointer cReference, String search, int cValueFromFlags, PointerByReference matchStart, PointerByReference matchEnd, Pointer limitPointer);
+    public native boolean gtk_text_iter_forward_search(Pointer cReference, String search, int cValueFromFlags, Pointer matchStart, Pointer matchEnd, Pointer limitPointer);
 
     public native boolean gtk_text_iter_forward_sentence_end(Pointer cReference);
 
@@ -762,18 +803,32 @@ public class GtkLibrary {
 
     public native void gtk_widget_add_mnemonic_label(Pointer cReference, Pointer cReference1);
 
+    public native int gtk_widget_add_tick_callback(Pointer cReference, GtkTickCallback callback, Pointer userData, Pointer notify);
+
     public native int gtk_widget_get_allocated_height(Pointer cReference);
 
     public native int gtk_widget_get_allocated_width(Pointer cReference);
 
     public native void gtk_widget_get_allocation(Pointer cReference, GdkRectangle.GdkRectangleStruct.ByReference pbr);
 
+    public native void gtk_widget_get_allocation(Pointer cReference, Pointer allocation);
+
+    public native void gtk_widget_get_allocation(Pointer cReference, int[] allocation);
+
     public native int gtk_widget_get_default_direction();
 
+    public native Pointer gtk_widget_get_frame_clock(Pointer cReference);
+
+    public native boolean gtk_widget_has_css_class(Pointer cReference, String cssClass);
+
     public native void gtk_widget_insert_after(Pointer cReference, Pointer cReference1, Pointer cReference2);
 
     public native Pointer gtk_widget_observe_children(Pointer cReference);
 
+    public native void gtk_widget_remove_css_class(Pointer cReference, String cssClass);
+
+    public native void gtk_widget_remove_tick_callback(Pointer cReference, int id);
+
     public native void gtk_widget_set_default_direction(int cValue);
 
     public native void gtk_widget_set_parent(Pointer cReference, Pointer cReference1);
@@ -0,0 +1,198 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jna;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A thread-local, stack-like allocator for short-lived native structs (GtkTextIter, GdkRectangle, GdkRGBA, GError*
+ * slots, ...).
+ * <p>
+ * Memory is handed out from per-thread slabs and reclaimed in bulk when the enclosing {@link Scope} is closed:
+ * <pre>
+ * try (NativeArena.Scope scope = NativeArena.open()) {
+ *     GtkTextIter start = buffer.getStartIterator(scope);
+ *     GtkTextIter end = buffer.getEndIterator(scope);
+ *     ...
+ * }
+ * </pre>
+ * Anything allocated from a scope (and any wrapper living on that memory) must not be used after the scope is closed.
+ * Scopes nest, must be closed in the reverse order they were opened, and may only be used on the thread that opened
+ * them.
+ */
+public final class NativeArena {
+    /**
+     * Size of a single slab, requests larger than this get a dedicated allocation
+     */
+    public static final int SLAB_SIZE = 64 * 1024;
+    private static final int ALIGNMENT = 8;
+    private static final ThreadLocal<NativeArena> ARENA = ThreadLocal.withInitial(NativeArena::new);
+
+    private final Thread owner = Thread.currentThread();
+    private final List<Memory> slabs = new ArrayList<>();
+    private final List<Scope> scopes = new ArrayList<>();
+    private int depth = 0;
+    private int slabIndex = 0;
+    private long offset = 0;
+
+    private NativeArena() {
+        slabs.add(new Memory(SLAB_SIZE));
+    }
+
+    /**
+     * Opens a new scope on the calling thread's arena
+     *
+     * @return The opened scope, close it (try-with-resources) to reclaim everything allocated from it
+     */
+    public static Scope open() {
+        return ARENA.get().push();
+    }
+
+    private static long align(long value) {
+        return (value + ALIGNMENT - 1) & ~(long) (ALIGNMENT - 1);
+    }
+
+    private Scope push() {
+        if (depth == scopes.size()) {
+            scopes.add(new Scope(this, depth));
+        }
+        Scope scope = scopes.get(depth++);
+        scope.reset(slabIndex, offset);
+        return scope;
+    }
+
+    private void pop(Scope scope) {
+        if (depth == 0 || scopes.get(depth - 1) != scope) {
+            throw new IllegalStateException("NativeArena scopes must be closed in the reverse order they were opened");
+        }
+        depth--;
+        slabIndex = scope.markSlab;
+        offset = scope.markOffset;
+    }
+
+    private Pointer bump(int size) {
+        long aligned = align(size);
+        if (offset + aligned > SLAB_SIZE) {
+            slabIndex++;
+            if (slabIndex == slabs.size()) {
+                slabs.add(new Memory(SLAB_SIZE));
+            }
+            offset = 0;
+        }
+        Memory slab = slabs.get(slabIndex);
+        Pointer p = slab.share(offset, size);
+        p.setMemory(0, size, (byte) 0);
+        offset += aligned;
+        return p;
+    }
+
+    /**
+     * A region of the calling thread's arena. Instances are recycled by the arena, so do not hold on to a scope after
+     * closing it.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final NativeArena arena;
+        private final int level;
+        private final List<Memory> oversized = new ArrayList<>();
+        private int markSlab;
+        private long markOffset;
+        private boolean open;
+
+        private Scope(NativeArena arena, int level) {
+            this.arena = arena;
+            this.level = level;
+        }
+
+        private void reset(int markSlab, long markOffset) {
+            this.markSlab = markSlab;
+            this.markOffset = markOffset;
+            this.open = true;
+        }
+
+        /**
+         * Allocates size bytes of zeroed, 8-byte aligned native memory valid until this scope is closed
+         *
+         * @param size number of bytes
+         * @return Pointer to the allocated memory
+         */
+        public Pointer allocate(int size) {
+            checkAccess();
+            if (size <= 0) {
+                throw new IllegalArgumentException("Cannot allocate " + size + " bytes");
+            }
+            if (arena.depth - 1 != level) {
+                throw new IllegalStateException("Cannot allocate from a NativeArena scope while a nested scope is open");
+            }
+            if (size > SLAB_SIZE) {
+                Memory m = new Memory(size);
+                m.clear();
+                oversized.add(m);
+                return m;
+            }
+            return arena.bump(size);
+        }
+
+        /**
+         * Allocates a zeroed pointer-sized slot, e.g. for a GError** or other out-parameter
+         *
+         * @return Pointer to the slot
+         */
+        public Pointer allocatePointer() {
+            return allocate(Native.POINTER_SIZE);
+        }
+
+        /**
+         * @return true if this scope has not been closed yet
+         */
+        public boolean isOpen() {
+            return open;
+        }
+
+        /**
+         * Reclaims everything allocated from this scope
+         */
+        @Override
+        public void close() {
+            checkAccess();
+            arena.pop(this);
+            for (Memory m : oversized) {
+                m.close();
+            }
+            oversized.clear();
+            open = false;
+        }
+
+        private void checkAccess() {
+            if (!open) {
+                throw new IllegalStateException("NativeArena scope is closed");
+            }
+            if (Thread.currentThread() != arena.owner) {
+                throw new IllegalStateException("NativeArena scope used outside its owning thread");
+            }
+        }
+    }
+}
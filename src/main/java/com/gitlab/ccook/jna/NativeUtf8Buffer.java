@@ -0,0 +1,162 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jna;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reusable, thread-local native buffer that Strings are encoded into as nul-terminated UTF-8, without an
+ * intermediate byte[].
+ * <pre>
+ * NativeUtf8Buffer utf8 = NativeUtf8Buffer.encode(text);
+ * try {
+ *     gtk_text_buffer_insert(buffer, iter, utf8.getPointer(), utf8.length());
+ * } finally {
+ *     utf8.release();
+ * }
+ * </pre>
+ * If the thread's buffer is still in use (e.g. a signal handler inserting text while an outer insert is running),
+ * a temporary buffer is handed out instead, so nested use is safe.
+ */
+public final class NativeUtf8Buffer {
+    /**
+     * Buffers grown beyond this are freed on release instead of being kept for reuse
+     */
+    public static final int RETAINED_CAPACITY = 1 << 20;
+    private static final int INITIAL_CAPACITY = 4096;
+    private static final ThreadLocal<NativeUtf8Buffer> BUFFER = ThreadLocal.withInitial(() -> new NativeUtf8Buffer(true));
+
+    private final boolean shared;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private Memory memory;
+    private int length;
+    private boolean inUse;
+
+    private NativeUtf8Buffer(boolean shared) {
+        this.shared = shared;
+    }
+
+    /**
+     * Encodes text as nul-terminated UTF-8. Call release() once the native side is done with it.
+     * <p>
+     * Unpaired surrogates are encoded as '?'.
+     *
+     * @param text The text to encode
+     * @return A buffer holding the encoded text
+     */
+    public static NativeUtf8Buffer encode(CharSequence text) {
+        NativeUtf8Buffer b = BUFFER.get();
+        if (b.inUse) {
+            b = new NativeUtf8Buffer(false);
+        }
+        b.inUse = true;
+        b.fill(text);
+        return b;
+    }
+
+    /**
+     * @param text The text to measure
+     * @return The number of bytes text encodes to as UTF-8, counting unpaired surrogates as the 1-byte '?'
+     */
+    public static long utf8Length(CharSequence text) {
+        long bytes = 0;
+        int n = text.length();
+        for (int i = 0; i < n; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private void fill(CharSequence text) {
+        // Sized exactly, so a large ASCII text takes as many native bytes as it has chars
+        long needed = utf8Length(text) + 1;
+        if (needed > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Text too large to encode: " + text.length() + " chars");
+        }
+        ensureCapacity((int) needed);
+        ByteBuffer out = memory.getByteBuffer(0, needed);
+        encoder.reset();
+        CoderResult r = encoder.encode(CharBuffer.wrap(text), out, true);
+        if (!r.isUnderflow()) {
+            throw new IllegalStateException("Could not encode text as UTF-8: " + r);
+        }
+        encoder.flush(out);
+        length = out.position();
+        memory.setByte(length, (byte) 0);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (memory == null || memory.size() < capacity) {
+            if (memory != null) {
+                memory.close();
+            }
+            memory = new Memory(Math.max(capacity, INITIAL_CAPACITY));
+        }
+    }
+
+    /**
+     * @return Pointer to the encoded, nul-terminated bytes
+     */
+    public Pointer getPointer() {
+        return memory;
+    }
+
+    /**
+     * @return Number of encoded bytes, not counting the terminating nul
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Hands the buffer back for reuse. The pointer must not be used afterwards.
+     */
+    public void release() {
+        inUse = false;
+        if (!shared || memory.size() > RETAINED_CAPACITY) {
+            memory.close();
+            memory = null;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import com.gitlab.ccook.jgtk.bitfields.GApplicationFlags;
 import com.gitlab.ccook.jgtk.bitfields.GConnectFlags;
 import com.gitlab.ccook.jgtk.callbacks.GtkCallbackFunction;
 import com.gitlab.ccook.jgtk.gtk.GtkWindow;
+import com.gitlab.ccook.jgtk.interfaces.GtkInterface;
 import com.sun.jna.Pointer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -43,6 +44,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -211,6 +213,31 @@ public abstract class JGTKJUnitTest {
 
     }
 
+    /**
+     * Dispatches main loop sources (idle callbacks, ...) from inside testGtkElement until condition holds
+     *
+     * @param condition     Checked between iterations
+     * @param timeoutMillis Give up after this many milliseconds
+     * @return true if condition held before the timeout
+     */
+    protected boolean iterateMainLoopUntil(BooleanSupplier condition, long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            if (!GtkInterface.library.g_main_context_iteration(Pointer.NULL, false)) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return condition.getAsBoolean();
+                }
+            }
+        }
+        return true;
+    }
+
     protected abstract void testGtkElement(GtkApplication gtkApplication) throws Exception;
 
 }
@@ -0,0 +1,85 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.JGTKJUnitTest;
+import com.gitlab.ccook.jgtk.GListStore;
+import com.gitlab.ccook.jgtk.GtkApplication;
+import com.gitlab.ccook.jgtk.callbacks.ItemsChangedCallback;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.sun.jna.Pointer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GListStoreTest extends JGTKJUnitTest {
+    private static final int MATCH_FUNC = 1 << 3;
+
+    @Override
+    protected void testGtkElement(GtkApplication gtkApplication) {
+        GListStore<GtkLabel> store = new GListStore<>(GtkLabel.class);
+        GtkLibrary library = new GtkLibrary();
+        List<int[]> changes = new ArrayList<>();
+        ItemsChangedCallback recorder = (list, position, removed, added, userData) -> changes.add(new int[]{position, removed, added});
+        library.g_signal_connect_data(store.getCReference(), "items-changed", recorder, Pointer.NULL, Pointer.NULL, 0);
+        GtkLabel b = new GtkLabel("b");
+        GtkLabel a = new GtkLabel("a");
+        GtkLabel c = new GtkLabel("c");
+        store.append(b);
+        changes.clear();
+        store.splice(1, 0, Arrays.asList(c, a));
+        assertEquals(1, changes.size());
+        assertArrayEquals(new int[]{1, 0, 2}, changes.get(0));
+        assertEquals(3, store.size());
+        assertEquals(1, store.find(c).get());
+
+        store.sort(Comparator.comparing(GtkLabel::getText));
+        assertEquals("a", store.getItem(0).get().getText());
+        assertEquals("c", store.getItem(2).get().getText());
+        assertEquals(2, store.find(new GtkLabel("c"), (x, y) -> x.getText().equals(y.getText())).get());
+        assertFalse(store.find(new GtkLabel("z")).isDefined());
+
+        GtkLabel bb = new GtkLabel("bb");
+        assertEquals(2, store.insertSorted(bb, Comparator.comparing(GtkLabel::getText)));
+
+        List<GtkLabel> replacement = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            replacement.add(new GtkLabel("r" + i));
+        }
+        // Replacing the whole content is one model change
+        int oldSize = store.size();
+        changes.clear();
+        store.replaceAll(replacement);
+        assertEquals(1, changes.size());
+        assertArrayEquals(new int[]{0, oldSize, 100}, changes.get(0));
+        assertEquals(100, store.size());
+        assertEquals("r99", store.getItem(99).get().getText());
+        store.removeAll();
+        assertEquals(0, store.size());
+        library.g_signal_handlers_disconnect_matched(store.getCReference(), MATCH_FUNC, 0, 0, Pointer.NULL, recorder, Pointer.NULL);
+        gtkApplication.quit();
+    }
+}
@@ -0,0 +1,63 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.JGTKJUnitTest;
+import com.gitlab.ccook.jgtk.GtkApplication;
+import com.gitlab.ccook.jgtk.GtkBitset;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GtkBitsetTest extends JGTKJUnitTest {
+    @Override
+    protected void testGtkElement(GtkApplication gtkApplication) {
+        BitSet bits = new BitSet();
+        bits.set(3);
+        bits.set(10, 15);
+        bits.set(100, 100000);
+        bits.set(100002);
+        GtkBitset bitset = GtkBitset.fromBitSet(bits);
+        assertEquals(bits.cardinality(), bitset.size());
+        assertEquals(bits, bitset.toBitSet());
+        assertArrayEquals(bits.stream().toArray(), bitset.toIntArray());
+        assertArrayEquals(bits.stream().toArray(), bitset.stream().toArray());
+        assertEquals(3, bitset.stream().limit(1).sum());
+
+        List<int[]> ranges = new ArrayList<>();
+        bitset.forEachRange((first, last) -> ranges.add(new int[]{first, last}));
+        assertEquals(4, ranges.size());
+        assertArrayEquals(new int[]{3, 3}, ranges.get(0));
+        assertArrayEquals(new int[]{10, 14}, ranges.get(1));
+        assertArrayEquals(new int[]{100, 99999}, ranges.get(2));
+        assertArrayEquals(new int[]{100002, 100002}, ranges.get(3));
+
+        GtkBitset sorted = GtkBitset.fromSortedInts(new int[]{1, 2, 2, 3, 7, 9, 10});
+        assertArrayEquals(new int[]{1, 2, 3, 7, 9, 10}, sorted.toIntArray());
+        assertEquals(0, GtkBitset.fromSortedInts(new int[0]).size());
+        assertEquals(0, new GtkBitset().toIntArray().length);
+        gtkApplication.quit();
+    }
+}
@@ -25,6 +25,9 @@ import com.gitlab.ccook.JGTKJUnitTest;
 import com.gitlab.ccook.jgtk.GtkApplication;
 import com.gitlab.ccook.jgtk.IconName;
 import com.gitlab.ccook.jgtk.MnemonicLabel;
+import com.gitlab.ccook.jgtk.annotations.OnSignal;
+import com.gitlab.ccook.jgtk.annotations.SignalTrampolines;
+import com.gitlab.ccook.jgtk.enums.GtkOrientation;
 import com.gitlab.ccook.util.Option;
 
 
@@ -67,6 +70,21 @@ public class GtkButtonTest extends JGTKJUnitTest {
         buttonA.setChild(gtkWidget);
         assertEquals(buttonA.getLabel().get(), newLabel);
 
+        ClickHandler handler = new ClickHandler(buttonA);
+        GtkButtonTest_ClickHandler_Signals.connect(handler);
+        buttonA.emitSignal("clicked");
+        assertEquals(handler.clicks, 1);
+
+        // The trampolines are dropped once their instance is finalized
+        GtkBox holder = new GtkBox(GtkOrientation.GTK_ORIENTATION_VERTICAL, 0);
+        GtkButton shortLived = new GtkButton("shortLived");
+        holder.append(shortLived);
+        int connectedBefore = SignalTrampolines.getConnectedInstanceCount();
+        GtkButtonTest_ClickHandler_Signals.connect(new ClickHandler(shortLived));
+        assertEquals(SignalTrampolines.getConnectedInstanceCount(), connectedBefore + 1);
+        holder.remove(shortLived);
+        assertEquals(SignalTrampolines.getConnectedInstanceCount(), connectedBefore);
+
         List<GtkButton> iconButtons = getRandomIconButtons();
         for (GtkButton b : iconButtons) {
             Option<IconName> iconName1 = b.getIconName();
@@ -79,6 +97,20 @@ public class GtkButtonTest extends JGTKJUnitTest {
         gtkApplication.quit();
     }
 
+    static class ClickHandler {
+        final GtkButton button;
+        int clicks = 0;
+
+        ClickHandler(GtkButton button) {
+            this.button = button;
+        }
+
+        @OnSignal(value = "clicked", source = "button")
+        void onClicked() {
+            clicks++;
+        }
+    }
+
     private List<GtkButton> getRandomIconButtons() {
         List<GtkButton> buttons = new ArrayList<>();
         File f = new File("/usr/share/icons/gnome/8x8/emblems/");
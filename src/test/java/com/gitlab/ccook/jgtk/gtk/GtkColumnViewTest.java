@@ -0,0 +1,80 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.JGTKJUnitTest;
+import com.gitlab.ccook.jgtk.GtkApplication;
+import com.gitlab.ccook.jgtk.utils.DataGrid;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GtkColumnViewTest extends JGTKJUnitTest {
+    @Override
+    protected void testGtkElement(GtkApplication gtkApplication) {
+        GtkColumnView view = new GtkColumnView(new GtkSingleSelection<>(new JavaListModel<>(Arrays.asList("a", "b"))));
+        GtkColumnViewColumn column = new GtkColumnViewColumn("Name", new GtkSignalListItemFactory());
+        view.appendColumn(column);
+        assertEquals("Name", column.getTitle().get());
+        column.setTitle("Title");
+        assertEquals("Title", column.getTitle().get());
+        column.shouldExpand(true);
+        assertTrue(column.doesExpand());
+        column.setFixedWidth(120);
+        assertEquals(120, column.getFixedWidth());
+        view.shouldShowRowSeparators(true);
+        assertTrue(view.doesShowRowSeparators());
+        view.shouldShowColumnSeparators(true);
+        assertTrue(view.doesShowColumnSeparators());
+        assertTrue(view.getModel().isDefined());
+        assertTrue(view.getSorter().isDefined());
+        view.removeColumn(column);
+
+        DataGrid grid = new DataGrid(4);
+        DataGrid.DoubleColumn price = grid.addDoubleColumn("Price", v -> String.format("%.2f", v));
+        DataGrid.StringColumn name = grid.addStringColumn("Name");
+        price.set(0, new double[]{3, 1, 2, 1});
+        name.set(0, "c");
+        name.set(1, "a");
+        name.set(2, "b");
+        name.set(3, "a");
+        assertEquals(2, name.getDictionarySize());
+        assertEquals(4, grid.getRowCount());
+
+        grid.sortBy(price, true);
+        assertEquals(1, grid.getRow(0));
+        assertEquals(3, grid.getRow(1));
+        assertEquals(0, grid.getRow(3));
+        grid.sortBy(name, false);
+        assertEquals(0, grid.getRow(0));
+        assertEquals(2, grid.getRow(1));
+        grid.unsort();
+        assertEquals(2, grid.getRow(2));
+
+        GtkApplicationWindow window = new GtkApplicationWindow(gtkApplication);
+        window.setDefaultSize(500, 500);
+        window.setChild(grid.getView());
+        window.show();
+        gtkApplication.quit();
+    }
+}
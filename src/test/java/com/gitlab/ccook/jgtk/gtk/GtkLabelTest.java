@@ -25,6 +25,7 @@ package com.gitlab.ccook.jgtk.gtk;
 import com.gitlab.ccook.JGTKJUnitTest;
 import com.gitlab.ccook.jgtk.*;
 import com.gitlab.ccook.jgtk.enums.*;
+import com.gitlab.ccook.jgtk.utils.UICommandBuffer;
 import com.gitlab.ccook.util.Option;
 
 
@@ -47,6 +48,32 @@ public class GtkLabelTest extends JGTKJUnitTest {
         label1.usePangoMarkup(true);
         label1.setSelectable(true);
         b.append(label1);
+        UICommandBuffer commands = new UICommandBuffer();
+        GtkLabel feedLabel = new GtkLabel("0");
+        for (int i = 1; i <= 100; i++) {
+            commands.setText(feedLabel, String.valueOf(i));
+        }
+        commands.addCSSClass(feedLabel, "dim-label");
+        commands.removeCSSClass(feedLabel, "dim-label");
+        commands.addCSSClass(feedLabel, "title");
+        assertEquals(commands.size(), 3);
+        commands.flush();
+        assertEquals(commands.size(), 0);
+        assertEquals(feedLabel.getText(), "100");
+        assertFalse(feedLabel.hasCSSClass("dim-label"));
+        assertTrue(feedLabel.hasCSSClass("title"));
+        // A failing command is logged and the commands after it still run
+        GtkLabel otherLabel = new GtkLabel("0");
+        commands.record(feedLabel, "failing", () -> {
+            throw new IllegalStateException("command failure");
+        });
+        commands.setText(feedLabel, "after failure");
+        commands.setText(otherLabel, "other");
+        commands.flush();
+        assertEquals(commands.size(), 0);
+        assertEquals(feedLabel.getText(), "after failure");
+        assertEquals(otherLabel.getText(), "other");
+
         GtkLabel mnLabel = new GtkLabel(new MnemonicLabel("_File"));
         b.append(mnLabel);
 
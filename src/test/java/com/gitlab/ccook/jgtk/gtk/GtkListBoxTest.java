@@ -29,6 +29,7 @@ import com.gitlab.ccook.util.Option;
 import com.sun.jna.Pointer;
 
 
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -127,6 +128,24 @@ public class GtkListBoxTest extends JGTKJUnitTest {
         box.setFilter((row, userData) -> false, Pointer.NULL, data -> {
 
         });
+
+        GtkListBox bound = new GtkListBox();
+        JavaListModel<String> statuses = new JavaListModel<>(Arrays.asList("up", "down", "degraded"));
+        AtomicInteger created = new AtomicInteger();
+        WidgetModelBinding<String> binding = bound.bindModel(statuses, status -> {
+            created.incrementAndGet();
+            return new GtkLabel(status);
+        }).recycle((status, widget) -> ((GtkLabel) widget).setText(status), 8);
+        assertEquals(3, created.get());
+        assertTrue(bound.getRowAtIndex(2).isDefined());
+        statuses.remove(0);
+        assertEquals(1, binding.getPooledCount());
+        statuses.add("up");
+        assertEquals(0, binding.getPooledCount());
+        assertEquals(3, created.get());
+        assertTrue(binding.isBound());
+        bound.bindModel(null, null, null, null);
+        assertFalse(binding.isBound());
         gtkApplication.quit();
     }
 }
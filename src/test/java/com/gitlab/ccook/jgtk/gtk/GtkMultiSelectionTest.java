@@ -0,0 +1,74 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.JGTKJUnitTest;
+import com.gitlab.ccook.jgtk.GtkApplication;
+import com.gitlab.ccook.jgtk.GtkMultiSelection;
+import com.gitlab.ccook.jgtk.utils.SelectionDeltaTracker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GtkMultiSelectionTest extends JGTKJUnitTest {
+    @Override
+    protected void testGtkElement(GtkApplication gtkApplication) {
+        List<String> strings = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            strings.add("row " + i);
+        }
+        GtkStringList list = new GtkStringList();
+        list.addAll(strings);
+        GtkMultiSelection selection = new GtkMultiSelection(list);
+
+        List<int[]> selected = new ArrayList<>();
+        List<int[]> deselected = new ArrayList<>();
+        SelectionDeltaTracker tracker = new SelectionDeltaTracker(selection, (added, removed) -> {
+            selected.add(added);
+            deselected.add(removed);
+        });
+
+        assertTrue(selection.selectAll());
+        assertEquals(1, selected.size());
+        assertArrayEquals(new int[]{0, 999}, selected.get(0));
+        assertEquals(0, deselected.get(0).length);
+        assertTrue(tracker.isSelected(500));
+
+        assertTrue(selection.deselectRange(10, 5));
+        assertArrayEquals(new int[]{10, 14}, deselected.get(1));
+        assertFalse(tracker.isSelected(12));
+
+        // Removing rows shifts the tracked selection without reporting
+        list.splice(0, 10, null);
+        assertEquals(2, selected.size());
+        assertFalse(tracker.isSelected(0));
+        assertTrue(tracker.isSelected(5));
+        assertEquals(985, tracker.getSelection().cardinality());
+
+        tracker.dispose();
+        selection.deselectAll();
+        assertEquals(2, selected.size());
+        gtkApplication.quit();
+    }
+}
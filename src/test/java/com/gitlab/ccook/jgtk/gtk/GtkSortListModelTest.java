@@ -0,0 +1,105 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.JGTKJUnitTest;
+import com.gitlab.ccook.jgtk.GObject;
+import com.gitlab.ccook.jgtk.GtkApplication;
+import com.gitlab.ccook.jgtk.enums.GtkSorterOrder;
+import com.gitlab.ccook.jna.GtkLibrary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GtkSortListModelTest extends JGTKJUnitTest {
+    @Override
+    protected void testGtkElement(GtkApplication gtkApplication) {
+        GtkLibrary library = new GtkLibrary();
+        JavaListModel<Integer> model = new JavaListModel<>(Arrays.asList(5, 3, 8, 1, 4, 6));
+        GtkCustomSorter sorter = GtkCustomSorter.comparing(p -> model.getItem(p).get(), i -> -i);
+        assertEquals(GtkSorterOrder.GTK_SORTER_ORDER_PARTIAL, sorter.getOrder());
+
+        GtkSortListModel<GObject> sorted = new GtkSortListModel<>(model, sorter);
+        assertFalse(sorted.isIncremental());
+        assertEquals(6, sorted.size());
+        assertEquals(8, model.getItem(library.g_list_model_get_item(sorted.getCReference(), 0)).get());
+        assertEquals(1, model.getItem(library.g_list_model_get_item(sorted.getCReference(), 5)).get());
+        assertEquals(0, sorted.getPending());
+        assertTrue(sorted.getModel().isDefined());
+        assertTrue(sorted.getSorter().isDefined());
+
+        GtkCustomFilter filter = GtkCustomFilter.of(p -> model.getItem(p).get(), i -> i % 2 == 0);
+        GtkFilterListModel<GObject> filtered = new GtkFilterListModel<>(sorted, filter);
+        assertEquals(3, filtered.size());
+        assertEquals(8, model.getItem(library.g_list_model_get_item(filtered.getCReference(), 0)).get());
+        assertTrue(filtered.getFilter().isDefined());
+
+        filter.setFilterFunction(null);
+        assertEquals(6, filtered.size());
+
+        JavaListModel<Integer> source = new JavaListModel<>(Arrays.asList(3, 1, 2));
+        GtkCustomSorter byValue = GtkCustomSorter.comparing(p -> source.getItem(p).get(), i -> i);
+        GtkSortListModel<GObject> ascending = new GtkSortListModel<>(source, byValue);
+        GtkCustomSorter byNegated = GtkCustomSorter.comparing(p -> source.getItem(p).get(), i -> -i);
+        GtkSortListModel<GObject> descendingView = new GtkSortListModel<>(source, byNegated);
+        assertEquals(3, byValue.getCachedKeyCount());
+        assertEquals(3, byNegated.getCachedKeyCount());
+        // the sort models held the only references to the removed item, so its key leaves both caches
+        source.remove(0);
+        assertEquals(2, byValue.getCachedKeyCount());
+        assertEquals(2, byNegated.getCachedKeyCount());
+        descendingView.setSorter(null);
+        byNegated.invalidateKeys();
+        assertEquals(0, byNegated.getCachedKeyCount());
+        source.add(0);
+        assertEquals(3, byValue.getCachedKeyCount());
+        assertEquals(0, source.getItem(library.g_list_model_get_item(ascending.getCReference(), 0)).get());
+        assertEquals(2, source.getItem(library.g_list_model_get_item(ascending.getCReference(), 2)).get());
+        byValue.invalidateKeys();
+        assertEquals(3, byValue.getCachedKeyCount());
+        byValue.setSortFunction(null);
+        assertEquals(0, byValue.getCachedKeyCount());
+
+        sorted.setIncremental(true);
+        assertTrue(sorted.isIncremental());
+        filtered.setIncremental(true);
+        assertTrue(filtered.isIncremental());
+
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            values.add(i);
+        }
+        JavaListModel<Integer> large = new JavaListModel<>(values);
+        GtkCustomSorter descending = GtkCustomSorter.comparing(p -> large.getItem(p).get(), i -> -i);
+        GtkSortListModel<GObject> sliced = new GtkSortListModel<>(large, descending, true);
+        // the constructor sorted synchronously; a resort now runs in time slices on the main loop
+        descending.invalidateKeys();
+        assertTrue(sliced.getPending() > 0);
+        assertTrue(iterateMainLoopUntil(() -> sliced.getPending() == 0, 30000));
+        assertEquals(49999, large.getItem(library.g_list_model_get_item(sliced.getCReference(), 0)).get());
+        assertEquals(0, large.getItem(library.g_list_model_get_item(sliced.getCReference(), 49999)).get());
+        gtkApplication.quit();
+    }
+}
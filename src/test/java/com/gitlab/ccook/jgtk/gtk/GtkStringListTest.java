@@ -0,0 +1,68 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.JGTKJUnitTest;
+import com.gitlab.ccook.jgtk.GtkApplication;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GtkStringListTest extends JGTKJUnitTest {
+    @Override
+    protected void testGtkElement(GtkApplication gtkApplication) {
+        GtkStringList list = new GtkStringList("Hello", "World");
+        assertEquals(2, list.size());
+        assertEquals(2, new GtkStringList(list.getCReference()).size());
+
+        list.append("!");
+        assertEquals("!", list.getNth(2).get());
+        list.remove(2);
+        assertFalse(list.getNth(2).isDefined());
+
+        list.splice(1, 1, Arrays.asList("there", null, "world é"));
+        assertEquals(3, list.size());
+        assertEquals("there", list.getNth(1).get());
+        assertEquals("world é", list.getNth(2).get());
+
+        List<String> candidates = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            candidates.add("candidate " + i);
+        }
+        list.addAll(candidates.iterator(), 1000);
+        assertEquals(10003, list.size());
+        assertEquals("candidate 9999", list.getNth(10002).get());
+
+        list.splice(0, list.size(), null);
+        assertEquals(0, list.size());
+        long scratch = list.getScratchBytes();
+        // A splice larger than a batch uses one-off buffers and leaves the kept scratch alone
+        list.addAll(candidates);
+        assertEquals(10000, list.size());
+        assertEquals("candidate 9999", list.getNth(9999).get());
+        assertEquals(scratch, list.getScratchBytes());
+        gtkApplication.quit();
+    }
+}
@@ -28,6 +28,19 @@ import com.gitlab.ccook.jgtk.enums.GtkInputPurpose;
 import com.gitlab.ccook.jgtk.enums.GtkJustification;
 import com.gitlab.ccook.jgtk.enums.GtkTextWindowType;
 import com.gitlab.ccook.jgtk.enums.GtkWrapMode;
+import com.gitlab.ccook.jna.NativeArena;
+import com.gitlab.ccook.util.Option;
+import com.gitlab.ccook.util.Pair;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -62,6 +75,79 @@ public class GtkTextViewTest extends JGTKJUnitTest {
         view1.setBuffer(buffer);
         assertEquals(buffer, view1.getBuffer());
 
+        try (NativeArena.Scope scope = NativeArena.open()) {
+            GtkTextIter start = buffer.getStartIterator(scope);
+            GtkTextIter end = buffer.getEndIterator(scope);
+            assertEquals(start.getCharacterOffset(), 0);
+            assertEquals(end.getCharacterOffset(), 8);
+            assertEquals(buffer.getIteratorAtCharacterOffset(scope, 4).getCharacterOffset(), 4);
+            assertEquals(start.clone().compareTo(start), 0);
+        }
+
+        GtkTextIter.Pool pool = GtkTextIter.Pool.get();
+        GtkTextIter pooled = pool.acquire(buffer.getStartIterator());
+        pooled.moveForwardOneCharacter();
+        assertEquals(pooled.getCharacterOffset(), 1);
+        assertEquals(buffer.getEndIterator(pooled).getCharacterOffset(), 8);
+        assertEquals(buffer.getIteratorAtCharacterOffset(pooled, 3).getCharacterOffset(), 3);
+        pool.release(pooled);
+
+        GtkTextTag keyword = buffer.createTag("keyword", null);
+        GtkTextTag literal = buffer.createTag("literal", null);
+        GtkTextTag[] palette = new GtkTextTag[]{keyword, literal};
+        buffer.applyTagRanges(palette, new int[]{0, 4}, new int[]{3, 8}, new int[]{0, 1});
+        assertTrue(buffer.getIteratorAtCharacterOffset(1).hasTag(keyword));
+        assertTrue(buffer.getIteratorAtCharacterOffset(5).hasTag(literal));
+        buffer.applyTagRanges(palette, new int[]{4}, new int[]{8}, new int[]{0}, 1, 0, -1);
+        assertFalse(buffer.getIteratorAtCharacterOffset(1).hasTag(keyword));
+        assertFalse(buffer.getIteratorAtCharacterOffset(5).hasTag(literal));
+        assertTrue(buffer.getIteratorAtCharacterOffset(5).hasTag(keyword));
+        List<Integer> runBounds = new ArrayList<>();
+        buffer.forEachTagRun((startOffset, endOffset, tags) -> {
+            runBounds.add(startOffset);
+            runBounds.add(endOffset);
+            assertEquals(tags.isEmpty(), startOffset < 4);
+        });
+        assertEquals(runBounds, Arrays.asList(0, 4, 4, 8));
+
+        GtkTextBuffer editBuffer = new GtkTextBuffer("one two three");
+        editBuffer.edit(transaction -> transaction.replace(4, 7, "2").insert(0, "[").insert(13, "]").delete(3, 4));
+        Pair<GtkTextIter, GtkTextIter> editBounds = editBuffer.getTextBounds();
+        assertEquals(editBuffer.getText(editBounds.getFirst(), editBounds.getSecond(), true).get(), "[one2 three]");
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        try {
+            assertEquals(editBuffer.writeTo(Channels.newChannel(exported), true), 12);
+        } catch (IOException e) {
+            fail(e.getMessage());
+        }
+        assertEquals(new String(exported.toByteArray(), StandardCharsets.UTF_8), "[one2 three]");
+
+        // applyText edits in place; all wrappers of one native buffer share a single "changed" handler
+        int trackedBuffers = GtkTextBuffer.getTrackedBufferCount();
+        CompletableFuture<Boolean> applied = editBuffer.applyText("[one 2 three]\nfour");
+        assertTrue(iterateMainLoopUntil(applied::isDone, 10_000));
+        assertTrue(applied.getNow(false));
+        editBounds = editBuffer.getTextBounds();
+        assertEquals(editBuffer.getText(editBounds.getFirst(), editBounds.getSecond(), true).get(), "[one 2 three]\nfour");
+        GtkTextBuffer sameBuffer = new GtkTextBuffer(editBuffer.getCReference());
+        CompletableFuture<Boolean> stale = sameBuffer.applyText("replaced");
+        editBuffer.insertText("!", editBuffer.getEndIterator());
+        assertTrue(iterateMainLoopUntil(stale::isDone, 10_000));
+        assertFalse(stale.getNow(true));
+        assertEquals(GtkTextBuffer.getTrackedBufferCount(), trackedBuffers + 1);
+
+        GtkTextBuffer utf8Buffer = new GtkTextBuffer("h\u00e9llo w\u00f6rld \u2713");
+        assertEquals(utf8Buffer.getCharacterCount(), 13);
+        ByteBuffer bytes = ByteBuffer.allocateDirect(16);
+        bytes.put(" \u00fc\u00df".getBytes(StandardCharsets.UTF_8)).flip();
+        try (NativeArena.Scope scope = NativeArena.open()) {
+            utf8Buffer.insertText(bytes, bytes.remaining(), utf8Buffer.getEndIterator(scope));
+            assertEquals(utf8Buffer.getCharacterCount(), 16);
+            Option<String> utf8Text = utf8Buffer.getText(utf8Buffer.getStartIterator(scope), utf8Buffer.getEndIterator(scope), true);
+            assertTrue(utf8Text.isDefined());
+            assertEquals(utf8Text.get(), "h\u00e9llo w\u00f6rld \u2713 \u00fc\u00df");
+        }
+
         assertFalse(view1.getExtraMenu().isDefined());
         GMenuModel extraMenu = makeMainMenu();
         view1.setExtraMenu(extraMenu);
@@ -150,6 +236,13 @@ public class GtkTextViewTest extends JGTKJUnitTest {
         assertEquals(view1.getTopMarginSize(), 5);
 
         assertEquals(view1.getVisibleRectangle(), new GdkRectangle(0, -5, 0, 0));
+        int[] visible = new int[4];
+        view1.getVisibleRectangle(visible);
+        assertArrayEquals(visible, new int[]{0, -5, 0, 0});
+        int[] yRange = new int[2];
+        assertTrue(view1.getLineYRange(buffer.getStartIterator(), yRange));
+        assertFalse(view1.getLineYRange(null, yRange));
+        assertFalse(view1.getIteratorLocation(null, visible));
 
         assertEquals(view1.getWrapMode(), GtkWrapMode.GTK_WRAP_NONE);
         view1.setWrapMode(GtkWrapMode.GTK_WRAP_WORD);
@@ -0,0 +1,84 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.JGTKJUnitTest;
+import com.gitlab.ccook.jgtk.GtkApplication;
+import com.gitlab.ccook.jgtk.callbacks.ItemsChangedCallback;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.sun.jna.Pointer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JavaListModelTest extends JGTKJUnitTest {
+    private static final int MATCH_FUNC = 1 << 3;
+
+    @Override
+    protected void testGtkElement(GtkApplication gtkApplication) {
+        GtkLibrary library = new GtkLibrary();
+        JavaListModel<String> model = new JavaListModel<>(Arrays.asList("a", "b", "c"));
+        assertEquals(3, model.size());
+        assertEquals(3, library.g_list_model_get_n_items(model.getCReference()));
+
+        Pointer first = library.g_list_model_get_item(model.getCReference(), 0);
+        assertNotNull(first);
+        assertEquals("a", model.getItem(first).get());
+        // Items are cached while GTK holds them
+        assertEquals(first, library.g_list_model_get_item(model.getCReference(), 0));
+        assertNull(library.g_list_model_get_item(model.getCReference(), 3));
+
+        // A batch of edits emits one items-changed covering all of them
+        List<int[]> changes = new ArrayList<>();
+        ItemsChangedCallback recorder = (list, position, removed, added, userData) -> changes.add(new int[]{position, removed, added});
+        library.g_signal_connect_data(model.getCReference(), "items-changed", recorder, Pointer.NULL, Pointer.NULL, 0);
+        model.batch(() -> {
+            model.add("d");
+            model.remove(0);
+            model.set(0, "B");
+        });
+        assertEquals(1, changes.size());
+        assertArrayEquals(new int[]{0, 3, 3}, changes.get(0));
+        assertEquals(Arrays.asList("B", "c", "d"), model.asList());
+        assertEquals(3, library.g_list_model_get_n_items(model.getCReference()));
+        assertEquals("d", model.getItem(library.g_list_model_get_item(model.getCReference(), 2)).get());
+
+        // Items are cached weakly: once the last reference goes, so does the cache entry
+        assertEquals("a", model.getItemValue(first));
+        library.g_object_unref(first);
+        assertEquals("a", model.getItemValue(first));
+        library.g_object_unref(first);
+        assertNull(model.getItemValue(first));
+        assertFalse(JavaListModel.lookup(first).isDefined());
+
+        changes.clear();
+        model.clear();
+        assertEquals(1, changes.size());
+        assertArrayEquals(new int[]{0, 3, 0}, changes.get(0));
+        assertEquals(0, library.g_list_model_get_n_items(model.getCReference()));
+        library.g_signal_handlers_disconnect_matched(model.getCReference(), MATCH_FUNC, 0, 0, Pointer.NULL, recorder, Pointer.NULL);
+        gtkApplication.quit();
+    }
+}
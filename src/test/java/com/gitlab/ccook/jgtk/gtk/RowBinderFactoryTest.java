@@ -0,0 +1,109 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.gtk;
+
+import com.gitlab.ccook.JGTKJUnitTest;
+import com.gitlab.ccook.jgtk.GtkApplication;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.sun.jna.Pointer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RowBinderFactoryTest extends JGTKJUnitTest {
+    @Override
+    protected void testGtkElement(GtkApplication gtkApplication) {
+        JavaListModel<String> model = new JavaListModel<>(Arrays.asList("one", "two", "three"));
+        Pointer item = new GtkLibrary().g_list_model_get_item(model.getCReference(), 1);
+        assertEquals("two", model.getItemValue(item));
+        assertNull(model.getItemValue(null));
+
+        Set<GtkLabel> setUp = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<GtkLabel> tornDown = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<GtkLabel> bound = new ArrayList<>();
+        List<String> boundItems = new ArrayList<>();
+        List<String> unboundItems = new ArrayList<>();
+        RowBinderFactory<String, GtkLabel> factory = RowBinderFactory.forModel(model, new RowBinder<String, GtkLabel>() {
+            @Override
+            public GtkLabel setup(GtkListItem listItem) {
+                GtkLabel label = new GtkLabel("");
+                listItem.setChild(label);
+                setUp.add(label);
+                return label;
+            }
+
+            @Override
+            public void bind(GtkLabel label, String item, int position) {
+                bound.add(label);
+                boundItems.add(item);
+                label.setText(position + ": " + item);
+            }
+
+            @Override
+            public void unbind(GtkLabel label, String item) {
+                unboundItems.add(item);
+            }
+
+            @Override
+            public void teardown(GtkLabel label) {
+                tornDown.add(label);
+            }
+        });
+        assertEquals(0, factory.getRowWidgetCount());
+
+        // Each row widget gets one holder from setup, and bind is handed that holder with the decoded item
+        GtkListView view = new GtkListView(new GtkSingleSelection<>(model), factory);
+        GtkApplicationWindow window = new GtkApplicationWindow(gtkApplication);
+        window.setDefaultSize(500, 500);
+        window.setChild(view);
+        window.show();
+        assertTrue(iterateMainLoopUntil(() -> boundItems.containsAll(model.asList()), 10_000));
+        assertEquals(3, setUp.size());
+        assertEquals(3, factory.getRowWidgetCount());
+        assertTrue(setUp.containsAll(bound));
+        GtkLabel second = bound.get(boundItems.indexOf("two"));
+        assertEquals("1: two", second.getText());
+
+        // A changed item is bound to a holder the factory already tracks
+        model.set(1, "deux");
+        assertTrue(iterateMainLoopUntil(() -> boundItems.contains("deux"), 10_000));
+        assertTrue(unboundItems.contains("two"));
+        GtkLabel changed = bound.get(boundItems.lastIndexOf("deux"));
+        assertTrue(setUp.contains(changed));
+        assertFalse(tornDown.contains(changed));
+        assertEquals("1: deux", changed.getText());
+        assertEquals(setUp.size() - tornDown.size(), factory.getRowWidgetCount());
+
+        // Tearing the rows down unbinds them and drops every holder
+        window.destroy();
+        assertTrue(iterateMainLoopUntil(() -> factory.getRowWidgetCount() == 0, 10_000));
+        assertEquals(setUp, tornDown);
+        assertEquals(boundItems.size(), unboundItems.size());
+        gtkApplication.quit();
+    }
+}
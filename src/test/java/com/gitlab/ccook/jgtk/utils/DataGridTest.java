@@ -0,0 +1,79 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.JGTKJUnitTest;
+import com.gitlab.ccook.jgtk.GtkApplication;
+import com.gitlab.ccook.jgtk.gtk.GtkApplicationWindow;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.sun.jna.Pointer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataGridTest extends JGTKJUnitTest {
+    @Override
+    protected void testGtkElement(GtkApplication gtkApplication) {
+        int rows = 500;
+        DataGrid grid = new DataGrid(rows);
+        DataGrid.LongColumn price = grid.addLongColumn("Price", v -> "$" + v);
+        DataGrid.StringColumn name = grid.addStringColumn("Name");
+        for (int row = 0; row < rows; row++) {
+            price.set(row, row * 10L);
+            name.set(row, "row " + row);
+        }
+
+        // Every row has one item, also past the range of cached boxed Integers
+        GtkLibrary library = new GtkLibrary();
+        Pointer first = library.g_list_model_get_item(grid.getSelection().getCReference(), 300);
+        Pointer second = library.g_list_model_get_item(grid.getSelection().getCReference(), 300);
+        assertEquals(first, second);
+        library.g_object_unref(second);
+        library.g_object_unref(first);
+
+        // Bound cells show the formatted value of their row
+        GtkApplicationWindow window = new GtkApplicationWindow(gtkApplication);
+        window.setDefaultSize(500, 500);
+        window.setChild(grid.getView());
+        window.show();
+        assertTrue(iterateMainLoopUntil(() -> price.getShownText(0) != null, 10_000));
+        assertEquals("$0", price.getShownText(0));
+        assertEquals("row 0", name.getShownText(0));
+        assertNull(price.getShownText(rows - 1));
+
+        // Sorting brings the other end into view, formatted
+        grid.sortBy(price, false);
+        assertEquals(rows - 1, grid.getRow(0));
+        assertTrue(iterateMainLoopUntil(() -> price.getShownText(rows - 1) != null, 10_000));
+        assertEquals("$4990", price.getShownText(rows - 1));
+        assertEquals("row 499", name.getShownText(rows - 1));
+
+        // refresh formats the bound cells again after the data changed
+        price.set(rows - 1, 7);
+        name.set(rows - 1, "changed");
+        grid.refresh();
+        assertEquals("$7", price.getShownText(rows - 1));
+        assertEquals("changed", name.getShownText(rows - 1));
+
+        window.destroy();
+        gtkApplication.quit();
+    }
+}
@@ -0,0 +1,101 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.JGTKJUnitTest;
+import com.gitlab.ccook.jgtk.GtkApplication;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrameBudgetSchedulerTest extends JGTKJUnitTest {
+    @Override
+    protected void testGtkElement(GtkApplication gtkApplication) {
+        FrameBudgetScheduler scheduler = new FrameBudgetScheduler();
+
+        // Every unit runs, in order, and progress counts each one
+        List<Integer> ran = new ArrayList<>();
+        List<Runnable> units = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int unit = i;
+            units.add(() -> ran.add(unit));
+        }
+        long[] lastProgress = {-1};
+        FrameBudgetScheduler.Handle all = scheduler.submit(units.iterator(), FrameBudgetScheduler.PRIORITY_DEFAULT, units.size(),
+                (handle, completed, total) -> lastProgress[0] = completed);
+        assertFalse(all.isDone());
+        assertTrue(iterateMainLoopUntil(all::isDone, 10_000));
+        assertEquals(ran.size(), 1000);
+        assertEquals(ran.get(999), 999);
+        assertEquals(all.getCompletedUnits(), 1000);
+        assertEquals(lastProgress[0], 1000);
+        assertEquals(scheduler.size(), 0);
+
+        // An empty iterator runs nothing and counts nothing
+        FrameBudgetScheduler.Handle empty = scheduler.submit(Collections.<Runnable>emptyIterator(), FrameBudgetScheduler.PRIORITY_DEFAULT);
+        assertTrue(empty.isDone());
+        assertEquals(empty.getCompletedUnits(), 0);
+
+        // Higher priority tasks run first
+        List<String> order = new ArrayList<>();
+        FrameBudgetScheduler.Handle low = scheduler.submit(() -> {
+            order.add("low");
+            return false;
+        }, FrameBudgetScheduler.PRIORITY_LOW, 1, null);
+        FrameBudgetScheduler.Handle high = scheduler.submit(() -> {
+            order.add("high");
+            return false;
+        }, FrameBudgetScheduler.PRIORITY_HIGH, 1, null);
+        assertTrue(iterateMainLoopUntil(() -> low.isDone() && high.isDone(), 10_000));
+        assertEquals(order.get(0), "high");
+        assertEquals(order.get(1), "low");
+
+        // A cancelled task stops before its next unit
+        int[] runs = {0};
+        boolean[] cancelledReported = {false};
+        FrameBudgetScheduler.Handle[] endless = new FrameBudgetScheduler.Handle[1];
+        endless[0] = scheduler.submit(() -> {
+            if (++runs[0] == 10) {
+                endless[0].cancel();
+            }
+            return true;
+        }, FrameBudgetScheduler.PRIORITY_DEFAULT, -1, (handle, completed, total) -> cancelledReported[0] |= handle.isCancelled());
+        assertTrue(iterateMainLoopUntil(() -> scheduler.size() == 0, 10_000));
+        assertTrue(endless[0].isCancelled());
+        assertFalse(endless[0].isDone());
+        assertEquals(runs[0], 10);
+        assertEquals(endless[0].getCompletedUnits(), 10);
+        assertTrue(cancelledReported[0]);
+
+        // A failing unit ends the task with its error
+        FrameBudgetScheduler.Handle failing = scheduler.submit(() -> {
+            throw new IllegalStateException("boom");
+        }, FrameBudgetScheduler.PRIORITY_DEFAULT, 1, null);
+        assertTrue(iterateMainLoopUntil(failing::isDone, 10_000));
+        assertTrue(failing.getError().isDefined());
+        assertEquals(failing.getCompletedUnits(), 0);
+        gtkApplication.quit();
+    }
+}
@@ -0,0 +1,78 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.JGTKJUnitTest;
+import com.gitlab.ccook.jgtk.GtkApplication;
+import com.gitlab.ccook.jgtk.gtk.GtkTextBuffer;
+import com.gitlab.ccook.jna.NativeArena;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GtkTextBufferLoaderTest extends JGTKJUnitTest {
+    @Override
+    protected void testGtkElement(GtkApplication gtkApplication) throws IOException {
+        FrameBudgetScheduler scheduler = new FrameBudgetScheduler();
+
+        // 2, 3 and 4 byte sequences land on every offset of a 5 byte chunk
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append("a").append("é").append("€").append("😀").append(i % 7 == 0 ? "\n" : "");
+        }
+        for (int chunkSize : new int[]{4, 5, 6, 7}) {
+            assertEquals(load(text.toString().getBytes(StandardCharsets.UTF_8), chunkSize, scheduler), text.toString());
+        }
+
+        // Invalid bytes and NUL each become U+FFFD, the text around them is kept
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            byte[] valid = ("line " + i + " €").getBytes(StandardCharsets.UTF_8);
+            bytes.write(valid, 0, valid.length);
+            bytes.write(i % 2 == 0 ? 0xFF : 0x00);
+            expected.append("line ").append(i).append(" €").append('\uFFFD');
+        }
+        assertEquals(load(bytes.toByteArray(), 5, scheduler), expected.toString());
+        assertEquals(load(bytes.toByteArray(), GtkTextBufferLoader.DEFAULT_CHUNK_SIZE, scheduler), expected.toString());
+        gtkApplication.quit();
+    }
+
+    private String load(byte[] content, int chunkSize, FrameBudgetScheduler scheduler) throws IOException {
+        File file = File.createTempFile("jgtk-loader", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), content);
+        GtkTextBuffer buffer = new GtkTextBuffer();
+        FrameBudgetScheduler.Handle handle = GtkTextBufferLoader.load(buffer, file, chunkSize, FrameBudgetScheduler.PRIORITY_DEFAULT, scheduler, null);
+        assertTrue(iterateMainLoopUntil(handle::isDone, 30_000));
+        assertFalse(handle.getError().isDefined());
+        assertTrue(file.delete());
+        try (NativeArena.Scope scope = NativeArena.open()) {
+            return buffer.getText(buffer.getStartIterator(scope), buffer.getEndIterator(scope), true).get();
+        }
+    }
+}
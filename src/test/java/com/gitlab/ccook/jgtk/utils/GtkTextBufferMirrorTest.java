@@ -0,0 +1,91 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.JGTKJUnitTest;
+import com.gitlab.ccook.jgtk.GtkApplication;
+import com.gitlab.ccook.jgtk.GtkTextIter;
+import com.gitlab.ccook.jgtk.gtk.GtkTextBuffer;
+import com.gitlab.ccook.jna.NativeArena;
+import com.gitlab.ccook.util.Pair;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GtkTextBufferMirrorTest extends JGTKJUnitTest {
+    @Override
+    protected void testGtkElement(GtkApplication gtkApplication) {
+        GtkTextBuffer buffer = new GtkTextBuffer("first line\r\nsecond 😀 line\nthird fourth");
+        GtkTextBufferMirror mirror = new GtkTextBufferMirror(buffer);
+        assertMirrors(buffer, mirror);
+
+        // Edits through the buffer are followed, including ones splitting and joining \r\n
+        buffer.insertText("inserted\n", buffer.getIteratorAtCharacterOffset(11));
+        assertMirrors(buffer, mirror);
+        buffer.deleteText(buffer.getIteratorAtCharacterOffset(3), buffer.getIteratorAtCharacterOffset(25));
+        assertMirrors(buffer, mirror);
+        buffer.insertText("😀😀\r", buffer.getEndIterator());
+        buffer.insertText("\n", buffer.getEndIterator());
+        assertMirrors(buffer, mirror);
+
+        TextRope before = mirror.snapshot();
+        buffer.setText("needle hay needle");
+        assertMirrors(buffer, mirror);
+        // Snapshots are immutable
+        assertNotEquals(before.toString(), mirror.snapshot().toString());
+
+        List<Pair<GtkTextIter, GtkTextIter>> matches = mirror.search(Pattern.compile("needle"));
+        assertEquals(matches.size(), 2);
+        assertEquals(matches.get(1).getFirst().getCharacterOffset(), 11);
+        assertEquals(matches.get(1).getSecond().getCharacterOffset(), 17);
+
+        // A detached mirror is disconnected: edits no longer reach it
+        mirror.detach();
+        TextRope detached = mirror.snapshot();
+        buffer.insertText("ignored", buffer.getEndIterator());
+        buffer.deleteText(buffer.getIteratorAtCharacterOffset(0), buffer.getIteratorAtCharacterOffset(7));
+        assertSame(detached, mirror.snapshot());
+        assertEquals("needle hay needle", mirror.snapshot().toString());
+        assertFalse(mirror.isInSync());
+        mirror.detach();
+        mirror.resync();
+        assertTrue(mirror.isInSync());
+        TextRope resynced = mirror.snapshot();
+        buffer.insertText("still ignored", buffer.getEndIterator());
+        assertSame(resynced, mirror.snapshot());
+        gtkApplication.quit();
+    }
+
+    private static void assertMirrors(GtkTextBuffer buffer, GtkTextBufferMirror mirror) {
+        assertTrue(mirror.isInSync());
+        try (NativeArena.Scope scope = NativeArena.open()) {
+            assertEquals(mirror.snapshot().toString(), buffer.getText(buffer.getStartIterator(scope), buffer.getEndIterator(scope), true).get());
+        }
+        for (int line = 0; line < buffer.getLineCount(); line++) {
+            GtkTextIter start = buffer.getIteratorAtLine(line).getSecond();
+            assertEquals(mirror.getLineStartOffset(line), start.getCharacterOffset());
+            assertEquals(mirror.getLineAtOffset(start.getCharacterOffset()), line);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.JGTKJUnitTest;
+import com.gitlab.ccook.jgtk.GtkApplication;
+import com.gitlab.ccook.jgtk.GtkTextIter;
+import com.gitlab.ccook.jgtk.gtk.GtkTextBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalTokenizerTest extends JGTKJUnitTest {
+    @Override
+    protected void testGtkElement(GtkApplication gtkApplication) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            text.append("line ").append(i).append(i < 99 ? "\n" : "");
+        }
+        GtkTextBuffer buffer = new GtkTextBuffer(text.toString());
+        CommentLexer lexer = new CommentLexer();
+        IncrementalTokenizer<Boolean> tokenizer = new IncrementalTokenizer<>(buffer, lexer, buffer.createTag("comment", null));
+        List<RuntimeException> errors = new ArrayList<>();
+        tokenizer.setErrorListener(errors::add);
+
+        // Attaching lexes every line once
+        tokenizer.attach();
+        assertEquals(tokenizer.getDirtyLineCount(), 100);
+        assertTrue(iterateMainLoopUntil(() -> tokenizer.getDirtyLineCount() == 0, 10_000));
+        assertEquals(lexer.lexed.getAndSet(0), 100);
+
+        // An edit that keeps the line's end state only re-lexes that line
+        insertAtLine(buffer, 50, "x");
+        assertEquals(tokenizer.getDirtyLineCount(), 1);
+        assertTrue(iterateMainLoopUntil(() -> tokenizer.getDirtyLineCount() == 0, 10_000));
+        assertEquals(lexer.lexed.getAndSet(0), 1);
+
+        // Inserting a line break dirties both halves of the split line
+        insertAtLine(buffer, 60, "split\n");
+        assertEquals(buffer.getLineCount(), 101);
+        assertEquals(tokenizer.getDirtyLineCount(), 2);
+        assertTrue(iterateMainLoopUntil(() -> tokenizer.getDirtyLineCount() == 0, 10_000));
+        assertEquals(lexer.lexed.getAndSet(0), 2);
+
+        // Opening a comment changes the state of every following line, closing it again stops at the close
+        insertAtLine(buffer, 10, "/*");
+        assertTrue(iterateMainLoopUntil(() -> tokenizer.getDirtyLineCount() == 0, 10_000));
+        assertEquals(lexer.lexed.getAndSet(0), 91);
+        insertAtLine(buffer, 20, "*/");
+        assertTrue(iterateMainLoopUntil(() -> tokenizer.getDirtyLineCount() == 0, 10_000));
+        assertEquals(lexer.lexed.getAndSet(0), 81);
+
+        // Deleting the opening restores the old states up to where the comment used to end
+        GtkTextIter.Pool pool = GtkTextIter.Pool.get();
+        GtkTextIter start = pool.acquire();
+        GtkTextIter end = pool.acquire();
+        buffer.getIteratorAtLine(start, 10);
+        buffer.getIteratorAtLine(end, 10);
+        end.moveForwardCharacters(2);
+        buffer.deleteText(start, end);
+        pool.release(end);
+        pool.release(start);
+        assertTrue(iterateMainLoopUntil(() -> tokenizer.getDirtyLineCount() == 0, 10_000));
+        assertEquals(lexer.lexed.getAndSet(0), 11);
+
+        // A lexer failure is reported and the pass is retried without another edit
+        lexer.failOnce.set(true);
+        insertAtLine(buffer, 30, "y");
+        assertTrue(iterateMainLoopUntil(() -> tokenizer.getDirtyLineCount() == 0, 10_000));
+        assertEquals(errors.size(), 1);
+
+        // Attaching twice is refused
+        assertThrows(RuntimeException.class, tokenizer::attach);
+
+        // A detached tokenizer is disconnected and sees no edits
+        tokenizer.detach();
+        insertAtLine(buffer, 40, "z");
+        assertEquals(tokenizer.getDirtyLineCount(), 0);
+        tokenizer.detach();
+
+        // Attaching again connects one pair of handlers: a split line is counted once
+        tokenizer.attach();
+        assertTrue(iterateMainLoopUntil(() -> tokenizer.getDirtyLineCount() == 0, 10_000));
+        lexer.lexed.set(0);
+        insertAtLine(buffer, 70, "again\n");
+        assertEquals(tokenizer.getDirtyLineCount(), 2);
+        assertTrue(iterateMainLoopUntil(() -> tokenizer.getDirtyLineCount() == 0, 10_000));
+        assertEquals(lexer.lexed.getAndSet(0), 2);
+        tokenizer.detach();
+        gtkApplication.quit();
+    }
+
+    private static void insertAtLine(GtkTextBuffer buffer, int line, String text) {
+        GtkTextIter.Pool pool = GtkTextIter.Pool.get();
+        GtkTextIter iter = pool.acquire();
+        try {
+            buffer.getIteratorAtLine(iter, line);
+            buffer.insertText(text, iter);
+        } finally {
+            pool.release(iter);
+        }
+    }
+
+    /**
+     * State is whether the line starts inside a block comment
+     */
+    private static class CommentLexer implements IncrementalTokenizer.Lexer<Boolean> {
+        final AtomicInteger lexed = new AtomicInteger();
+        final AtomicBoolean failOnce = new AtomicBoolean();
+
+        @Override
+        public Boolean getInitialState() {
+            return false;
+        }
+
+        @Override
+        public Boolean lexLine(CharSequence line, Boolean state, IncrementalTokenizer.TokenSink sink) {
+            if (failOnce.compareAndSet(true, false)) {
+                throw new IllegalStateException("lexer failure");
+            }
+            lexed.incrementAndGet();
+            String s = line.toString();
+            boolean inComment = state;
+            int commentStart = 0;
+            for (int i = 0; i + 1 < s.length(); i++) {
+                if (!inComment && s.startsWith("/*", i)) {
+                    inComment = true;
+                    commentStart = i;
+                    i++;
+                } else if (inComment && s.startsWith("*/", i)) {
+                    inComment = false;
+                    sink.token(commentStart, i + 2, 0);
+                    i++;
+                }
+            }
+            if (inComment) {
+                sink.token(commentStart, s.length(), 0);
+            }
+            return inComment;
+        }
+    }
+}
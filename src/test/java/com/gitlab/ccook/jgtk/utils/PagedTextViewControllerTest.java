@@ -0,0 +1,101 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.JGTKJUnitTest;
+import com.gitlab.ccook.jgtk.GtkApplication;
+import com.gitlab.ccook.jgtk.GtkTextIter;
+import com.gitlab.ccook.jgtk.enums.GtkPolicyType;
+import com.gitlab.ccook.jgtk.gtk.GtkApplicationWindow;
+import com.gitlab.ccook.jgtk.gtk.GtkScrolledWindow;
+import com.gitlab.ccook.jgtk.gtk.GtkTextBuffer;
+import com.gitlab.ccook.jgtk.gtk.GtkTextView;
+import com.gitlab.ccook.util.Pair;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PagedTextViewControllerTest extends JGTKJUnitTest {
+    @Override
+    protected void testGtkElement(GtkApplication gtkApplication) throws IOException {
+        File file = File.createTempFile("jgtk-paged", ".txt");
+        file.deleteOnExit();
+        try (BufferedWriter w = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 100_000; i++) {
+                w.write("line " + i + "\n");
+            }
+        }
+        GtkApplicationWindow window = new GtkApplicationWindow(gtkApplication);
+        window.setSizeRequest(400, 400);
+        GtkScrolledWindow scrolledWindow = new GtkScrolledWindow();
+        GtkTextView view = new GtkTextView();
+        scrolledWindow.setChild(view);
+        window.setChild(scrolledWindow);
+        window.present();
+        scrolledWindow.setPolicy(GtkPolicyType.GTK_POLICY_NEVER, GtkPolicyType.GTK_POLICY_AUTOMATIC);
+
+        PagedTextViewController controller = PagedTextViewController.open(scrolledWindow, view, file, 2048);
+        assertEquals(scrolledWindow.getPolicy().getSecond(), GtkPolicyType.GTK_POLICY_EXTERNAL);
+        assertTrue(iterateMainLoopUntil(controller::isIndexComplete, 30_000));
+        assertTrue(iterateMainLoopUntil(() -> controller.getLineCount() == 100_000, 10_000));
+
+        // Jumping far away moves the window around the target line
+        controller.scrollToLine(50_000);
+        assertWindowHolds(controller, view.getBuffer(), 50_000);
+
+        // Both adjustments keep working after a GC, the handlers are the controller's own callbacks
+        System.gc();
+        controller.getScrollbar().getAdjustment().setValue(90_000);
+        assertWindowHolds(controller, view.getBuffer(), 90_000);
+        iterateMainLoopUntil(() -> false, 200);
+        scrolledWindow.getVerticalAdjustment().setValue(0);
+        iterateMainLoopUntil(() -> false, 200);
+        long top = controller.getTopLine();
+        assertTrue(top >= controller.getWindowFirstLine() && top < controller.getWindowFirstLine() + 2048);
+
+        // Closing disconnects both adjustments and restores the policy
+        controller.close();
+        assertEquals(scrolledWindow.getPolicy().getFirst(), GtkPolicyType.GTK_POLICY_NEVER);
+        assertEquals(scrolledWindow.getPolicy().getSecond(), GtkPolicyType.GTK_POLICY_AUTOMATIC);
+        long first = controller.getWindowFirstLine();
+        controller.getScrollbar().getAdjustment().setValue(10);
+        iterateMainLoopUntil(() -> false, 200);
+        assertEquals(controller.getWindowFirstLine(), first);
+        controller.close();
+        window.close();
+        gtkApplication.quit();
+    }
+
+    private static void assertWindowHolds(PagedTextViewController controller, GtkTextBuffer buffer, long line) {
+        long first = controller.getWindowFirstLine();
+        assertTrue(first <= line && line < first + 2048, "window starts at " + first);
+        Pair<Boolean, GtkTextIter> start = buffer.getIteratorAtLine((int) (line - first));
+        GtkTextIter end = buffer.getIteratorAtLine((int) (line - first)).getSecond();
+        end.moveForwardToLineEnd();
+        assertEquals(buffer.getText(start.getSecond(), end, true).get(), "line " + line);
+    }
+}
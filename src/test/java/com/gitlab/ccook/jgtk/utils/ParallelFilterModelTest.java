@@ -0,0 +1,141 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.JGTKJUnitTest;
+import com.gitlab.ccook.jgtk.GtkApplication;
+import com.gitlab.ccook.jgtk.callbacks.ItemsChangedCallback;
+import com.gitlab.ccook.jna.GtkLibrary;
+import com.sun.jna.Pointer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelFilterModelTest extends JGTKJUnitTest {
+    private static final int MATCH_FUNC = 1 << 3;
+
+    @Override
+    protected void testGtkElement(GtkApplication gtkApplication) {
+        // Bit counting and diffing, across word boundaries
+        long[] words = {-1L, 0b1011L};
+        assertEquals(67, ParallelFilterModel.count(words, 0, 128));
+        assertEquals(6, ParallelFilterModel.count(words, 60, 66));
+        assertEquals(1, ParallelFilterModel.count(words, 65, 67));
+        assertEquals(0, ParallelFilterModel.count(words, 3, 3));
+        assertNull(ParallelFilterModel.differingRange(words, words.clone()));
+        assertArrayEquals(new int[]{69, 104}, ParallelFilterModel.differingRange(new long[]{0, 0}, new long[]{0, (1L << 5) | (1L << 40)}));
+        assertArrayEquals(new int[]{63, 64}, ParallelFilterModel.differingRange(new long[]{1L << 63, 0}, new long[]{0, 1}));
+
+        List<Integer> source = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            source.add(i);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ParallelFilterModel<Integer> filtered = new ParallelFilterModel<>(source, pool);
+        assertEquals(10000, filtered.getModel().size());
+        GtkLibrary library = new GtkLibrary();
+        List<int[]> changes = new ArrayList<>();
+        ItemsChangedCallback recorder = (list, position, removed, added, userData) -> changes.add(new int[]{position, removed, added});
+        library.g_signal_connect_data(filtered.getModel().getCReference(), "items-changed", recorder, Pointer.NULL, Pointer.NULL, 0);
+
+        // Model positions map back to the source
+        CompletableFuture<Boolean> evens = filtered.setFilter(i -> i % 2 == 0);
+        assertTrue(filtered.isPending());
+        assertTrue(iterateMainLoopUntil(evens::isDone, 10_000));
+        assertTrue(evens.join());
+        assertFalse(filtered.isPending());
+        assertEquals(5000, filtered.getModel().size());
+        assertEquals(0, filtered.getSourcePosition(0));
+        assertEquals(2, filtered.getSourcePosition(1));
+        assertEquals(9998, filtered.getSourcePosition(4999));
+        assertEquals(-1, filtered.getSourcePosition(5000));
+        assertEquals(-1, filtered.getSourcePosition(-1));
+        assertEquals(5000, filtered.getMatches().size());
+
+        // Only the range between the first and last differing element is spliced, in one items-changed
+        changes.clear();
+        CompletableFuture<Boolean> oneMore = filtered.setFilter(i -> i % 2 == 0 || i == 5001);
+        assertTrue(iterateMainLoopUntil(oneMore::isDone, 10_000));
+        assertEquals(1, changes.size());
+        assertArrayEquals(new int[]{2501, 0, 1}, changes.get(0));
+        assertEquals(5001, filtered.getModel().get(2501));
+
+        changes.clear();
+        CompletableFuture<Boolean> oneLess = filtered.setFilter(i -> (i % 2 == 0 && i != 100) || i == 5001);
+        assertTrue(iterateMainLoopUntil(oneLess::isDone, 10_000));
+        assertEquals(1, changes.size());
+        assertArrayEquals(new int[]{50, 1, 0}, changes.get(0));
+        assertEquals(102, filtered.getModel().get(50));
+
+        // The same filter again changes nothing
+        changes.clear();
+        CompletableFuture<Boolean> same = filtered.refilter();
+        assertTrue(iterateMainLoopUntil(same::isDone, 10_000));
+        assertTrue(same.join());
+        assertEquals(0, changes.size());
+
+        // A later filter supersedes an evaluation in flight, which never reaches the model
+        changes.clear();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> stale = filtered.setFilter(i -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        });
+        try {
+            started.await();
+        } catch (InterruptedException e) {
+            fail(e.getMessage());
+        }
+        CompletableFuture<Boolean> latest = filtered.setFilter(i -> i < 10);
+        release.countDown();
+        assertTrue(iterateMainLoopUntil(() -> stale.isDone() && latest.isDone(), 10_000));
+        assertFalse(stale.join());
+        assertTrue(latest.join());
+        assertEquals(1, changes.size());
+        assertEquals(10, filtered.getModel().size());
+        assertEquals(9, filtered.getSourcePosition(9));
+
+        // Elements dropped at the start and added at the end share one splice over [0, 14]
+        changes.clear();
+        CompletableFuture<Boolean> shifted = filtered.setFilter(i -> i >= 5 && i < 15);
+        assertTrue(iterateMainLoopUntil(shifted::isDone, 10_000));
+        assertEquals(1, changes.size());
+        assertArrayEquals(new int[]{0, 10, 10}, changes.get(0));
+        assertEquals(5, filtered.getModel().get(0));
+        assertEquals(5, filtered.getSourcePosition(0));
+
+        library.g_signal_handlers_disconnect_matched(filtered.getModel().getCReference(), MATCH_FUNC, 0, 0, Pointer.NULL, recorder, Pointer.NULL);
+        pool.shutdown();
+        gtkApplication.quit();
+    }
+}
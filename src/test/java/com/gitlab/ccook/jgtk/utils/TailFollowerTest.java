@@ -0,0 +1,90 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import com.gitlab.ccook.JGTKJUnitTest;
+import com.gitlab.ccook.jgtk.GtkApplication;
+import com.gitlab.ccook.jgtk.gtk.GtkApplicationWindow;
+import com.gitlab.ccook.jgtk.gtk.GtkScrolledWindow;
+import com.gitlab.ccook.jgtk.gtk.GtkTextBuffer;
+import com.gitlab.ccook.jgtk.gtk.GtkTextView;
+import com.gitlab.ccook.jna.NativeArena;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TailFollowerTest extends JGTKJUnitTest {
+    @Override
+    protected void testGtkElement(GtkApplication gtkApplication) throws InterruptedException {
+        GtkApplicationWindow window = new GtkApplicationWindow(gtkApplication);
+        window.setSizeRequest(400, 300);
+        GtkScrolledWindow scrolledWindow = new GtkScrolledWindow();
+        GtkTextView view = new GtkTextView();
+        scrolledWindow.setChild(view);
+        window.setChild(scrolledWindow);
+        window.present();
+        GtkTextBuffer buffer = view.getBuffer();
+        TailFollower follower = new TailFollower(view, 100);
+
+        // A burst larger than maxLines is cut down before it reaches the buffer
+        for (int i = 0; i < 1000; i++) {
+            follower.appendLine("line " + i);
+        }
+        assertTrue(iterateMainLoopUntil(() -> text(buffer).endsWith("line 999\n"), 10_000));
+        assertTrue(buffer.getLineCount() <= 111, "lines " + buffer.getLineCount());
+        assertTrue(text(buffer).startsWith("line 900\n"));
+
+        // Appends spread over many frames are trimmed to maxLines once the 10% slack is used up
+        for (int i = 1000; i < 1500; i++) {
+            follower.appendLine("line " + i);
+            if (i % 7 == 0) {
+                String last = "line " + i + "\n";
+                assertTrue(iterateMainLoopUntil(() -> text(buffer).endsWith(last), 10_000));
+                assertTrue(buffer.getLineCount() <= 111, "lines " + buffer.getLineCount());
+            }
+        }
+        assertTrue(iterateMainLoopUntil(() -> text(buffer).endsWith("line 1499\n"), 10_000));
+        assertTrue(buffer.getLineCount() <= 111);
+        assertTrue(buffer.getLineCount() > 100);
+        // The kept lines are the most recent ones, in order
+        String[] kept = text(buffer).split("\n");
+        for (int i = 0; i < kept.length; i++) {
+            assertEquals(kept[i], "line " + (1500 - kept.length + i));
+        }
+
+        // Appends from another thread land too, split lines included
+        Thread writer = new Thread(() -> {
+            follower.append("from ");
+            follower.append("thread\nsecond\n");
+        });
+        writer.start();
+        writer.join();
+        assertTrue(iterateMainLoopUntil(() -> text(buffer).endsWith("line 1499\nfrom thread\nsecond\n"), 10_000));
+        window.close();
+        gtkApplication.quit();
+    }
+
+    private static String text(GtkTextBuffer buffer) {
+        try (NativeArena.Scope scope = NativeArena.open()) {
+            return buffer.getText(buffer.getStartIterator(scope), buffer.getEndIterator(scope), true).get();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextDiffTest {
+
+    @Test
+    public void testIdenticalTexts() {
+        assertTrue(TextDiff.diff("same\ntext", "same\ntext").isEmpty());
+        assertTrue(TextDiff.diff("", "").isEmpty());
+    }
+
+    @Test
+    public void testMinimalHunks() {
+        List<TextDiff.Hunk> hunks = TextDiff.diff("one\ntwo\nthree\n", "one\ntoo\nthree\n");
+        assertEquals(hunks.size(), 1);
+        assertEquals(hunks.get(0).getStart(), 5);
+        assertEquals(hunks.get(0).getEnd(), 6);
+        assertEquals(hunks.get(0).getText(), "o");
+
+        hunks = TextDiff.diff("a\nb\nc", "a\nx\nb\nc\nd");
+        assertEquals(apply("a\nb\nc", hunks), "a\nx\nb\nc\nd");
+        assertEquals(hunks.size(), 2);
+
+        assertEquals(apply("", TextDiff.diff("", "new")), "new");
+        assertEquals(apply("old", TextDiff.diff("old", "")), "");
+    }
+
+    @Test
+    public void testSurrogatePairs() {
+        // 😀 and 😁 share their high surrogate; the pair must be replaced as a whole
+        List<TextDiff.Hunk> hunks = TextDiff.diff("x😀y", "x😁y");
+        assertEquals(hunks.size(), 1);
+        assertEquals(hunks.get(0).getStart(), 1);
+        assertEquals(hunks.get(0).getEnd(), 2);
+        assertEquals(hunks.get(0).getText(), "😁");
+
+        // Offsets are code points, so text after a pair is addressed by character
+        hunks = TextDiff.diff("😀😀 tail", "😀😀 TAIL");
+        assertEquals(hunks.get(0).getStart(), 3);
+        assertEquals(apply("😀😀 tail", hunks), "😀😀 TAIL");
+
+        for (TextDiff.Hunk hunk : TextDiff.diff("😀a😁b😂c", "😁a😀b😂d😃")) {
+            assertFalse(Character.isLowSurrogate(hunk.getText().isEmpty() ? 'a' : hunk.getText().charAt(0)));
+            assertFalse(Character.isHighSurrogate(hunk.getText().isEmpty() ? 'a' : hunk.getText().charAt(hunk.getText().length() - 1)));
+        }
+        assertEquals(apply("😀a😁b😂c", TextDiff.diff("😀a😁b😂c", "😁a😀b😂d😃")), "😁a😀b😂d😃");
+    }
+
+    @Test
+    public void testLargeEditsFallBackToReplacement() {
+        Random random = new Random(7);
+        StringBuilder before = new StringBuilder();
+        StringBuilder after = new StringBuilder();
+        before.append("common head\n");
+        after.append("common head\n");
+        for (int i = 0; i < 5000; i++) {
+            before.append("before ").append(random.nextInt()).append('\n');
+            after.append("after ").append(random.nextInt()).append('\n');
+        }
+        before.append("common tail");
+        after.append("common tail");
+        List<TextDiff.Hunk> hunks = TextDiff.diff(before.toString(), after.toString());
+        assertEquals(apply(before.toString(), hunks), after.toString());
+        // Too many line edits: one replacement between the common head and tail
+        assertEquals(hunks.size(), 1);
+        assertEquals(hunks.get(0).getStart(), "common head\n".length());
+
+        // A long line rewritten char by char is replaced whole as well
+        String longBefore = repeatRandom(random, 20_000);
+        String longAfter = repeatRandom(random, 20_000);
+        assertEquals(apply(longBefore, TextDiff.diff(longBefore, longAfter)), longAfter);
+    }
+
+    @Test
+    public void testRandomEdits() {
+        Random random = new Random(42);
+        String[] pieces = {"a", "b", "\n", "😀", "😁", "é", "line\n", " "};
+        for (int round = 0; round < 500; round++) {
+            StringBuilder before = new StringBuilder();
+            int n = random.nextInt(200);
+            for (int i = 0; i < n; i++) {
+                before.append(pieces[random.nextInt(pieces.length)]);
+            }
+            StringBuilder after = new StringBuilder(before);
+            int edits = random.nextInt(8);
+            for (int e = 0; e < edits; e++) {
+                int characters = after.codePointCount(0, after.length());
+                int at = after.offsetByCodePoints(0, random.nextInt(characters + 1));
+                if (random.nextBoolean() && at < after.length()) {
+                    after.delete(at, after.offsetByCodePoints(at, 1));
+                } else {
+                    after.insert(at, pieces[random.nextInt(pieces.length)]);
+                }
+            }
+            List<TextDiff.Hunk> hunks = TextDiff.diff(before.toString(), after.toString());
+            assertEquals(apply(before.toString(), hunks), after.toString(), "round " + round);
+            int previousEnd = -1;
+            for (TextDiff.Hunk hunk : hunks) {
+                assertTrue(hunk.getStart() > previousEnd || (previousEnd == -1 && hunk.getStart() >= 0), "hunks overlap in round " + round);
+                assertTrue(hunk.getEnd() >= hunk.getStart());
+                previousEnd = hunk.getEnd();
+            }
+        }
+    }
+
+    // Applies hunks from the last to the first, so earlier offsets stay valid
+    private static String apply(String before, List<TextDiff.Hunk> hunks) {
+        StringBuilder sb = new StringBuilder(before);
+        for (int i = hunks.size() - 1; i >= 0; i--) {
+            TextDiff.Hunk hunk = hunks.get(i);
+            int start = sb.offsetByCodePoints(0, hunk.getStart());
+            int end = sb.offsetByCodePoints(0, hunk.getEnd());
+            sb.replace(start, end, hunk.getText());
+        }
+        return sb.toString();
+    }
+
+    private static String repeatRandom(Random random, int length) {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < length) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+}
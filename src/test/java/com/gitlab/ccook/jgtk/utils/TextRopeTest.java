@@ -0,0 +1,213 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jgtk.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextRopeTest {
+    private static final String[] PIECES = {"a", "bc", "\n", "\r", "\r\n", "\u2029", "😀", "é", "line\n"};
+
+    @Test
+    public void testInsertDeleteAcrossLeaves() {
+        String text = repeat("0123456789\n", 1000);
+        TextRope rope = TextRope.of(text);
+        assertEquals(rope.toString(), text);
+        assertEquals(rope.length(), text.length());
+        assertEquals(rope.getLineCount(), 1001);
+
+        // Delete a range spanning several leaves, then put it back
+        TextRope deleted = rope.delete(1500, 9500);
+        String expected = text.substring(0, 1500) + text.substring(9500);
+        assertEquals(deleted.toString(), expected);
+        assertEquals(deleted.getLineCount(), lineCount(expected));
+        TextRope restored = deleted.insert(1500, text.substring(1500, 9500));
+        assertEquals(restored.toString(), text);
+        assertEquals(restored.getLineCount(), 1001);
+        // The original is untouched
+        assertEquals(rope.toString(), text);
+
+        assertEquals(rope.subSequence(2045, 2060).toString(), text.substring(2045, 2060));
+        assertSame(rope.insert(5, ""), rope);
+        assertSame(rope.delete(7, 7), rope);
+    }
+
+    @Test
+    public void testCarriageReturnLineFeedSplitAcrossLeaves() {
+        // The \r ends one leaf and the \n starts the next
+        String left = repeat("a", 2047) + "\r";
+        String right = "\n" + repeat("b", 2000);
+        TextRope rope = TextRope.of(left).insert(left.length(), right);
+        assertEquals(rope.toString(), left + right);
+        assertEquals(rope.getLineCount(), 2);
+        assertEquals(rope.getLineAtOffset(2047), 0);
+        assertEquals(rope.getLineAtOffset(2048), 0);
+        assertEquals(rope.getLineAtOffset(2049), 1);
+        assertEquals(rope.getLineStartOffset(1), 2049);
+
+        // Separating the pair turns it into two breaks, joining it again makes it one
+        TextRope separated = rope.insert(2048, "x");
+        assertEquals(separated.getLineCount(), 3);
+        assertEquals(separated.getLineStartOffset(1), 2048);
+        assertEquals(separated.getLineStartOffset(2), 2050);
+        assertEquals(separated.delete(2048, 2049).getLineCount(), 2);
+
+        // A lone trailing \r is a break of its own
+        assertEquals(TextRope.of("a\r").getLineCount(), 2);
+        assertEquals(TextRope.of("a\r").getLineStartOffset(1), 2);
+    }
+
+    @Test
+    public void testParagraphSeparator() {
+        TextRope rope = TextRope.of("one\u2029two\u2029three");
+        assertEquals(rope.getLineCount(), 3);
+        assertEquals(rope.getLineAtOffset(3), 0);
+        assertEquals(rope.getLineAtOffset(4), 1);
+        assertEquals(rope.getLineStartOffset(1), 4);
+        assertEquals(rope.getLineStartOffset(2), 8);
+    }
+
+    @Test
+    public void testSurrogatePairs() {
+        String text = repeat("😀x", 1500);
+        TextRope rope = TextRope.of(text);
+        assertEquals(rope.length(), text.length());
+        assertEquals(rope.getCharacterCount(), 3000);
+        // Offsets count code points, indices count chars
+        assertEquals(rope.toCharIndex(1), 2);
+        assertEquals(rope.toCharIndex(2999), 4499);
+        assertEquals(rope.toCharacterOffset(4499), 2999);
+        // Leaves are never cut inside a pair
+        for (int i = 0; i < rope.length(); i++) {
+            assertEquals(rope.charAt(i), text.charAt(i));
+        }
+        TextRope edited = rope.insert(1001, "é\n").delete(10, 20);
+        String expected = text.substring(0, text.offsetByCodePoints(0, 1001)) + "é\n" + text.substring(text.offsetByCodePoints(0, 1001));
+        expected = expected.substring(0, expected.offsetByCodePoints(0, 10)) + expected.substring(expected.offsetByCodePoints(0, 20));
+        assertEquals(edited.toString(), expected);
+        assertEquals(edited.getLineCount(), 2);
+        assertEquals(edited.getLineStartOffset(1), 1001 - 10 + 2);
+    }
+
+    @Test
+    public void testLineLookups() {
+        TextRope rope = TextRope.of("ab\ncd\r\nef\rgh");
+        assertEquals(rope.getLineCount(), 4);
+        int[] lines = {0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 3, 3, 3};
+        for (int offset = 0; offset < lines.length; offset++) {
+            assertEquals(rope.getLineAtOffset(offset), lines[offset], "offset " + offset);
+        }
+        assertEquals(rope.getLineStartOffset(0), 0);
+        assertEquals(rope.getLineStartOffset(1), 3);
+        assertEquals(rope.getLineStartOffset(2), 7);
+        assertEquals(rope.getLineStartOffset(3), 10);
+        // Out of range lines are clamped
+        assertEquals(rope.getLineStartOffset(-1), 0);
+        assertEquals(rope.getLineStartOffset(99), 10);
+    }
+
+    @Test
+    public void testRandomEditsMatchString() {
+        Random random = new Random(42);
+        StringBuilder model = new StringBuilder();
+        TextRope rope = TextRope.EMPTY;
+        for (int round = 0; round < 3000; round++) {
+            int characters = model.codePointCount(0, model.length());
+            if (characters > 0 && random.nextInt(3) == 0) {
+                int a = random.nextInt(characters + 1);
+                int b = Math.min(characters, a + random.nextInt(characters < 5000 ? 40 : 3000));
+                rope = rope.delete(a, b);
+                model.delete(model.offsetByCodePoints(0, a), model.offsetByCodePoints(0, b));
+            } else {
+                int at = random.nextInt(characters + 1);
+                StringBuilder piece = new StringBuilder();
+                int n = random.nextInt(10) == 0 ? 3000 : 1 + random.nextInt(20);
+                for (int i = 0; i < n; i++) {
+                    piece.append(PIECES[random.nextInt(PIECES.length)]);
+                }
+                rope = rope.insert(at, piece);
+                model.insert(model.offsetByCodePoints(0, at), piece);
+            }
+            String expected = model.toString();
+            assertEquals(rope.length(), expected.length());
+            assertEquals(rope.getCharacterCount(), expected.codePointCount(0, expected.length()));
+            assertEquals(rope.getLineCount(), lineCount(expected), "round " + round);
+            if (round % 100 == 0) {
+                assertEquals(rope.toString(), expected);
+                checkLines(rope, expected);
+            }
+        }
+        assertEquals(rope.toString(), model.toString());
+        checkLines(rope, model.toString());
+    }
+
+    @Test
+    public void testFindAll() {
+        TextRope rope = TextRope.of(repeat("😀needle ", 600));
+        int[] found = rope.findAll(Pattern.compile("needle"));
+        assertEquals(found.length, 1200);
+        assertEquals(found[0], 1);
+        assertEquals(found[1], 7);
+        assertEquals(found[2], 9);
+    }
+
+    private static void checkLines(TextRope rope, String text) {
+        int offset = 0;
+        int line = 0;
+        for (int i = 0; i < text.length(); i = text.offsetByCodePoints(i, 1), offset++) {
+            assertEquals(rope.getLineAtOffset(offset), line, "offset " + offset);
+            if (endsBreak(text, i)) {
+                line++;
+                assertEquals(rope.getLineStartOffset(line), offset + 1, "line " + line);
+            }
+        }
+        assertEquals(rope.getLineAtOffset(offset), line);
+    }
+
+    // The last char of a line break: \n, \u2029, or a \r not followed by \n
+    private static boolean endsBreak(String text, int i) {
+        char c = text.charAt(i);
+        return c == '\n' || c == '\u2029' || (c == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n'));
+    }
+
+    private static int lineCount(String text) {
+        int lines = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (endsBreak(text, i)) {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,79 @@
+/*-
+ * #%L
+ * jgtk
+ * %%
+ * Copyright (C) 2022 JGTK
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+package com.gitlab.ccook.jna;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NativeUtf8BufferTest {
+
+    @Test
+    public void testExactLength() {
+        String[] samples = {"", "ascii only", "café", "€ uro", "emoji 😀 pair", "\r\n "};
+        for (String s : samples) {
+            assertEquals(NativeUtf8Buffer.utf8Length(s), (long) s.getBytes(StandardCharsets.UTF_8).length, s);
+        }
+        // An unpaired surrogate becomes '?'
+        assertEquals(NativeUtf8Buffer.utf8Length("a\uD83Db"), 3L);
+        assertEquals(NativeUtf8Buffer.utf8Length("a\uDE00"), 2L);
+    }
+
+    @Test
+    public void testEncode() {
+        String text = "løg 😀 line\n";
+        NativeUtf8Buffer utf8 = NativeUtf8Buffer.encode(text);
+        try {
+            byte[] expected = text.getBytes(StandardCharsets.UTF_8);
+            assertEquals(utf8.length(), expected.length);
+            assertArrayEquals(utf8.getPointer().getByteArray(0, utf8.length()), expected);
+            assertEquals(utf8.getPointer().getByte(utf8.length()), (byte) 0);
+            // Nested use hands out a separate buffer
+            NativeUtf8Buffer nested = NativeUtf8Buffer.encode("nested");
+            try {
+                assertNotSame(nested, utf8);
+                assertEquals(nested.getPointer().getString(0, "UTF-8"), "nested");
+            } finally {
+                nested.release();
+            }
+        } finally {
+            utf8.release();
+        }
+    }
+
+    @Test
+    public void testAsciiTakesOneBytePerChar() {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 100_000) {
+            sb.append("2022-01-01 INFO something happened\n");
+        }
+        NativeUtf8Buffer utf8 = NativeUtf8Buffer.encode(sb);
+        try {
+            assertEquals(utf8.length(), sb.length());
+            assertTrue(((com.sun.jna.Memory) utf8.getPointer()).size() <= sb.length() + 1);
+        } finally {
+            utf8.release();
+        }
+    }
+}